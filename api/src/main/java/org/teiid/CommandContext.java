@@ -26,6 +26,7 @@ import java.io.Serializable;
 import java.sql.Statement;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.Executor;
 
 import javax.security.auth.Subject;
 
@@ -192,6 +193,13 @@ public interface CommandContext {
 	 * Returns the last set of generated keys or null if no keys have been generated.
 	 */
 	GeneratedKeys getGeneratedKeys();
+	
+	/**
+	 * Get the engine executor for asynchronous work.  Work submitted to the executor
+	 * may be queued, so callers waiting on the result should be able to run it themselves.
+	 * @return the executor or null if one is not available
+	 */
+	Executor getExecutor();
 
 
 }
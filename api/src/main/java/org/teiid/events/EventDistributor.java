@@ -49,6 +49,25 @@ public interface EventDistributor {
 	@Replicated(remoteOnly=true)
 	void updateMatViewRow(String vdbName, int vdbVersion, String schema, String viewName, List<?> tuple, boolean delete);
 	
+	/**
+	 * Update the given materialized view rows as a single change.
+	 * The tuples are expected to be in table order, which has the primary key first.
+	 * Deletes need to only send the keys, not the entire row contents.
+	 * <br>
+	 * This method was added to the interface in 8.4, so existing implementations
+	 * must be updated to implement it.
+	 * 
+	 * @since 8.4
+	 * @param vdbName
+	 * @param vdbVersion
+	 * @param schema
+	 * @param viewName
+	 * @param tuples
+	 * @param deletes
+	 */
+	@Replicated(remoteOnly=true)
+	void updateMatViewRows(String vdbName, int vdbVersion, String schema, String viewName, List<? extends List<?>> tuples, List<? extends List<?>> deletes);
+	
 	/**
 	 * Notify that the table data has changed.
 	 * @param vdbName
@@ -0,0 +1,45 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.translator;
+
+import java.util.List;
+
+/**
+ * An optional extension of {@link ResultSetExecution} that returns multiple rows per call.
+ * When implemented the engine will use {@link #nextBatch(List, int)} rather than {@link #next()}
+ * to retrieve the results of queries.
+ */
+public interface BatchedResultSetExecution extends ResultSetExecution {
+	
+	/**
+	 * Add up to maxRows rows to the batch.  If a {@link DataNotAvailableException} is thrown, 
+	 * the rows already added to the batch will still be used.
+	 * @param batch the list to add rows to
+	 * @param maxRows the maximum number of rows to add
+	 * @return false if there are no more results
+	 * @throws TranslatorException
+	 * @throws DataNotAvailableException
+	 */
+	boolean nextBatch(List<List<?>> batch, int maxRows) throws TranslatorException, DataNotAvailableException;
+
+}
@@ -0,0 +1,63 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.translator.jdbc;
+
+/**
+ * Tracks the observed row width of query results so that fetch sizes 
+ * can be increased for narrow rows within a memory target.
+ */
+class FetchSizeStatistics {
+	
+	static final long TARGET_FETCH_BYTES = 1 << 20;
+	static final int MAX_FETCH_SIZE = 10000;
+	private static final double WEIGHT = .2;
+	
+	private volatile double rowWidth;
+	
+	/**
+	 * Get the fetch size to use
+	 * @param batchSize the engine batch size, which is used as the minimum
+	 */
+	int getFetchSize(int batchSize) {
+		double width = this.rowWidth;
+		if (width <= 0) {
+			return batchSize;
+		}
+		long size = (long)(TARGET_FETCH_BYTES / width);
+		return (int)Math.max(batchSize, Math.min(MAX_FETCH_SIZE, size));
+	}
+	
+	/**
+	 * Record the observations of an execution
+	 * @param width the average estimated row width in bytes
+	 */
+	synchronized void record(double width) {
+		if (this.rowWidth <= 0) {
+			this.rowWidth = width;
+			return;
+		}
+		this.rowWidth = this.rowWidth * (1 - WEIGHT) + width * WEIGHT;
+	}
+	
+}
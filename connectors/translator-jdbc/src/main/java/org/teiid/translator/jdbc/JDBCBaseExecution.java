@@ -34,6 +34,7 @@ import org.teiid.language.Command;
 import org.teiid.language.Insert;
 import org.teiid.language.Literal;
 import org.teiid.language.Parameter;
+import org.teiid.language.QueryExpression;
 import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
 import org.teiid.logging.MessageLevel;
@@ -62,6 +63,8 @@ public abstract class JDBCBaseExecution implements Execution  {
 
     // Set during execution
     protected Statement statement;
+    private Connection cacheConnection;
+    private String cachedSql;
 
     // ===========================================================================================================================
     // Constructors
@@ -83,6 +86,17 @@ public abstract class JDBCBaseExecution implements Execution  {
      */
 	protected void bind(PreparedStatement stmt, List<?> params, List<?> batchValues)
 			throws SQLException {
+		bindValues(stmt, params, batchValues, 0);
+		if (batchValues != null) {
+			stmt.addBatch();
+		}
+	}
+	
+	/**
+	 * Bind the values starting after the given parameter offset
+	 */
+	protected void bindValues(PreparedStatement stmt, List<?> params, List<?> batchValues, int offset)
+			throws SQLException {
 		for (int i = 0; i< params.size(); i++) {
 		    Object paramValue = params.get(i);
 		    Object value = null;
@@ -99,10 +113,7 @@ public abstract class JDBCBaseExecution implements Execution  {
 		    	value = batchValues.get(param.getValueIndex());
 		    	paramType = param.getType();
 		    }
-		    this.executionFactory.bindValue(stmt, value, paramType, i+1);
-		}
-		if (batchValues != null) {
-			stmt.addBatch();
+		    this.executionFactory.bindValue(stmt, value, paramType, offset+i+1);
 		}
 	}
 
@@ -123,9 +134,7 @@ public abstract class JDBCBaseExecution implements Execution  {
 
     public synchronized void close() {
         try {
-            if (statement != null) {
-                statement.close();
-            }
+        	closeStatement();
         } catch (SQLException e) {
 			LogManager.logDetail(LogConstants.CTX_CONNECTOR, e, "Exception closing"); //$NON-NLS-1$
         } 
@@ -154,32 +163,61 @@ public abstract class JDBCBaseExecution implements Execution  {
 		}
     }
 
+    /**
+     * Close the current statement, or return it to the cache if it was cached
+     */
+    private void closeStatement() throws SQLException {
+    	if (statement == null) {
+    		return;
+    	}
+    	Statement s = statement;
+    	statement = null;
+    	if (cachedSql != null) {
+    		String sql = cachedSql;
+    		cachedSql = null;
+    		PreparedStatementCache cache = executionFactory.getPreparedStatementCache();
+    		if (cache != null) {
+	    		try {
+	    			PreparedStatement ps = (PreparedStatement)s;
+	    			ps.clearParameters();
+	    			ps.clearWarnings();
+	    			cache.put(cacheConnection, sql, ps);
+	    			return;
+	    		} catch (SQLException e) {
+	    			LogManager.logDetail(LogConstants.CTX_CONNECTOR, e, "Could not return the statement to the cache"); //$NON-NLS-1$
+	    		}
+    		}
+    	}
+    	s.close();
+    }
+
     protected synchronized Statement getStatement() throws SQLException {
-        if (statement != null) {
-            statement.close();
-            statement = null;
-        }
+        closeStatement();
         statement = connection.createStatement();
         setSizeContraints(statement);
         return statement;
     }
 
     protected synchronized CallableStatement getCallableStatement(String sql) throws SQLException {
-        if (statement != null) {
-            statement.close();
-            statement = null;
-        }
+        closeStatement();
         statement = connection.prepareCall(sql);
         setSizeContraints(statement);
         return (CallableStatement)statement;
     }
 
     protected synchronized PreparedStatement getPreparedStatement(String sql) throws SQLException {
-        if (statement != null) {
-            statement.close();
-            statement = null;
-        }
-        if (executionFactory.supportsGeneratedKeys() && command instanceof Insert) {
+        closeStatement();
+        PreparedStatementCache cache = executionFactory.getPreparedStatementCache();
+        if (cache != null && command instanceof QueryExpression) {
+        	//prepare against the physical connection so that the statement is not closed with the handle
+        	Connection physical = executionFactory.getPhysicalConnection(connection);
+        	statement = cache.remove(physical, sql);
+        	if (statement == null) {
+        		statement = physical.prepareStatement(sql);
+        	}
+        	cacheConnection = physical;
+        	cachedSql = sql;
+        } else if (executionFactory.supportsGeneratedKeys() && command instanceof Insert) {
         	statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
         } else {
         	statement = connection.prepareStatement(sql);
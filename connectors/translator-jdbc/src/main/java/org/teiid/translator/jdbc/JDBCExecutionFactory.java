@@ -22,28 +22,36 @@
 
 package org.teiid.translator.jdbc;
 
+import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.sql.*;
 import java.text.MessageFormat;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.sql.DataSource;
 
 import org.teiid.core.types.BinaryType;
+import org.teiid.core.util.LRUCache;
 import org.teiid.core.util.PropertiesUtils;
 import org.teiid.language.*;
 import org.teiid.language.Argument.Direction;
 import org.teiid.language.SetQuery.Operation;
+import org.teiid.language.visitor.CollectorVisitor;
 import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
 import org.teiid.metadata.MetadataFactory;
@@ -59,6 +67,7 @@ public class JDBCExecutionFactory extends ExecutionFactory<DataSource, Connectio
 
 	public static final int DEFAULT_MAX_IN_CRITERIA = 1000;
 	public static final int DEFAULT_MAX_DEPENDENT_PREDICATES = 50;
+	public static final int DEFAULT_TEMPORARY_TABLE_THRESHOLD = DEFAULT_MAX_IN_CRITERIA;
 
 	// Because the retrieveValue() method will be hit for every value of 
     // every JDBC result set returned, we do lots of weird special stuff here 
@@ -129,7 +138,18 @@ public class JDBCExecutionFactory extends ExecutionFactory<DataSource, Connectio
 	private String version;
 	private int maxInsertBatchSize = 2048;
 	private DatabaseCalender databaseCalender;
+	private Boolean resultSetRetrieveValueOverridden;
 	private boolean supportsGeneratedKeys;
+	private boolean useTemporaryTablesForDependentJoins;
+	private int temporaryTableThreshold = DEFAULT_TEMPORARY_TABLE_THRESHOLD;
+	private AtomicInteger temporaryTableCount = new AtomicInteger();
+	private Set<String> globalTemporaryTables = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	private boolean adaptiveFetchSize;
+	private Map<String, FetchSizeStatistics> fetchSizeStatistics = Collections.synchronizedMap(new LRUCache<String, FetchSizeStatistics>(1024));
+	private int preparedStatementCacheSize;
+	private PreparedStatementCache preparedStatementCache;
+	private boolean pipelineBulkInserts;
+	private int maxMultiRowInsertSize;
 
 	private AtomicBoolean initialConnection = new AtomicBoolean(true);
 	
@@ -246,6 +266,11 @@ public class JDBCExecutionFactory extends ExecutionFactory<DataSource, Connectio
     	if (connection == null) {
     		return;
     	}
+    	if (this.preparedStatementCache != null && getPhysicalConnection(connection) == connection) {
+    		//the statements cannot outlive the connection.  statements on a pooled
+    		//physical connection are kept and removed once it is closed
+    		this.preparedStatementCache.clear(connection);
+    	}
     	try {
 			connection.close();
 		} catch (SQLException e) {
@@ -467,6 +492,236 @@ public class JDBCExecutionFactory extends ExecutionFactory<DataSource, Connectio
 		this.maxInsertBatchSize = maxInsertBatchSize;
 	}
     
+    @TranslatorProperty(display="Use Temporary Tables for Dependent Joins", description="Push dependent joins to the source by loading the independent values into a source temporary table.  Only used if the source supports temporary tables.", advanced=true)
+    public boolean isUseTemporaryTablesForDependentJoins() {
+		return useTemporaryTablesForDependentJoins;
+	}
+    
+    public void setUseTemporaryTablesForDependentJoins(
+			boolean useTemporaryTablesForDependentJoins) {
+		this.useTemporaryTablesForDependentJoins = useTemporaryTablesForDependentJoins;
+	}
+    
+    @TranslatorProperty(display="Temporary Table Threshold", description="The minimum number of dependent join values that will be loaded into a temporary table.  Smaller sets of values are pushed as IN predicates.", advanced=true)
+    public int getTemporaryTableThreshold() {
+		return temporaryTableThreshold;
+	}
+    
+    public void setTemporaryTableThreshold(int temporaryTableThreshold) {
+		this.temporaryTableThreshold = temporaryTableThreshold;
+	}
+    
+    @TranslatorProperty(display="Pipeline Bulk Inserts", description="Read the next batch of bulk insert values while the previous batch is executing on an engine thread.  Not used when generated keys are returned.", advanced=true)
+    public boolean isPipelineBulkInserts() {
+		return pipelineBulkInserts;
+	}
+    
+    public void setPipelineBulkInserts(boolean pipelineBulkInserts) {
+		this.pipelineBulkInserts = pipelineBulkInserts;
+	}
+    
+    @TranslatorProperty(display="Max Multi-Row Insert Size", description="The max number of bulk insert rows to send with a single INSERT INTO ... VALUES (...), (...) statement if the source supports it.  Default 0 - multi-row inserts are not used.", advanced=true)
+    public int getMaxMultiRowInsertSize() {
+    	return maxMultiRowInsertSize;
+    }
+    
+    public void setMaxMultiRowInsertSize(int maxMultiRowInsertSize) {
+		this.maxMultiRowInsertSize = maxMultiRowInsertSize;
+	}
+    
+    /**
+     * Return true if the source supports multi-row INSERT INTO ... VALUES (...), (...) statements.
+     * Multi-row inserts are only used if the max multi-row insert size is also set.
+     * @return
+     */
+    public boolean supportsMultiRowInserts() {
+    	return false;
+    }
+    
+    @TranslatorProperty(display="Adaptive Fetch Size", description="Increase the fetch size of queries up to a memory target based upon the observed row width of the source tables, rather than just using the engine batch size.", advanced=true)
+    public boolean isAdaptiveFetchSize() {
+		return adaptiveFetchSize;
+	}
+    
+    public void setAdaptiveFetchSize(boolean adaptiveFetchSize) {
+		this.adaptiveFetchSize = adaptiveFetchSize;
+	}
+    
+    /**
+     * Get the fetch statistics for the source tables of the command
+     */
+    FetchSizeStatistics getFetchSizeStatistics(Command command) {
+    	Set<String> tables = new TreeSet<String>();
+    	for (NamedTable table : CollectorVisitor.collectGroups(command)) {
+    		tables.add(table.getMetadataObject() != null?table.getMetadataObject().getFullName():table.getName());
+    	}
+    	String key = tables.toString();
+    	synchronized (fetchSizeStatistics) {
+	    	FetchSizeStatistics stats = fetchSizeStatistics.get(key);
+	    	if (stats == null) {
+	    		stats = new FetchSizeStatistics();
+	    		fetchSizeStatistics.put(key, stats);
+	    	}
+	    	return stats;
+    	}
+	}
+    
+    @TranslatorProperty(display="Prepared Statement Cache Size", description="The number of prepared query statements to cache for each physical connection.  Default 0 - no caching.", advanced=true)
+    public int getPreparedStatementCacheSize() {
+		return preparedStatementCacheSize;
+	}
+    
+    public void setPreparedStatementCacheSize(int preparedStatementCacheSize) {
+		this.preparedStatementCacheSize = preparedStatementCacheSize;
+		if (preparedStatementCacheSize > 0) {
+			this.preparedStatementCache = new PreparedStatementCache(preparedStatementCacheSize);
+		} else {
+			this.preparedStatementCache = null;
+		}
+	}
+    
+    PreparedStatementCache getPreparedStatementCache() {
+		return preparedStatementCache;
+	}
+    
+    /**
+     * Get the physical connection for the given connection, which is used to prepare and cache
+     * statements that can be reused after the connection handle is returned to the pool.
+     * <br>
+     * The default implementation uses the getUnderlyingConnection method of pooled connection handles, 
+     * such as those from the JBoss AS datasources, if available.  Otherwise the connection is returned
+     * and cached statements are only reused for the life of the connection.
+     * @param connection
+     * @return the physical connection
+     */
+    protected Connection getPhysicalConnection(Connection connection) {
+    	try {
+			Method m = connection.getClass().getMethod("getUnderlyingConnection"); //$NON-NLS-1$
+			if (Connection.class.isAssignableFrom(m.getReturnType())) {
+				Connection result = (Connection)m.invoke(connection);
+				if (result != null) {
+					return result;
+				}
+			}
+		} catch (NoSuchMethodException e) {
+		} catch (Exception e) {
+			LogManager.logDetail(LogConstants.CTX_CONNECTOR, e, "Could not get the underlying connection"); //$NON-NLS-1$
+		}
+    	return connection;
+    }
+    
+    @Override
+    public boolean supportsDependentJoins() {
+    	return this.useTemporaryTablesForDependentJoins && getCreateTemporaryTablePrefix() != null;
+    }
+    
+    /**
+     * Get the sql that starts the creation of a temporary table, or null
+     * if temporary tables are not supported.
+     * @return
+     */
+    public String getCreateTemporaryTablePrefix() {
+    	return null;
+    }
+    
+    /**
+     * Get the sql that follows the column definitions when creating a temporary table.
+     * @return
+     */
+    public String getCreateTemporaryTablePostfix() {
+    	return null;
+    }
+    
+    /**
+     * Get the source name of a temporary table.
+     * @param name
+     * @return
+     */
+    public String getTemporaryTableName(String name) {
+    	return name;
+    }
+    
+    /**
+     * Return true if temporary table definitions are permanent, such that a 
+     * temporary table is only created once and then shared through a key column. 
+     * @return
+     */
+    public boolean usesGlobalTemporaryTables() {
+    	return false;
+    }
+    
+    /**
+     * Return true if the exception indicates that the table being created already exists.
+     * @param e
+     * @return
+     */
+    public boolean isTableExistsException(SQLException e) {
+    	return "42S01".equals(e.getSQLState()); //$NON-NLS-1$
+    }
+    
+    /**
+     * Get the column type to use in a temporary table for the given runtime type.
+     * @param type
+     * @return the type name or null if the type is not supported
+     */
+    public String getTemporaryTableColumnType(Class<?> type) {
+    	if (type == TypeFacility.RUNTIME_TYPES.STRING) {
+    		return "varchar(4000)"; //$NON-NLS-1$
+    	}
+    	if (type == TypeFacility.RUNTIME_TYPES.CHAR) {
+    		return "char(1)"; //$NON-NLS-1$
+    	}
+    	if (type == TypeFacility.RUNTIME_TYPES.BOOLEAN) {
+    		return "boolean"; //$NON-NLS-1$
+    	}
+    	if (type == TypeFacility.RUNTIME_TYPES.BYTE || type == TypeFacility.RUNTIME_TYPES.SHORT) {
+    		return "smallint"; //$NON-NLS-1$
+    	}
+    	if (type == TypeFacility.RUNTIME_TYPES.INTEGER) {
+    		return "integer"; //$NON-NLS-1$
+    	}
+    	if (type == TypeFacility.RUNTIME_TYPES.LONG) {
+    		return "bigint"; //$NON-NLS-1$
+    	}
+    	if (type == TypeFacility.RUNTIME_TYPES.BIG_INTEGER || type == TypeFacility.RUNTIME_TYPES.BIG_DECIMAL) {
+    		return "numeric"; //$NON-NLS-1$
+    	}
+    	if (type == TypeFacility.RUNTIME_TYPES.FLOAT) {
+    		return "real"; //$NON-NLS-1$
+    	}
+    	if (type == TypeFacility.RUNTIME_TYPES.DOUBLE) {
+    		return "double precision"; //$NON-NLS-1$
+    	}
+    	if (type == TypeFacility.RUNTIME_TYPES.DATE) {
+    		return "date"; //$NON-NLS-1$
+    	}
+    	if (type == TypeFacility.RUNTIME_TYPES.TIME) {
+    		return "time"; //$NON-NLS-1$
+    	}
+    	if (type == TypeFacility.RUNTIME_TYPES.TIMESTAMP) {
+    		return "timestamp"; //$NON-NLS-1$
+    	}
+    	return null;
+    }
+    
+    /**
+     * Get a new name unique to this translator instance for a temporary table
+     */
+    String nextTemporaryTableName() {
+    	return getTemporaryTableName("teiid_dkey_" + temporaryTableCount.getAndIncrement()); //$NON-NLS-1$
+    }
+    
+    int nextTemporaryTableKey() {
+    	return temporaryTableCount.getAndIncrement();
+    }
+    
+    /**
+     * Tracks the global temporary tables that have been created by this translator instance
+     */
+    Set<String> getGlobalTemporaryTables() {
+		return globalTemporaryTables;
+	}
+    
     /**
      * Gets the database calendar.  This will be set to the time zone
      * specified by the property {@link JDBCPropertyNames#DATABASE_TIME_ZONE}, or
@@ -846,6 +1101,127 @@ public class JDBCExecutionFactory extends ExecutionFactory<DataSource, Connectio
     	return false;
     }
     
+    /**
+     * Retrieves the value of a single column of the current resultset row 
+     */
+    public interface ValueRetriever {
+    	Object retrieveValue(ResultSet results) throws SQLException;
+    }
+    
+    /**
+     * Get a {@link ValueRetriever} for the given column index.  The type specific logic of 
+     * {@link #retrieveValue(ResultSet, int, Class)} is resolved once for the column rather than for every value.
+     * If retrieveValue has been overridden, the returned retriever delegates to it.
+     * @param columnIndex
+     * @param expectedType
+     * @return the retriever
+     */
+    public ValueRetriever getValueRetriever(final int columnIndex, final Class<?> expectedType) {
+    	Integer code = null;
+    	if (!isResultSetRetrieveValueOverridden()) {
+    		code = TYPE_CODE_MAP.get(expectedType);
+    		if (code == null) {
+    			return new ValueRetriever() {
+    				@Override
+    				public Object retrieveValue(ResultSet results) throws SQLException {
+    					return results.getObject(columnIndex);
+    				}
+    			};
+    		}
+    	}
+    	if (code != null) {
+	    	switch(code.intValue()) {
+	            case INTEGER_CODE: 
+	            	return new ValueRetriever() {
+	            		@Override
+	            		public Object retrieveValue(ResultSet results) throws SQLException {
+	            			int value = results.getInt(columnIndex);                    
+	                        if(results.wasNull()) {
+	                            return null;
+	                        }
+	                        return Integer.valueOf(value);
+	            		}
+	            	};
+	            case LONG_CODE:
+	            	return new ValueRetriever() {
+	            		@Override
+	            		public Object retrieveValue(ResultSet results) throws SQLException {
+	            			long value = results.getLong(columnIndex);                    
+	                        if(results.wasNull()) {
+	                            return null;
+	                        }
+	                        return Long.valueOf(value);
+	            		}
+	            	};
+	            case DOUBLE_CODE:
+	            	return new ValueRetriever() {
+	            		@Override
+	            		public Object retrieveValue(ResultSet results) throws SQLException {
+	            			double value = results.getDouble(columnIndex);                    
+	                        if(results.wasNull()) {
+	                            return null;
+	                        }
+	                        return Double.valueOf(value);
+	            		}
+	            	};
+	            case BIGDECIMAL_CODE:
+	            	return new ValueRetriever() {
+	            		@Override
+	            		public Object retrieveValue(ResultSet results) throws SQLException {
+	            			return results.getBigDecimal(columnIndex);
+	            		}
+	            	};
+	            case SHORT_CODE:
+	            	return new ValueRetriever() {
+	            		@Override
+	            		public Object retrieveValue(ResultSet results) throws SQLException {
+	            			short value = results.getShort(columnIndex);                    
+	                        if(results.wasNull()) {
+	                            return null;
+	                        }
+	                        return Short.valueOf(value);
+	            		}
+	            	};
+	            case FLOAT_CODE:
+	            	return new ValueRetriever() {
+	            		@Override
+	            		public Object retrieveValue(ResultSet results) throws SQLException {
+	            			float value = results.getFloat(columnIndex);                    
+	                        if(results.wasNull()) {
+	                            return null;
+	                        }
+	                        return Float.valueOf(value);
+	            		}
+	            	};
+	            case BOOLEAN_CODE:
+	            	return new ValueRetriever() {
+	            		@Override
+	            		public Object retrieveValue(ResultSet results) throws SQLException {
+	            			return results.getBoolean(columnIndex);
+	            		}
+	            	};
+	    	}
+    	}
+    	//lobs, dates and overridden logic
+    	return new ValueRetriever() {
+    		@Override
+    		public Object retrieveValue(ResultSet results) throws SQLException {
+    			return JDBCExecutionFactory.this.retrieveValue(results, columnIndex, expectedType);
+    		}
+    	};
+    }
+    
+    private boolean isResultSetRetrieveValueOverridden() {
+    	if (this.resultSetRetrieveValueOverridden == null) {
+	    	try {
+	    		this.resultSetRetrieveValueOverridden = getClass().getMethod("retrieveValue", ResultSet.class, int.class, Class.class).getDeclaringClass() != JDBCExecutionFactory.class; //$NON-NLS-1$
+			} catch (NoSuchMethodException e) {
+				this.resultSetRetrieveValueOverridden = true;
+			}
+    	}
+    	return this.resultSetRetrieveValueOverridden;
+    }
+    
 	/**
 	 * Retrieve the value on the current resultset row for the given column index.
 	 * @param results
@@ -54,6 +54,8 @@ public class JDBCPlugin {
 		TEIID11016,
 		TEIID11017,
 		TEIID11018,
-		TEIID11020
+		TEIID11020,
+		TEIID11021,
+		TEIID11022
 	}
 }
@@ -29,23 +29,43 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
+import org.teiid.language.AndOr;
+import org.teiid.language.ColumnReference;
 import org.teiid.language.Command;
+import org.teiid.language.Comparison;
+import org.teiid.language.Comparison.Operator;
+import org.teiid.language.Condition;
+import org.teiid.language.DerivedColumn;
+import org.teiid.language.Literal;
+import org.teiid.language.NamedTable;
+import org.teiid.language.Parameter;
 import org.teiid.language.QueryExpression;
+import org.teiid.language.Select;
+import org.teiid.language.SubqueryIn;
+import org.teiid.language.TableReference;
+import org.teiid.language.visitor.CollectorVisitor;
 import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
+import org.teiid.translator.BatchedResultSetExecution;
 import org.teiid.translator.DataNotAvailableException;
 import org.teiid.translator.ExecutionContext;
-import org.teiid.translator.ResultSetExecution;
 import org.teiid.translator.TranslatorException;
+import org.teiid.translator.TypeFacility;
+import org.teiid.translator.jdbc.JDBCExecutionFactory.ValueRetriever;
 
 
 /**
  * 
  */
-public class JDBCQueryExecution extends JDBCBaseExecution implements ResultSetExecution {
+public class JDBCQueryExecution extends JDBCBaseExecution implements BatchedResultSetExecution {
 
     // ===========================================================================================================================
     // Fields
@@ -53,6 +73,27 @@ public class JDBCQueryExecution extends JDBCBaseExecution implements ResultSetEx
 
     protected ResultSet results;
     protected Class<?>[] columnDataTypes;
+    private ValueRetriever[] valueRetrievers;
+    
+    /**
+     * A source temporary table holding dependent join values
+     */
+    private static class TemporaryTable {
+    	String name;
+    	Integer key;
+    	/** maps the value index to the column index */
+    	Map<Integer, Integer> columns = new TreeMap<Integer, Integer>();
+    	List<Class<?>> types = new ArrayList<Class<?>>();
+    	/** the number of dependent criteria using this table */
+    	int count;
+    }
+    
+    private List<TemporaryTable> temporaryTables;
+    
+    private static final int SAMPLE_ROWS = 128;
+    private FetchSizeStatistics fetchSizeStatistics;
+    private int rowCount;
+    private long sampledWidth;
 
     // ===========================================================================================================================
     // Constructors
@@ -60,12 +101,20 @@ public class JDBCQueryExecution extends JDBCBaseExecution implements ResultSetEx
 
     public JDBCQueryExecution(Command command, Connection connection, ExecutionContext context, JDBCExecutionFactory env) {
         super(command, connection, context, env);
+        if (env.isAdaptiveFetchSize()) {
+        	this.fetchSizeStatistics = env.getFetchSizeStatistics(command);
+        	this.fetchSize = this.fetchSizeStatistics.getFetchSize(this.fetchSize);
+        }
     }
     
     @Override
     public void execute() throws TranslatorException {
         // get column types
         columnDataTypes = ((QueryExpression)command).getColumnTypes();
+        
+        if (command instanceof Select && ((Select)command).getDependentValues() != null) {
+        	loadDependentValues((Select)command);
+        }
 
         // translate command
         TranslatedCommand translatedComm = translateCommand(command);
@@ -89,20 +138,245 @@ public class JDBCQueryExecution extends JDBCBaseExecution implements ResultSetEx
         }
     }
 
+    /**
+     * Load the dependent join values into source temporary tables and replace
+     * the dependent criteria with IN subqueries against those tables.
+     * <br/>
+     * The values are left to be pushed as IN predicates if there are too few of them, 
+     * if a transaction is active (creating the table may implicitly commit), or if 
+     * the dependent criteria cannot be replaced.
+     */
+    private void loadDependentValues(Select select) throws TranslatorException {
+    	if (this.context.isTransactional()) {
+    		return;
+    	}
+    	Map<String, TemporaryTable> tables = new LinkedHashMap<String, TemporaryTable>();
+    	collectDependentParameters(select.getWhere(), tables);
+    	int count = 0;
+    	for (Parameter param : CollectorVisitor.collectObjects(Parameter.class, select)) {
+    		if (param.getDependentValueId() != null) {
+    			count++;
+    		}
+    	}
+    	int replaced = 0;
+    	for (TemporaryTable table : tables.values()) {
+    		replaced += table.count;
+    	}
+    	if (replaced != count) {
+    		LogManager.logDetail(LogConstants.CTX_CONNECTOR, JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID11021, select));
+    		return;
+    	}
+    	int values = 0;
+    	for (Map.Entry<String, TemporaryTable> entry : tables.entrySet()) {
+    		for (Class<?> type : entry.getValue().types) {
+    			if (this.executionFactory.getTemporaryTableColumnType(type) == null) {
+    				LogManager.logDetail(LogConstants.CTX_CONNECTOR, JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID11022, type.getName()));
+    				return;
+    			}
+    		}
+    		values = Math.max(values, select.getDependentValues().get(entry.getKey()).size());
+    	}
+    	if (values < this.executionFactory.getTemporaryTableThreshold()) {
+    		return;
+    	}
+    	this.temporaryTables = new ArrayList<TemporaryTable>(tables.size());
+    	for (Map.Entry<String, TemporaryTable> entry : tables.entrySet()) {
+    		TemporaryTable table = entry.getValue();
+    		createTemporaryTable(table);
+    		this.temporaryTables.add(table);
+    		insertDependentValues(table, select.getDependentValues().get(entry.getKey()));
+    	}
+    	select.setWhere(replaceDependentCriteria(select.getWhere(), tables));
+    	select.setDependentValues(null);
+    }
+    
+    private static Parameter getDependentParameter(Condition condition) {
+    	if (condition instanceof Comparison) {
+    		Comparison comparison = (Comparison)condition;
+    		if (comparison.getOperator() == Operator.EQ && comparison.getRightExpression() instanceof Parameter) {
+    			Parameter param = (Parameter)comparison.getRightExpression();
+    			if (param.getDependentValueId() != null) {
+    				return param;
+    			}
+    		}
+    	}
+    	return null;
+    }
+    
+    private void collectDependentParameters(Condition condition, Map<String, TemporaryTable> tables) {
+    	if (condition instanceof AndOr) {
+    		AndOr andOr = (AndOr)condition;
+    		collectDependentParameters(andOr.getLeftCondition(), tables);
+    		collectDependentParameters(andOr.getRightCondition(), tables);
+    		return;
+    	}
+    	Parameter param = getDependentParameter(condition);
+    	if (param == null) {
+    		return;
+    	}
+		TemporaryTable table = tables.get(param.getDependentValueId());
+		if (table == null) {
+			table = new TemporaryTable();
+			tables.put(param.getDependentValueId(), table);
+		}
+		table.count++;
+		if (!table.columns.containsKey(param.getValueIndex())) {
+			table.columns.put(param.getValueIndex(), table.types.size());
+			table.types.add(param.getType());
+		}
+    }
+    
+    private Condition replaceDependentCriteria(Condition condition, Map<String, TemporaryTable> tables) {
+    	if (condition instanceof AndOr) {
+    		AndOr andOr = (AndOr)condition;
+    		andOr.setLeftCondition(replaceDependentCriteria(andOr.getLeftCondition(), tables));
+    		andOr.setRightCondition(replaceDependentCriteria(andOr.getRightCondition(), tables));
+    		return andOr;
+    	}
+    	Parameter param = getDependentParameter(condition);
+    	if (param == null) {
+    		return condition;
+    	}
+    	TemporaryTable table = tables.get(param.getDependentValueId());
+    	NamedTable group = new NamedTable(table.name, null, null);
+    	int column = table.columns.get(param.getValueIndex());
+    	Condition where = null;
+    	if (table.key != null) {
+    		where = new Comparison(new ColumnReference(group, "teiid_key", null, TypeFacility.RUNTIME_TYPES.INTEGER), new Literal(table.key, TypeFacility.RUNTIME_TYPES.INTEGER), Operator.EQ); //$NON-NLS-1$
+    	}
+    	Select subquery = new Select(Arrays.asList(new DerivedColumn(null, new ColumnReference(group, "c" + column, null, param.getType()))), false,  //$NON-NLS-1$
+    			Arrays.asList((TableReference)group), where, null, null, null);
+    	return new SubqueryIn(((Comparison)condition).getLeftExpression(), false, subquery);
+    }
+
+    private void createTemporaryTable(TemporaryTable table) throws TranslatorException {
+    	boolean global = this.executionFactory.usesGlobalTemporaryTables();
+    	StringBuilder columns = new StringBuilder();
+    	if (global) {
+    		columns.append("teiid_key integer"); //$NON-NLS-1$
+    	}
+    	for (int i = 0; i < table.types.size(); i++) {
+    		String type = this.executionFactory.getTemporaryTableColumnType(table.types.get(i));
+    		if (columns.length() > 0) {
+    			columns.append(", "); //$NON-NLS-1$
+    		}
+    		columns.append('c').append(i).append(' ').append(type);
+    	}
+    	if (global) {
+    		//the definition is permanent, so share a table for all values with the same column types
+    		table.name = this.executionFactory.getTemporaryTableName("teiid_dkey_" + Integer.toString(columns.toString().hashCode() & Integer.MAX_VALUE, Character.MAX_RADIX)); //$NON-NLS-1$
+    		table.key = this.executionFactory.nextTemporaryTableKey();
+    		if (this.executionFactory.getGlobalTemporaryTables().contains(table.name)) {
+    			return;
+    		}
+    	} else {
+    		table.name = this.executionFactory.nextTemporaryTableName();
+    	}
+    	String sql = this.executionFactory.getCreateTemporaryTablePrefix() + " " + table.name + " (" + columns + ")"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    	String postfix = this.executionFactory.getCreateTemporaryTablePostfix();
+    	if (postfix != null) {
+    		sql += " " + postfix; //$NON-NLS-1$
+    	}
+    	try {
+    		executeUpdate(sql);
+    	} catch (SQLException e) {
+    		//the global table may have already been created by another instance
+    		if (!global || !this.executionFactory.isTableExistsException(e)) {
+    			throw new JDBCExecutionException(JDBCPlugin.Event.TEIID11008, e, sql);
+    		}
+    		LogManager.logDetail(LogConstants.CTX_CONNECTOR, e, "The global temporary table already exists", table.name); //$NON-NLS-1$
+    	}
+    	if (global) {
+    		this.executionFactory.getGlobalTemporaryTables().add(table.name);
+    	}
+    }
+    
+    private void insertDependentValues(TemporaryTable table, List<? extends List<?>> values) throws TranslatorException {
+    	StringBuilder sql = new StringBuilder("INSERT INTO ").append(table.name).append(" ("); //$NON-NLS-1$ //$NON-NLS-2$
+    	StringBuilder params = new StringBuilder();
+    	if (table.key != null) {
+    		sql.append("teiid_key, "); //$NON-NLS-1$
+    		params.append("?, "); //$NON-NLS-1$
+    	}
+    	for (int i = 0; i < table.types.size(); i++) {
+    		if (i > 0) {
+    			sql.append(", "); //$NON-NLS-1$
+    			params.append(", "); //$NON-NLS-1$
+    		}
+    		sql.append('c').append(i);
+    		params.append('?');
+    	}
+    	sql.append(") VALUES (").append(params).append(')'); //$NON-NLS-1$
+    	PreparedStatement ps = null;
+    	try {
+    		ps = this.connection.prepareStatement(sql.toString());
+    		int batchSize = 0;
+    		for (List<?> row : values) {
+    			int index = 1;
+    			if (table.key != null) {
+    				ps.setInt(index++, table.key);
+    			}
+    			int i = 0;
+    			for (Integer valueIndex : table.columns.keySet()) {
+    				this.executionFactory.bindValue(ps, row.get(valueIndex), table.types.get(i++), index++);
+    			}
+    			ps.addBatch();
+    			if (++batchSize >= this.executionFactory.getMaxPreparedInsertBatchSize()) {
+    				ps.executeBatch();
+    				batchSize = 0;
+    			}
+    		}
+    		if (batchSize > 0) {
+    			ps.executeBatch();
+    		}
+    	} catch (SQLException e) {
+    		throw new JDBCExecutionException(JDBCPlugin.Event.TEIID11008, e, sql.toString());
+    	} finally {
+    		if (ps != null) {
+    			try {
+					ps.close();
+				} catch (SQLException e) {
+					LogManager.logDetail(LogConstants.CTX_CONNECTOR, e, "Exception closing"); //$NON-NLS-1$
+				}
+    		}
+    	}
+    }
+    
+    private void executeUpdate(String sql) throws SQLException {
+    	LogManager.logDetail(LogConstants.CTX_CONNECTOR, "Source sql", sql); //$NON-NLS-1$
+    	Statement stmt = this.connection.createStatement();
+    	try {
+    		stmt.executeUpdate(sql);
+    	} finally {
+    		stmt.close();
+    	}
+    }
+    
+    /**
+     * Drop the temporary tables, or remove the rows for global temporary tables
+     */
+    private void removeTemporaryTables() {
+    	for (TemporaryTable table : this.temporaryTables) {
+    		String sql = null;
+    		if (table.key != null) {
+    			sql = "DELETE FROM " + table.name + " WHERE teiid_key = " + table.key; //$NON-NLS-1$ //$NON-NLS-2$
+    		} else {
+    			sql = "DROP TABLE " + table.name; //$NON-NLS-1$
+    		}
+    		try {
+    			executeUpdate(sql);
+    		} catch (SQLException e) {
+    			LogManager.logDetail(LogConstants.CTX_CONNECTOR, e, "Could not remove the temporary table", table.name); //$NON-NLS-1$
+    		}
+    	}
+    	this.temporaryTables = null;
+    }
+    
     @Override
     public List<?> next() throws TranslatorException, DataNotAvailableException {
         try {
             if (results.next()) {
-                // New row for result set
-                List<Object> vals = new ArrayList<Object>(columnDataTypes.length);
-
-                for (int i = 0; i < columnDataTypes.length; i++) {
-                    // Convert from 0-based to 1-based
-                    Object value = this.executionFactory.retrieveValue(results, i+1, columnDataTypes[i]);
-                    vals.add(value); 
-                }
-
-                return vals;
+                return readRow();
             } 
         } catch (SQLException e) {
             throw new TranslatorException(e,
@@ -112,6 +386,74 @@ public class JDBCQueryExecution extends JDBCBaseExecution implements ResultSetEx
         return null;
     }
     
+    @Override
+    public boolean nextBatch(List<List<?>> batch, int maxRows)
+    		throws TranslatorException, DataNotAvailableException {
+        try {
+	    	for (int i = 0; i < maxRows; i++) {
+	    		if (!results.next()) {
+	    			return false;
+	    		}
+	    		batch.add(readRow());
+	    	}
+        } catch (SQLException e) {
+            throw new TranslatorException(e,
+                    JDBCPlugin.Util.getString("JDBCTranslator.Unexpected_exception_translating_results___8", e.getMessage())); //$NON-NLS-1$
+        }
+    	return true;
+    }
+    
+    /**
+     * Read the values of the current row using retrievers resolved once for each column 
+     */
+    private List<Object> readRow() throws SQLException {
+    	if (valueRetrievers == null) {
+    		valueRetrievers = new ValueRetriever[columnDataTypes.length];
+    		for (int i = 0; i < columnDataTypes.length; i++) {
+    			// Convert from 0-based to 1-based
+    			valueRetrievers[i] = this.executionFactory.getValueRetriever(i+1, columnDataTypes[i]);
+    		}
+    	}
+        List<Object> vals = new ArrayList<Object>(valueRetrievers.length);
+
+        for (int i = 0; i < valueRetrievers.length; i++) {
+            vals.add(valueRetrievers[i].retrieveValue(results)); 
+        }
+        
+        if (fetchSizeStatistics != null && rowCount++ < SAMPLE_ROWS) {
+        	sampledWidth += estimateWidth(vals);
+        }
+        return vals;
+    }
+    
+    /**
+     * A rough estimate of the memory size of the row
+     */
+    static long estimateWidth(List<?> row) {
+    	long width = 0;
+    	for (Object value : row) {
+    		if (value instanceof String) {
+    			width += 40 + 2 * ((String)value).length();
+    		} else if (value instanceof byte[]) {
+    			width += 16 + ((byte[])value).length;
+    		} else {
+    			width += 16;
+    		}
+    	}
+    	return width;
+    }
+    
+    /**
+     * Report the observed row width for sizing later fetches
+     */
+    private void recordFetchStatistics() {
+    	if (fetchSizeStatistics == null || rowCount == 0) {
+    		return;
+    	}
+    	fetchSizeStatistics.record((double)sampledWidth / Math.min(rowCount, SAMPLE_ROWS));
+    	fetchSizeStatistics = null;
+    }
+    
     /**
      * @see org.teiid.translator.jdbc.JDBCBaseExecution#close()
      */
@@ -119,6 +461,7 @@ public class JDBCQueryExecution extends JDBCBaseExecution implements ResultSetEx
         // first we would need to close the result set here then we can close
         // the statement, using the base class.
     	try {
+    		recordFetchStatistics();
 	        if (results != null) {
 	            try {
 	                results.close();
@@ -128,7 +471,13 @@ public class JDBCQueryExecution extends JDBCBaseExecution implements ResultSetEx
 	            }
 	        }
     	} finally {
-    		super.close();
+    		try {
+	    		if (temporaryTables != null) {
+	    			removeTemporaryTables();
+	    		}
+    		} finally {
+    			super.close();
+    		}
     	}
     }
 
@@ -31,12 +31,19 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 import org.teiid.GeneratedKeys;
 import org.teiid.language.BatchedCommand;
 import org.teiid.language.BatchedUpdates;
 import org.teiid.language.Command;
+import org.teiid.language.ExpressionValueSource;
 import org.teiid.language.Insert;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
 import org.teiid.translator.DataNotAvailableException;
 import org.teiid.translator.ExecutionContext;
 import org.teiid.translator.TranslatorException;
@@ -48,6 +55,8 @@ import org.teiid.translator.UpdateExecution;
  */
 public class JDBCUpdateExecution extends JDBCBaseExecution implements UpdateExecution {
 
+	private static final int MAX_MULTI_ROW_PARAMETERS = 2000;
+	
 	private int[] result;
 	
     /**
@@ -187,27 +196,7 @@ public class JDBCUpdateExecution extends JDBCBaseExecution implements UpdateExec
                     if (commitType) {
                         connection.setAutoCommit(false);
                     }
-            		int maxBatchSize = (command instanceof Insert)?this.executionFactory.getMaxPreparedInsertBatchSize():Integer.MAX_VALUE;
-            		boolean done = false;
-            		outer: while (!done) {
-            			for (int i = 0; i < maxBatchSize; i++) {
-            				if (vi.hasNext()) {
-    	            			List<?> values = vi.next();
-    	            			bind(pstatement, translatedComm.getPreparedValues(), values);
-            				} else {
-            					if (i == 0) {
-	            					break outer;
-	            				}
-	            				done = true;
-	            				break;
-            				}
-            			}
-            		    int[] results = pstatement.executeBatch();
-            		    
-            		    for (int i=0; i<results.length; i++) {
-            		        updateCount += results[i];
-            		    }
-            		}
+                    updateCount = executeBatchedValues(translatedComm, pstatement, vi);
                 } else {
             		bind(pstatement, translatedComm.getPreparedValues(), null);
         			updateCount = pstatement.executeUpdate();
@@ -247,6 +236,223 @@ public class JDBCUpdateExecution extends JDBCBaseExecution implements UpdateExec
         }
     }
 
+    /**
+     * The statements for one batch of parameter values.  Inserts may
+     * use a multi-row statement for full groups of rows.
+     */
+    private static class ValuesBatch {
+    	PreparedStatement statement;
+    	PreparedStatement multiRowStatement;
+    	int rowsPerStatement = 1;
+    	int multiRowBatches;
+    	int singleRowBatches;
+    	
+    	boolean isEmpty() {
+    		return multiRowBatches == 0 && singleRowBatches == 0;
+    	}
+    	
+    	int execute() throws SQLException {
+    		int count = 0;
+    		if (multiRowBatches > 0) {
+    			count += sum(multiRowStatement.executeBatch(), rowsPerStatement);
+    		}
+    		if (singleRowBatches > 0) {
+    			count += sum(statement.executeBatch(), 1);
+    		}
+    		multiRowBatches = 0;
+    		singleRowBatches = 0;
+    		return count;
+    	}
+    	
+    	void close() {
+    		close(multiRowStatement);
+    	}
+    	
+    	private static void close(PreparedStatement ps) {
+    		if (ps == null) {
+    			return;
+    		}
+    		try {
+    			ps.close();
+    		} catch (SQLException e) {
+    			LogManager.logDetail(LogConstants.CTX_CONNECTOR, e, "Exception closing"); //$NON-NLS-1$
+    		}
+    	}
+    	
+    	private static int sum(int[] results, int rowsPerResult) {
+    		int count = 0;
+    		for (int i=0; i<results.length; i++) {
+    			if (results[i] == Statement.SUCCESS_NO_INFO) {
+    				count += rowsPerResult;
+    			} else {
+    				count += results[i];
+    			}
+    		}
+    		return count;
+    	}
+    }
+    
+    /**
+     * Execute the command for each of the parameter values in batches.
+     * <br>
+     * If pipelining is enabled, the next batch of values is read while the previous
+     * batch is executing on the engine executor.  Binding is not performed concurrently 
+     * with the execution, since statements on the same connection are not expected to be thread-safe.
+     */
+    private int executeBatchedValues(TranslatedCommand translatedComm, PreparedStatement pstatement, Iterator<? extends List<?>> vi) throws SQLException, TranslatorException {
+    	List<?> params = translatedComm.getPreparedValues();
+    	int maxBatchSize = (command instanceof Insert)?this.executionFactory.getMaxPreparedInsertBatchSize():Integer.MAX_VALUE;
+    	int rowsPerStatement = 1;
+    	String multiRowSql = null;
+    	org.teiid.CommandContext commandContext = context.getCommandContext();
+    	boolean returnKeys = this.executionFactory.supportsGeneratedKeys() && commandContext != null && commandContext.isReturnAutoGeneratedKeys();
+    	if (command instanceof Insert && !params.isEmpty() && this.executionFactory.supportsMultiRowInserts() 
+    			&& this.executionFactory.getMaxMultiRowInsertSize() > 1 && !returnKeys) {
+    		//stay within common bind parameter limits
+    		rowsPerStatement = Math.min(this.executionFactory.getMaxMultiRowInsertSize(), MAX_MULTI_ROW_PARAMETERS / params.size());
+    		if (rowsPerStatement > 1) {
+    			multiRowSql = getMultiRowSql((Insert)command, rowsPerStatement);
+    		}
+    		if (multiRowSql == null) {
+    			rowsPerStatement = 1;
+    		} else {
+    			maxBatchSize = Math.max(rowsPerStatement, maxBatchSize - maxBatchSize % rowsPerStatement);
+    		}
+    	}
+    	Executor executor = null;
+    	//the generated keys are only available from the statement on the calling thread
+    	if (command instanceof Insert && this.executionFactory.isPipelineBulkInserts() && commandContext != null && !returnKeys) {
+    		executor = commandContext.getExecutor();
+    	}
+    	final ValuesBatch batch = new ValuesBatch();
+    	batch.statement = pstatement;
+    	FutureTask<Integer> pending = null;
+    	int updateCount = 0;
+    	try {
+    		if (multiRowSql != null) {
+    			batch.multiRowStatement = connection.prepareStatement(multiRowSql);
+    			batch.rowsPerStatement = rowsPerStatement;
+    		}
+    		List<List<?>> next = null;
+    		while (true) {
+    			bindBatch(batch, params, next != null?next.iterator():vi, maxBatchSize);
+    			boolean more = vi.hasNext();
+    			if (batch.isEmpty()) {
+    				break;
+    			}
+    			if (executor != null && more) {
+    				pending = new FutureTask<Integer>(new Callable<Integer>() {
+    					@Override
+    					public Integer call() throws Exception {
+    						return logBatchCount(batch.execute());
+    					}
+    				});
+    				executor.execute(pending);
+    				next = new ArrayList<List<?>>(Math.min(maxBatchSize, 1024));
+    				for (int i = 0; i < maxBatchSize && vi.hasNext(); i++) {
+    					next.add(vi.next());
+    				}
+    				updateCount += getCount(pending);
+    				pending = null;
+    			} else {
+    				next = null;
+    				updateCount += logBatchCount(batch.execute());
+    				if (!more) {
+    					break;
+    				}
+    			}
+    		}
+    	} finally {
+    		if (pending != null && !pending.cancel(false)) {
+    			//wait for the in flight batch before closing
+    			try {
+    				pending.get();
+    			} catch (InterruptedException e) {
+    				Thread.currentThread().interrupt();
+    			} catch (ExecutionException e) {
+    			}
+    		}
+    		batch.close();
+    	}
+    	return updateCount;
+    }
+    
+    /**
+     * Bind up to maxBatchSize values to the batch
+     * @return true if there are more values
+     */
+    private boolean bindBatch(ValuesBatch batch, List<?> params, Iterator<? extends List<?>> vi, int maxBatchSize) throws SQLException {
+    	List<List<?>> group = null;
+    	if (batch.rowsPerStatement > 1) {
+    		group = new ArrayList<List<?>>(batch.rowsPerStatement);
+    	}
+    	for (int i = 0; i < maxBatchSize && vi.hasNext(); i++) {
+    		List<?> values = vi.next();
+    		if (group == null) {
+    			bind(batch.statement, params, values);
+    			batch.singleRowBatches++;
+    			continue;
+    		}
+    		group.add(values);
+    		if (group.size() == batch.rowsPerStatement) {
+    			for (int j = 0; j < group.size(); j++) {
+    				bindValues(batch.multiRowStatement, params, group.get(j), j * params.size());
+    			}
+    			batch.multiRowStatement.addBatch();
+    			batch.multiRowBatches++;
+    			group.clear();
+    		}
+    	}
+    	if (group != null) {
+    		//the remaining rows at the end of the values
+    		for (List<?> values : group) {
+    			bind(batch.statement, params, values);
+    			batch.singleRowBatches++;
+    		}
+    	}
+    	return vi.hasNext();
+    }
+    
+    private int logBatchCount(int count) {
+    	LogManager.logDetail(LogConstants.CTX_CONNECTOR, context.getRequestId(), "batch update count", count); //$NON-NLS-1$
+    	return count;
+    }
+    
+    /**
+     * Get the count of the pending batch.  If the batch has not yet started on the 
+     * executor, it is run by the calling thread instead.
+     */
+    private int getCount(FutureTask<Integer> pending) throws SQLException, TranslatorException {
+    	pending.run();
+    	try {
+			return pending.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TranslatorException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof SQLException) {
+				throw (SQLException)e.getCause();
+			}
+			throw new TranslatorException(e.getCause());
+		}
+    }
+    
+    /**
+     * Get the sql for a multi-row insert by repeating the values of the insert, or null
+     * if the insert does not use an expression value source.
+     */
+    String getMultiRowSql(Insert insert, int rows) {
+    	if (!(insert.getValueSource() instanceof ExpressionValueSource)) {
+    		return null;
+    	}
+    	SQLConversionVisitor visitor = this.executionFactory.getSQLConversionVisitor();
+    	visitor.setExecutionContext(context);
+    	visitor.setPrepared(true);
+    	visitor.setValuesRows(rows);
+    	visitor.append(insert);
+    	return visitor.toString();
+    }
+
     /**
      * @param command
      * @return
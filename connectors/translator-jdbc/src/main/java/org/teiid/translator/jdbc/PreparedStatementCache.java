@@ -0,0 +1,136 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.translator.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
+
+/**
+ * A cache of prepared statements by connection and sql.
+ * <br>
+ * Statements are removed while in use, so that they are not shared by concurrent executions
+ * against the same connection.  The statements for a connection are closed when the 
+ * connection is closed or returned to the pool.
+ */
+class PreparedStatementCache {
+	
+	private Map<Connection, LinkedHashMap<String, PreparedStatement>> cache = new WeakHashMap<Connection, LinkedHashMap<String, PreparedStatement>>();
+	private int maxSize;
+	
+	PreparedStatementCache(int maxSize) {
+		this.maxSize = maxSize;
+	}
+	
+	/**
+	 * Remove and return a cached statement
+	 * @return the statement or null if none is cached
+	 */
+	synchronized PreparedStatement remove(Connection connection, String sql) {
+		Map<String, PreparedStatement> statements = cache.get(connection);
+		if (statements == null) {
+			return null;
+		}
+		PreparedStatement ps = statements.remove(sql);
+		if (ps == null) {
+			return null;
+		}
+		try {
+			if (!ps.isClosed()) {
+				return ps;
+			}
+		} catch (SQLException e) {
+			close(ps);
+		}
+		return null;
+	}
+	
+	/**
+	 * Return a statement to the cache.  The least recently used statement is closed
+	 * if the cache for the connection is full.
+	 */
+	synchronized void put(Connection connection, String sql, PreparedStatement ps) {
+		purge();
+		LinkedHashMap<String, PreparedStatement> statements = cache.get(connection);
+		if (statements == null) {
+			statements = new LinkedHashMap<String, PreparedStatement>(16, .75f, true);
+			cache.put(connection, statements);
+		}
+		PreparedStatement existing = statements.put(sql, ps);
+		if (existing != null && existing != ps) {
+			close(existing);
+		}
+		if (statements.size() > maxSize) {
+			Iterator<PreparedStatement> iter = statements.values().iterator();
+			close(iter.next());
+			iter.remove();
+		}
+	}
+	
+	/**
+	 * Close and remove the cached statements for the connection
+	 */
+	synchronized void clear(Connection connection) {
+		Map<String, PreparedStatement> statements = cache.remove(connection);
+		if (statements == null) {
+			return;
+		}
+		for (PreparedStatement ps : statements.values()) {
+			close(ps);
+		}
+	}
+	
+	/**
+	 * Remove the entries for closed connections.  Cached statements reference their
+	 * connection, so the entries would not otherwise be collected.
+	 */
+	private void purge() {
+		for (Iterator<Connection> iter = cache.keySet().iterator(); iter.hasNext();) {
+			Connection c = iter.next();
+			try {
+				if (!c.isClosed()) {
+					continue;
+				}
+			} catch (SQLException e) {
+			}
+			iter.remove();
+		}
+	}
+	
+	static void close(PreparedStatement ps) {
+		try {
+			ps.close();
+		} catch (SQLException e) {
+			LogManager.logDetail(LogConstants.CTX_CONNECTOR, e, "Exception closing"); //$NON-NLS-1$
+		}
+	}
+
+}
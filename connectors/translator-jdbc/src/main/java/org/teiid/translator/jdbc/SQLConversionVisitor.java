@@ -32,6 +32,7 @@ import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -72,6 +73,9 @@ public class SQLConversionVisitor extends SQLStringVisitor implements SQLStringV
     
     private boolean replaceWithBinding = false;
     
+    private Map<String, List<? extends List<?>>> dependentValues;
+    private int valuesRows = 1;
+    
     public SQLConversionVisitor(JDBCExecutionFactory ef) {
         this.executionFactory = ef;
         this.prepared = executionFactory.usePreparedStatements();
@@ -226,16 +230,88 @@ public class SQLConversionVisitor extends SQLStringVisitor implements SQLStringV
 
     @Override
     public void visit(Comparison obj) {
+    	if (this.dependentValues != null && obj.getRightExpression() instanceof Parameter 
+    			&& ((Parameter)obj.getRightExpression()).getDependentValueId() != null) {
+    		Condition crit = getDependentCriteria(obj);
+    		if (crit instanceof AndOr) {
+    			buffer.append(Tokens.LPAREN);
+    			append(crit);
+    			buffer.append(Tokens.RPAREN);
+    		} else {
+    			append(crit);
+    		}
+    		return;
+    	}
         replaceWithBinding = true;
         super.visit(obj);
     }
+    
+    /**
+     * Expand a dependent join comparison into IN predicates over the distinct dependent values
+     */
+    private Condition getDependentCriteria(Comparison obj) {
+    	Parameter param = (Parameter)obj.getRightExpression();
+    	Set<Object> values = new LinkedHashSet<Object>();
+    	for (List<?> row : this.dependentValues.get(param.getDependentValueId())) {
+    		Object value = row.get(param.getValueIndex());
+    		if (value != null) {
+    			values.add(value);
+    		}
+    	}
+    	if (values.isEmpty()) {
+    		return new Comparison(new Literal(1, TypeFacility.RUNTIME_TYPES.INTEGER), new Literal(0, TypeFacility.RUNTIME_TYPES.INTEGER), Comparison.Operator.EQ);
+    	}
+    	int maxInSize = this.executionFactory.getMaxInCriteriaSize();
+    	Condition result = null;
+    	List<Expression> in = new ArrayList<Expression>();
+    	for (Object value : values) {
+    		in.add(new Literal(value, param.getType()));
+    		if (maxInSize > 0 && in.size() >= maxInSize) {
+    			result = combine(result, new In(obj.getLeftExpression(), in, false));
+    			in = new ArrayList<Expression>();
+    		}
+    	}
+    	if (!in.isEmpty()) {
+    		result = combine(result, new In(obj.getLeftExpression(), in, false));
+    	}
+    	return result;
+    }
+    
+    private static Condition combine(Condition result, Condition in) {
+    	if (result == null) {
+    		return in;
+    	}
+    	return new AndOr(result, in, AndOr.Operator.OR);
+    }
+    
+    @Override
+    public void visit(Select obj) {
+    	if (obj.getDependentValues() != null) {
+    		this.dependentValues = obj.getDependentValues();
+    	}
+    	super.visit(obj);
+    }
 
     @Override
     public void visit(ExpressionValueSource obj) {
         replaceWithBinding = true;
         super.visit(obj);
+        for (int i = 1; i < valuesRows; i++) {
+        	buffer.append(Tokens.COMMA).append(Tokens.SPACE).append(Tokens.LPAREN);
+        	append(obj.getValues());
+        	buffer.append(Tokens.RPAREN);
+        }
     }
     
+    /**
+     * Set the number of times to repeat the values of an insert to produce
+     * a multi-row INSERT INTO ... VALUES (...), (...) statement.
+     * @param valuesRows
+     */
+    public void setValuesRows(int valuesRows) {
+		this.valuesRows = valuesRows;
+	}
+    
     @Override
     public void visit(SetClause obj) {
         replaceWithBinding = true;
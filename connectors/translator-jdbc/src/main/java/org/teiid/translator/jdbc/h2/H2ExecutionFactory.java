@@ -236,4 +236,19 @@ public class H2ExecutionFactory extends JDBCExecutionFactory {
     	}
     	return super.translate(obj, context);
     }
+    
+    @Override
+    public String getCreateTemporaryTablePrefix() {
+    	return "CREATE LOCAL TEMPORARY TABLE"; //$NON-NLS-1$
+    }
+    
+    @Override
+    public String getCreateTemporaryTablePostfix() {
+    	return "TRANSACTIONAL"; //$NON-NLS-1$
+    }
+    
+    @Override
+    public boolean supportsMultiRowInserts() {
+    	return true;
+    }
 }
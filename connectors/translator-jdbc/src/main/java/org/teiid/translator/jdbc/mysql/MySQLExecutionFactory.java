@@ -20,8 +20,8 @@
  * 02110-1301 USA.
  */
 
-package org.teiid.translator.jdbc.mysql;
-
+package org.teiid.translator.jdbc.mysql;
+
 import java.sql.Date;
 import java.sql.Time;
 import java.sql.Timestamp;
@@ -40,11 +40,11 @@ import org.teiid.translator.jdbc.JDBCExecutionFactory;
 import org.teiid.translator.jdbc.LocateFunctionModifier;
 
 
-/** 
- * @since 4.3
+/** 
+ * @since 4.3
  */
-@Translator(name="mysql", description="A translator for open source MySQL Database, used with any version lower than 5")
-public class MySQLExecutionFactory extends JDBCExecutionFactory {
+@Translator(name="mysql", description="A translator for open source MySQL Database, used with any version lower than 5")
+public class MySQLExecutionFactory extends JDBCExecutionFactory {
 	
 	public MySQLExecutionFactory() {
 		setSupportsFullOuterJoins(false);
@@ -63,9 +63,9 @@ public class MySQLExecutionFactory extends JDBCExecutionFactory {
 		}
 	}
 
-	@Override
-    public void start() throws TranslatorException {
-        super.start();
+	@Override
+    public void start() throws TranslatorException {
+        super.start();
         registerFunctionModifier(SourceSystemFunctions.BITAND, new BitFunctionModifier("&", getLanguageFactory())); //$NON-NLS-1$
         registerFunctionModifier(SourceSystemFunctions.BITNOT, new BitFunctionModifier("~", getLanguageFactory())); //$NON-NLS-1$
         registerFunctionModifier(SourceSystemFunctions.BITOR, new BitFunctionModifier("|", getLanguageFactory())); //$NON-NLS-1$
@@ -375,4 +375,9 @@ public class MySQLExecutionFactory extends JDBCExecutionFactory {
     public boolean supportsRowOffset() {
         return true;
     }    
-}
+    
+    @Override
+    public boolean supportsMultiRowInserts() {
+    	return true;
+    }
+}
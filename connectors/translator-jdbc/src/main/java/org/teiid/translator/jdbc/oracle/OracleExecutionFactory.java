@@ -792,4 +792,62 @@ public class OracleExecutionFactory extends JDBCExecutionFactory {
     	return getDatabaseVersion().compareTo(NINE_2) >= 0;
     }
     
+    @Override
+    public String getCreateTemporaryTablePrefix() {
+    	return "CREATE GLOBAL TEMPORARY TABLE"; //$NON-NLS-1$
+    }
+    
+    @Override
+    public String getCreateTemporaryTablePostfix() {
+    	return "ON COMMIT PRESERVE ROWS"; //$NON-NLS-1$
+    }
+    
+    /**
+     * Oracle temporary table definitions are permanent and creating one is DDL, 
+     * so a shared table is used with a key column to separate the values
+     */
+    @Override
+    public boolean usesGlobalTemporaryTables() {
+    	return true;
+    }
+
+    /**
+     * ORA-00955: name is already used by an existing object
+     */
+    @Override
+    public boolean isTableExistsException(SQLException e) {
+    	return e.getErrorCode() == 955;
+    }
+
+    @Override
+    public String getTemporaryTableColumnType(Class<?> type) {
+    	if (type == TypeFacility.RUNTIME_TYPES.STRING) {
+    		return "varchar2(4000)"; //$NON-NLS-1$
+    	}
+    	if (type == TypeFacility.RUNTIME_TYPES.BOOLEAN) {
+    		return "number(1)"; //$NON-NLS-1$
+    	}
+    	if (type == TypeFacility.RUNTIME_TYPES.BYTE) {
+    		return "number(3)"; //$NON-NLS-1$
+    	}
+    	if (type == TypeFacility.RUNTIME_TYPES.SHORT) {
+    		return "number(5)"; //$NON-NLS-1$
+    	}
+    	if (type == TypeFacility.RUNTIME_TYPES.INTEGER) {
+    		return "number(10)"; //$NON-NLS-1$
+    	}
+    	if (type == TypeFacility.RUNTIME_TYPES.LONG) {
+    		return "number(19)"; //$NON-NLS-1$
+    	}
+    	if (type == TypeFacility.RUNTIME_TYPES.BIG_INTEGER) {
+    		return "number(38)"; //$NON-NLS-1$
+    	}
+    	if (type == TypeFacility.RUNTIME_TYPES.BIG_DECIMAL || type == TypeFacility.RUNTIME_TYPES.FLOAT || type == TypeFacility.RUNTIME_TYPES.DOUBLE) {
+    		return "number"; //$NON-NLS-1$
+    	}
+    	if (type == TypeFacility.RUNTIME_TYPES.TIME) {
+    		return "date"; //$NON-NLS-1$
+    	}
+    	return super.getTemporaryTableColumnType(type);
+    }
 }
@@ -316,4 +316,41 @@ public class SQLServerExecutionFactory extends SybaseExecutionFactory {
     	};
     }
     
+    @Override
+    public String getCreateTemporaryTablePrefix() {
+    	return "CREATE TABLE"; //$NON-NLS-1$
+    }
+    
+    @Override
+    public String getTemporaryTableName(String name) {
+    	return "#" + name; //$NON-NLS-1$
+    }
+    
+    @Override
+    public String getTemporaryTableColumnType(Class<?> type) {
+    	if (type == TypeFacility.RUNTIME_TYPES.STRING) {
+    		return "nvarchar(4000)"; //$NON-NLS-1$
+    	}
+    	if (type == TypeFacility.RUNTIME_TYPES.BOOLEAN) {
+    		return "bit"; //$NON-NLS-1$
+    	}
+    	if (type == TypeFacility.RUNTIME_TYPES.DOUBLE) {
+    		return "float"; //$NON-NLS-1$
+    	}
+    	if (type == TypeFacility.RUNTIME_TYPES.BIG_DECIMAL) {
+    		return "numeric(38,19)"; //$NON-NLS-1$
+    	}
+    	if (type == TypeFacility.RUNTIME_TYPES.BIG_INTEGER) {
+    		return "numeric(38)"; //$NON-NLS-1$
+    	}
+    	if (type == TypeFacility.RUNTIME_TYPES.TIMESTAMP || type == TypeFacility.RUNTIME_TYPES.DATE || type == TypeFacility.RUNTIME_TYPES.TIME) {
+    		return "datetime"; //$NON-NLS-1$
+    	}
+    	return super.getTemporaryTableColumnType(type);
+    }
+    
+    @Override
+    public boolean supportsMultiRowInserts() {
+    	return getDatabaseVersion().compareTo(V_2008) >= 0;
+    }
 }
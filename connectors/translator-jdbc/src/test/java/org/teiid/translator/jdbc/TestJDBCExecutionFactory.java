@@ -22,7 +22,13 @@
 package org.teiid.translator.jdbc;
 
 import org.junit.Test;
+import org.mockito.Mockito;
+import org.teiid.translator.TypeFacility;
+
 import static org.junit.Assert.*;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.Calendar;
 
 public class TestJDBCExecutionFactory {
@@ -52,4 +58,31 @@ public class TestJDBCExecutionFactory {
 		
 		assertNotSame(cals[0], cals[1]);
 	}
+	
+	@Test public void testValueRetrievers() throws Exception {
+		JDBCExecutionFactory jef = new JDBCExecutionFactory();
+		jef.start();
+		ResultSet rs = Mockito.mock(ResultSet.class);
+		Mockito.stub(rs.getInt(1)).toReturn(0);
+		Mockito.stub(rs.wasNull()).toReturn(true);
+		Mockito.stub(rs.getObject(2)).toReturn("a"); //$NON-NLS-1$
+		
+		assertNull(jef.getValueRetriever(1, TypeFacility.RUNTIME_TYPES.INTEGER).retrieveValue(rs));
+		assertEquals("a", jef.getValueRetriever(2, TypeFacility.RUNTIME_TYPES.STRING).retrieveValue(rs)); //$NON-NLS-1$
+	}
+	
+	@Test public void testValueRetrieversUseOverride() throws Exception {
+		JDBCExecutionFactory jef = new JDBCExecutionFactory() {
+			@Override
+			public Object retrieveValue(ResultSet results, int columnIndex,
+					Class<?> expectedType) throws SQLException {
+				return columnIndex;
+			}
+		};
+		jef.start();
+		ResultSet rs = Mockito.mock(ResultSet.class);
+		
+		assertEquals(1, jef.getValueRetriever(1, TypeFacility.RUNTIME_TYPES.INTEGER).retrieveValue(rs));
+		assertEquals(2, jef.getValueRetriever(2, TypeFacility.RUNTIME_TYPES.STRING).retrieveValue(rs));
+	}
 }
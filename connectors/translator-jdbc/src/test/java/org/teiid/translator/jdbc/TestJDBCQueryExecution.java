@@ -0,0 +1,123 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.translator.jdbc;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.teiid.language.Comparison;
+import org.teiid.language.Literal;
+import org.teiid.language.Select;
+import org.teiid.translator.ExecutionContext;
+
+@SuppressWarnings("nls")
+public class TestJDBCQueryExecution {
+
+	@Test public void testPreparedStatementCache() throws Exception {
+		Connection connection = Mockito.mock(Connection.class);
+		PreparedStatement p = Mockito.mock(PreparedStatement.class);
+		Mockito.stub(p.executeQuery()).toReturn(Mockito.mock(ResultSet.class));
+		Mockito.stub(connection.prepareStatement("SELECT SmallA.IntKey FROM SmallA WHERE SmallA.IntKey = ?")).toReturn(p);
+		
+		JDBCExecutionFactory ef = new JDBCExecutionFactory();
+		ef.setPreparedStatementCacheSize(10);
+		ef.start();
+		
+		for (int i = 0; i < 2; i++) {
+			Select command = (Select)TranslationHelper.helpTranslate(TranslationHelper.BQT_VDB, "select intkey from BQT1.SmallA where intkey = 1");
+			((Literal)((Comparison)command.getWhere()).getRightExpression()).setBindEligible(true);
+			JDBCQueryExecution execution = new JDBCQueryExecution(command, connection, Mockito.mock(ExecutionContext.class), ef);
+			execution.execute();
+			execution.close();
+		}
+		
+		Mockito.verify(connection, Mockito.times(1)).prepareStatement("SELECT SmallA.IntKey FROM SmallA WHERE SmallA.IntKey = ?");
+		Mockito.verify(p, Mockito.times(2)).executeQuery();
+		Mockito.verify(p, Mockito.never()).close();
+		
+		//returning the connection closes the cached statements
+		ef.closeConnection(connection, null);
+		Mockito.verify(p).close();
+	}
+	
+	public static abstract class PooledConnection implements Connection {
+		public abstract Connection getUnderlyingConnection();
+	}
+	
+	@Test public void testPreparedStatementCachePooled() throws Exception {
+		Connection physical = Mockito.mock(Connection.class);
+		PreparedStatement p = Mockito.mock(PreparedStatement.class);
+		Mockito.stub(p.executeQuery()).toReturn(Mockito.mock(ResultSet.class));
+		Mockito.stub(physical.prepareStatement("SELECT SmallA.IntKey FROM SmallA WHERE SmallA.IntKey = ?")).toReturn(p);
+		
+		JDBCExecutionFactory ef = new JDBCExecutionFactory();
+		ef.setPreparedStatementCacheSize(10);
+		ef.start();
+		
+		for (int i = 0; i < 2; i++) {
+			//a new handle for the same physical connection is used for each execution
+			PooledConnection connection = Mockito.mock(PooledConnection.class);
+			Mockito.stub(connection.getUnderlyingConnection()).toReturn(physical);
+			Select command = (Select)TranslationHelper.helpTranslate(TranslationHelper.BQT_VDB, "select intkey from BQT1.SmallA where intkey = 1");
+			((Literal)((Comparison)command.getWhere()).getRightExpression()).setBindEligible(true);
+			JDBCQueryExecution execution = new JDBCQueryExecution(command, connection, Mockito.mock(ExecutionContext.class), ef);
+			execution.execute();
+			execution.close();
+			ef.closeConnection(connection, null);
+			Mockito.verify(connection).close();
+			Mockito.verify(connection, Mockito.never()).prepareStatement(Mockito.anyString());
+		}
+		
+		Mockito.verify(physical, Mockito.times(1)).prepareStatement("SELECT SmallA.IntKey FROM SmallA WHERE SmallA.IntKey = ?");
+		Mockito.verify(p, Mockito.times(2)).executeQuery();
+		Mockito.verify(p, Mockito.never()).close();
+	}
+	
+	@Test public void testFetchSizeStatisticsByTable() throws Exception {
+		JDBCExecutionFactory ef = new JDBCExecutionFactory();
+		FetchSizeStatistics stats = ef.getFetchSizeStatistics(TranslationHelper.helpTranslate(TranslationHelper.BQT_VDB, "select intkey from BQT1.SmallA"));
+		assertSame(stats, ef.getFetchSizeStatistics(TranslationHelper.helpTranslate(TranslationHelper.BQT_VDB, "select stringkey from BQT1.SmallA where intkey = 1")));
+		assertNotSame(stats, ef.getFetchSizeStatistics(TranslationHelper.helpTranslate(TranslationHelper.BQT_VDB, "select intkey from BQT1.SmallB")));
+	}
+	
+	@Test public void testAdaptiveFetchSize() {
+		FetchSizeStatistics stats = new FetchSizeStatistics();
+		assertEquals(256, stats.getFetchSize(256));
+		//wide rows stay at the batch size
+		stats.record(FetchSizeStatistics.TARGET_FETCH_BYTES / 100);
+		assertEquals(256, stats.getFetchSize(256));
+		stats = new FetchSizeStatistics();
+		stats.record(1000);
+		assertEquals(FetchSizeStatistics.TARGET_FETCH_BYTES / 1000, stats.getFetchSize(256));
+		stats = new FetchSizeStatistics();
+		stats.record(10);
+		assertEquals(FetchSizeStatistics.MAX_FETCH_SIZE, stats.getFetchSize(256));
+	}
+	
+}
@@ -22,13 +22,21 @@
 
 package org.teiid.translator.jdbc;
 
+import static org.junit.Assert.*;
+
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.teiid.CommandContext;
 import org.teiid.core.types.DataTypeManager;
 import org.teiid.language.Expression;
 import org.teiid.language.ExpressionValueSource;
@@ -62,4 +70,104 @@ public class TestJDBCUpdateExecution {
 		Mockito.verify(p, Mockito.times(2)).addBatch();
 	}
 	
+	private Insert getBulkInsert(int rows) {
+		Insert command = (Insert)TranslationHelper.helpTranslate(TranslationHelper.BQT_VDB, "insert into BQT1.SmallA (IntKey, IntNum) values (1, 2)"); //$NON-NLS-1$
+		List<Expression> values = ((ExpressionValueSource)command.getValueSource()).getValues();
+		for (int i = 0; i < 2; i++) {
+			Parameter param = new Parameter();
+			param.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+			param.setValueIndex(i);
+			values.set(i, param);
+		}
+		List<List<Integer>> parameterValues = new ArrayList<List<Integer>>();
+		for (int i = 0; i < rows; i++) {
+			parameterValues.add(Arrays.asList(i, i));
+		}
+		command.setParameterValues(parameterValues.iterator());
+		return command;
+	}
+	
+	@Test public void testMultiRowInsert() throws Exception {
+		Insert command = getBulkInsert(3);
+		Connection connection = Mockito.mock(Connection.class);
+		PreparedStatement p = Mockito.mock(PreparedStatement.class);
+		Mockito.stub(p.executeBatch()).toReturn(new int [] {1});
+		PreparedStatement multi = Mockito.mock(PreparedStatement.class);
+		Mockito.stub(multi.executeBatch()).toReturn(new int [] {Statement.SUCCESS_NO_INFO});
+		Mockito.stub(connection.prepareStatement("INSERT INTO SmallA (IntKey, IntNum) VALUES (?, ?)")).toReturn(p); //$NON-NLS-1$
+		Mockito.stub(connection.prepareStatement("INSERT INTO SmallA (IntKey, IntNum) VALUES (?, ?), (?, ?)")).toReturn(multi); //$NON-NLS-1$
+		
+		JDBCExecutionFactory config = new JDBCExecutionFactory() {
+			@Override
+			public boolean supportsMultiRowInserts() {
+				return true;
+			}
+		};
+		config.setMaxMultiRowInsertSize(2);
+		
+		JDBCUpdateExecution updateExecution = new JDBCUpdateExecution(command, connection, Mockito.mock(ExecutionContext.class), config);
+		updateExecution.execute();
+		Mockito.verify(multi, Mockito.times(1)).addBatch();
+		Mockito.verify(multi).setObject(4, 1, Types.INTEGER);
+		Mockito.verify(p, Mockito.times(1)).addBatch();
+		assertEquals(3, updateExecution.getUpdateCounts()[0]);
+	}
+	
+	@Test public void testPipelinedInsert() throws Exception {
+		Insert command = getBulkInsert(5);
+		Connection connection = Mockito.mock(Connection.class);
+		PreparedStatement p = Mockito.mock(PreparedStatement.class);
+		Mockito.when(p.executeBatch()).thenReturn(new int [] {1, 1}, new int [] {1, 1}, new int [] {1});
+		Mockito.stub(connection.prepareStatement("INSERT INTO SmallA (IntKey, IntNum) VALUES (?, ?)")).toReturn(p); //$NON-NLS-1$
+		
+		JDBCExecutionFactory config = new JDBCExecutionFactory();
+		config.setMaxPreparedInsertBatchSize(2);
+		config.setPipelineBulkInserts(true);
+		
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			ExecutionContext ec = Mockito.mock(ExecutionContext.class);
+			CommandContext cc = Mockito.mock(CommandContext.class);
+			Mockito.stub(cc.getExecutor()).toReturn(executor);
+			Mockito.stub(ec.getCommandContext()).toReturn(cc);
+			
+			JDBCUpdateExecution updateExecution = new JDBCUpdateExecution(command, connection, ec, config);
+			updateExecution.execute();
+			Mockito.verify(p, Mockito.times(5)).addBatch();
+			Mockito.verify(p, Mockito.times(3)).executeBatch();
+			assertEquals(5, updateExecution.getUpdateCounts()[0]);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	@Test public void testMultiRowInsertNotEnabled() throws Exception {
+		Insert command = getBulkInsert(3);
+		Connection connection = Mockito.mock(Connection.class);
+		PreparedStatement p = Mockito.mock(PreparedStatement.class);
+		Mockito.stub(p.executeBatch()).toReturn(new int [] {1, 1, 1});
+		Mockito.stub(connection.prepareStatement("INSERT INTO SmallA (IntKey, IntNum) VALUES (?, ?)")).toReturn(p); //$NON-NLS-1$
+		
+		//supported by the source, but the max size defaults to 0
+		JDBCExecutionFactory config = new JDBCExecutionFactory() {
+			@Override
+			public boolean supportsMultiRowInserts() {
+				return true;
+			}
+		};
+		
+		JDBCUpdateExecution updateExecution = new JDBCUpdateExecution(command, connection, Mockito.mock(ExecutionContext.class), config);
+		updateExecution.execute();
+		Mockito.verify(p, Mockito.times(3)).addBatch();
+		Mockito.verify(connection, Mockito.times(1)).prepareStatement(Mockito.anyString());
+	}
+	
+	@Test public void testMultiRowSql() throws Exception {
+		JDBCUpdateExecution updateExecution = new JDBCUpdateExecution(getBulkInsert(3), Mockito.mock(Connection.class), Mockito.mock(ExecutionContext.class), new JDBCExecutionFactory());
+		assertEquals("INSERT INTO SmallA (IntKey, IntNum) VALUES (?, ?), (?, ?), (?, ?)", updateExecution.getMultiRowSql(getBulkInsert(3), 3)); //$NON-NLS-1$
+		
+		Insert command = (Insert)TranslationHelper.helpTranslate(TranslationHelper.BQT_VDB, "insert into BQT1.SmallA (IntKey) select IntNum from BQT1.SmallB"); //$NON-NLS-1$
+		assertNull(updateExecution.getMultiRowSql(command, 3));
+	}
+	
 }
@@ -22,9 +22,23 @@
 
 package org.teiid.translator.jdbc.h2;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.mockito.Mockito;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.language.Comparison;
+import org.teiid.language.Parameter;
+import org.teiid.language.Select;
+import org.teiid.translator.ExecutionContext;
 import org.teiid.translator.TranslatorException;
+import org.teiid.translator.jdbc.JDBCQueryExecution;
 import org.teiid.translator.jdbc.TranslationHelper;
 
 public class TestH2Translator {
@@ -64,6 +78,80 @@ public class TestH2Translator {
         
         TranslationHelper.helpTestVisitor(TranslationHelper.BQT_VDB, input, output, TRANSLATOR);
 	}
+	
+	@Test public void testDependentJoinTemporaryTable() throws Exception {
+		Select command = (Select)TranslationHelper.helpTranslate(TranslationHelper.BQT_VDB, "select intkey from BQT1.SmallA where intnum = 1"); //$NON-NLS-1$
+		Parameter param = new Parameter();
+		param.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+		param.setValueIndex(0);
+		param.setDependentValueId("x"); //$NON-NLS-1$
+		((Comparison)command.getWhere()).setRightExpression(param);
+		command.setDependentValues(Collections.singletonMap("x", (List<? extends List<?>>)Arrays.asList(Arrays.asList(1), Arrays.asList(2)))); //$NON-NLS-1$
+		Connection connection = Mockito.mock(Connection.class);
+		Statement s = Mockito.mock(Statement.class);
+		Mockito.stub(connection.createStatement()).toReturn(s);
+		PreparedStatement p = Mockito.mock(PreparedStatement.class);
+		Mockito.stub(connection.prepareStatement("INSERT INTO teiid_dkey_0 (c0) VALUES (?)")).toReturn(p); //$NON-NLS-1$
+		
+		H2ExecutionFactory ef = new H2ExecutionFactory();
+		ef.setUseTemporaryTablesForDependentJoins(true);
+		ef.setTemporaryTableThreshold(2);
+		ef.start();
+		
+		JDBCQueryExecution execution = new JDBCQueryExecution(command, connection, Mockito.mock(ExecutionContext.class), ef);
+		execution.execute();
+		Mockito.verify(s).executeUpdate("CREATE LOCAL TEMPORARY TABLE teiid_dkey_0 (c0 integer) TRANSACTIONAL"); //$NON-NLS-1$
+		Mockito.verify(p, Mockito.times(2)).addBatch();
+		Mockito.verify(s).executeQuery("SELECT SmallA.IntKey FROM SmallA WHERE SmallA.IntNum IN (SELECT teiid_dkey_0.c0 FROM teiid_dkey_0)"); //$NON-NLS-1$
+		execution.close();
+		Mockito.verify(s).executeUpdate("DROP TABLE teiid_dkey_0"); //$NON-NLS-1$
+	}
+
+	@Test public void testDependentJoinInPredicates() throws Exception {
+		Select command = getDependentCommand();
+		Connection connection = Mockito.mock(Connection.class);
+		Statement s = Mockito.mock(Statement.class);
+		Mockito.stub(connection.createStatement()).toReturn(s);
+		
+		H2ExecutionFactory ef = new H2ExecutionFactory();
+		ef.setUseTemporaryTablesForDependentJoins(true);
+		ef.start();
+		
+		JDBCQueryExecution execution = new JDBCQueryExecution(command, connection, Mockito.mock(ExecutionContext.class), ef);
+		execution.execute();
+		Mockito.verify(s, Mockito.never()).executeUpdate(Mockito.anyString());
+		Mockito.verify(s).executeQuery("SELECT SmallA.IntKey FROM SmallA WHERE SmallA.IntNum IN (1, 2)"); //$NON-NLS-1$
+	}
+	
+	@Test public void testDependentJoinTransactional() throws Exception {
+		Select command = getDependentCommand();
+		Connection connection = Mockito.mock(Connection.class);
+		Statement s = Mockito.mock(Statement.class);
+		Mockito.stub(connection.createStatement()).toReturn(s);
+		
+		H2ExecutionFactory ef = new H2ExecutionFactory();
+		ef.setUseTemporaryTablesForDependentJoins(true);
+		ef.setTemporaryTableThreshold(1);
+		ef.setMaxInCriteriaSize(1);
+		ef.start();
+		
+		ExecutionContext ec = Mockito.mock(ExecutionContext.class);
+		Mockito.stub(ec.isTransactional()).toReturn(true);
+		JDBCQueryExecution execution = new JDBCQueryExecution(command, connection, ec, ef);
+		execution.execute();
+		Mockito.verify(s, Mockito.never()).executeUpdate(Mockito.anyString());
+		Mockito.verify(s).executeQuery("SELECT SmallA.IntKey FROM SmallA WHERE (SmallA.IntNum IN (1) OR SmallA.IntNum IN (2))"); //$NON-NLS-1$
+	}
 
+	private Select getDependentCommand() throws Exception {
+		Select command = (Select)TranslationHelper.helpTranslate(TranslationHelper.BQT_VDB, "select intkey from BQT1.SmallA where intnum = 1"); //$NON-NLS-1$
+		Parameter param = new Parameter();
+		param.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+		param.setValueIndex(0);
+		param.setDependentValueId("x"); //$NON-NLS-1$
+		((Comparison)command.getWhere()).setRightExpression(param);
+		command.setDependentValues(Collections.singletonMap("x", (List<? extends List<?>>)Arrays.asList(Arrays.asList(1), Arrays.asList(2), Arrays.asList(1)))); //$NON-NLS-1$
+		return command;
+	}
 
 }
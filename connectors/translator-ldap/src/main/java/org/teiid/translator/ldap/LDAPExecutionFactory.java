@@ -50,6 +50,12 @@ import org.teiid.translator.UpdateExecution;
 @Translator(name="ldap", description="A translator for LDAP directory")
 public class LDAPExecutionFactory extends ExecutionFactory<ConnectionFactory, LdapContext> {
 
+	/**
+	 * Table extension property listing the base DNs, separated by unescaped semicolons, 
+	 * that will be searched concurrently in place of the table base DN.
+	 */
+	public static final String PARTITION_BASES = "{http://www.teiid.org/translator/ldap/2013}partition-bases"; //$NON-NLS-1$
+	
 	public enum SearchDefaultScope {
 		SUBTREE_SCOPE,
 		OBJECT_SCOPE,
@@ -61,6 +67,7 @@ public class LDAPExecutionFactory extends ExecutionFactory<ConnectionFactory, Ld
 	private SearchDefaultScope searchDefaultScope = SearchDefaultScope.ONELEVEL_SCOPE;
 	private boolean usePagination;
 	private boolean exceptionOnSizeLimitExceeded;
+	private int pageSize;
 	
 	public LDAPExecutionFactory() {
 		this.setMaxInCriteriaSize(1000);
@@ -194,4 +201,13 @@ public class LDAPExecutionFactory extends ExecutionFactory<ConnectionFactory, Ld
 		this.exceptionOnSizeLimitExceeded = exceptionOnSizeLimitExceeded;
 	}
 	
+	@TranslatorProperty(display="Page Size", description="The page size to use with pagination.  If not greater than 0, the batch size is used.", advanced=true)
+	public int getPageSize() {
+		return pageSize;
+	}
+	
+	public void setPageSize(int pageSize) {
+		this.pageSize = pageSize;
+	}
+	
 }
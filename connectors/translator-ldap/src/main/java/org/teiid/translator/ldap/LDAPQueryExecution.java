@@ -41,7 +41,6 @@
  * as the LDAP attribute name.
  * 
  * 
- * TODO: Implement paged searches -- the LDAP server must support VirtualListViews.
  * TODO: Implement cancel.
  * TODO: Add Sun/Netscape implementation, AD/OpenLDAP implementation.
  * 
@@ -53,8 +52,8 @@
  * first occurrance. The first occurance is not predictably the same each time, either, according to the LDAP spec.
  * If an attribute is not present, we return the empty string. Arguably, we could throw an exception.
  * 
- * Sun LDAP won't support Sort Orders for very large datasets. So, we've set the sorting to NONCRITICAL, which
- * allows Sun to ignore the sort order. This will result in the results to come back as unsorted, without any error.
+ * Sun LDAP won't support Sort Orders for very large datasets. Since the sort control is CRITICAL, such a search
+ * will fail rather than return unsorted results.
  * 
  * Removed support for ORDER BY for two reasons:
  * 1: LDAP appears to have a limit to the number of records that 
@@ -161,10 +160,15 @@ public class LDAPQueryExecution implements ResultSetExecution {
 		SortKey[] keys = searchDetails.getSortKeys();
 		try {			
 			if (keys != null) {
-				ctrl.add(new SortControl(keys, Control.NONCRITICAL));
+				//the engine relies on the pushed ordering, so the server must fail rather than return unsorted results
+				ctrl.add(new SortControl(keys, Control.CRITICAL));
 			}
 			if (this.executionFactory.usePagination()) {
-				ctrl.add(new PagedResultsControl(this.executionContext.getBatchSize(), cookie, Control.CRITICAL));
+				int pageSize = this.executionFactory.getPageSize();
+				if (pageSize <= 0) {
+					pageSize = this.executionContext.getBatchSize();
+				}
+				ctrl.add(new PagedResultsControl(pageSize, cookie, Control.CRITICAL));
 			}
 			if (!ctrl.isEmpty()) {
 				this.ldapCtx.setRequestControls(ctrl.toArray(new Control[ctrl.size()]));
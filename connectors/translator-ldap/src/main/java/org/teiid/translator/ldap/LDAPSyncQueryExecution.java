@@ -53,8 +53,8 @@
  * first occurrance. The first occurance is not predictably the same each time, either, according to the LDAP spec.
  * If an attribute is not present, we return the empty string. Arguably, we could throw an exception.
  * 
- * Sun LDAP won't support Sort Orders for very large datasets. So, we've set the sorting to NONCRITICAL, which
- * allows Sun to ignore the sort order. This will result in the results to come back as unsorted, without any error.
+ * Sun LDAP won't support Sort Orders for very large datasets. Since the sort control is CRITICAL, such a search
+ * will fail rather than return unsorted results.
  * 
  * Removed support for ORDER BY for two reasons:
  * 1: LDAP appears to have a limit to the number of records that 
@@ -72,16 +72,26 @@
 package org.teiid.translator.ldap;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 import javax.naming.NamingException;
 import javax.naming.directory.SearchControls;
 import javax.naming.ldap.LdapContext;
+import javax.naming.ldap.SortKey;
 
+import org.teiid.language.NamedTable;
 import org.teiid.language.Select;
 import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
 import org.teiid.metadata.Column;
+import org.teiid.metadata.Table;
 import org.teiid.translator.DataNotAvailableException;
 import org.teiid.translator.ExecutionContext;
 import org.teiid.translator.ResultSetExecution;
@@ -100,6 +110,82 @@ public class LDAPSyncQueryExecution implements ResultSetExecution {
 	protected LDAPExecutionFactory executionFactory;
 	protected ExecutionContext executionContext;
 	protected LDAPQueryExecution delegate;
+	private ConcurrentLinkedQueue<Partition> partitions;
+	private volatile boolean closed;
+	private List<? extends List<?>> partitionRows;
+	private int partitionRowIndex;
+	private long rowCount;
+	private long countLimit;
+	private Executor executor;
+	//the row indexes and directions of the sort keys when merging sorted partitions
+	private int[] sortIndexes;
+	private boolean[] ascending;
+	
+	/**
+	 * A search of a single partition base, which is advanced a batch at a time
+	 * on the engine executor.  Without an executor the search is advanced by the
+	 * processing thread.
+	 */
+	private class Partition implements Callable<List<List<?>>> {
+		private LDAPQueryExecution execution;
+		private boolean executed;
+		private volatile boolean done;
+		private volatile FutureTask<List<List<?>>> pending;
+		//the current batch when merging sorted partitions
+		private List<List<?>> rows;
+		private int rowIndex;
+		
+		public Partition(LDAPQueryExecution execution) {
+			this.execution = execution;
+		}
+		
+		void fetch() {
+			this.pending = new FutureTask<List<List<?>>>(this);
+			if (executor != null) {
+				executor.execute(this.pending);
+			}
+		}
+		
+		@Override
+		public synchronized List<List<?>> call() throws TranslatorException {
+			try {
+				if (closed) {
+					done = true;
+					return new ArrayList<List<?>>(0);
+				}
+				if (!executed) {
+					execution.execute();
+					executed = true;
+				}
+				int batchSize = Math.max(1, executionContext.getBatchSize());
+				List<List<?>> rows = new ArrayList<List<?>>(batchSize);
+				while (rows.size() < batchSize) {
+					List<?> row = execution.next();
+					if (row == null) {
+						done = true;
+						break;
+					}
+					rows.add(row);
+				}
+				return rows;
+			} finally {
+				executionContext.dataAvailable();
+			}
+		}
+		
+		/**
+		 * Cancel the pending batch and wait for it if it has already started,
+		 * so that the search is not used after it is closed.
+		 */
+		void close() {
+			if (pending != null) {
+				pending.cancel(false);
+			}
+			synchronized (this) {
+				execution.close();
+			}
+		}
+	}
 	
 	/** 
 	 * Constructor
@@ -126,6 +212,12 @@ public class LDAPSyncQueryExecution implements ResultSetExecution {
 		IQueryToLdapSearchParser parser = new IQueryToLdapSearchParser(this.executionFactory);
 		LDAPSearchDetails searchDetails = parser.translateSQLQueryToLDAPSearch(query);
 
+		String[] bases = getPartitionBases();
+		if (bases != null) {
+			executePartitions(searchDetails, bases);
+			return;
+		}
+
 		// Create and configure the new search context.
 		LdapContext context =  createSearchContext(searchDetails.getContextName());
 		SearchControls ctrls = setSearchControls(searchDetails);
@@ -133,6 +225,79 @@ public class LDAPSyncQueryExecution implements ResultSetExecution {
 		this.delegate = new LDAPQueryExecution(context, searchDetails, ctrls, this.executionFactory, this.executionContext);
 		this.delegate.execute();
 	}
+	
+	/**
+	 * Get the partition bases from the table extension metadata
+	 * @return the bases or null if there is not more than one 
+	 */
+	private String[] getPartitionBases() {
+		Table table = ((NamedTable)query.getFrom().get(0)).getMetadataObject();
+		String value = table.getProperty(LDAPExecutionFactory.PARTITION_BASES, false);
+		if (value == null) {
+			return null;
+		}
+		List<String> result = new ArrayList<String>();
+		//semicolons within a dn must be escaped
+		for (String base : value.split("(?<!\\\\);")) { //$NON-NLS-1$
+			base = base.trim();
+			if (base.length() > 0) {
+				result.add(base);
+			}
+		}
+		if (result.size() < 2) {
+			return null;
+		}
+		return result.toArray(new String[result.size()]);
+	}
+
+	/**
+	 * Search each of the partition bases concurrently with the same filter and controls.
+	 * If the search is sorted, each partition is sorted by the server and the results are merged.
+	 */
+	private void executePartitions(LDAPSearchDetails searchDetails, String[] bases) throws TranslatorException {
+		if (this.executionContext.getCommandContext() != null) {
+			this.executor = this.executionContext.getCommandContext().getExecutor();
+		}
+		SortKey[] keys = searchDetails.getSortKeys();
+		if (keys != null) {
+			setSortIndexes(keys, searchDetails.getElementList());
+		}
+		this.partitions = new ConcurrentLinkedQueue<Partition>();
+		this.countLimit = searchDetails.getCountLimit();
+		for (String base : bases) {
+			LDAPSearchDetails partitionDetails = new LDAPSearchDetails(base, searchDetails.getSearchScope(), searchDetails.getContextFilter(), keys, searchDetails.getCountLimit(), searchDetails.getElementList(), searchDetails.getTimeLimit());
+			LdapContext context = createSearchContext(base);
+			Partition partition = new Partition(new LDAPQueryExecution(context, partitionDetails, setSearchControls(partitionDetails), this.executionFactory, this.executionContext));
+			this.partitions.add(partition);
+		}
+		LogManager.logDetail(LogConstants.CTX_CONNECTOR, "Searching", bases.length, "partitions for", searchDetails.getContextName()); //$NON-NLS-1$ //$NON-NLS-2$
+		for (Partition partition : this.partitions) {
+			partition.fetch();
+		}
+	}
+	
+	/**
+	 * Find the selected attribute for each sort key.  Sort keys unrelated to the select
+	 * are not supported, so each should be found.
+	 */
+	private void setSortIndexes(SortKey[] keys, List<Column> elements) throws TranslatorException {
+		this.sortIndexes = new int[keys.length];
+		this.ascending = new boolean[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			int index = -1;
+			for (int j = 0; j < elements.size(); j++) {
+				if (IQueryToLdapSearchParser.getNameFromElement(elements.get(j)).equalsIgnoreCase(keys[i].getAttributeID())) {
+					index = j;
+					break;
+				}
+			}
+			if (index < 0) {
+				throw new TranslatorException("Cannot merge the partition searches, since the sort attribute is not selected: " + keys[i].getAttributeID()); //$NON-NLS-1$
+			}
+			this.sortIndexes[i] = index;
+			this.ascending[i] = keys[i].isAscending();
+		}
+	}
 
 
 
@@ -177,17 +342,192 @@ public class LDAPSyncQueryExecution implements ResultSetExecution {
 
 	@Override
 	public List<?> next() throws TranslatorException, DataNotAvailableException {
-		return this.delegate.next();
+		if (this.partitions == null) {
+			return this.delegate.next();
+		}
+		if (this.sortIndexes != null) {
+			return nextSorted();
+		}
+		while (true) {
+			//cancel may be called concurrently, the engine will not use the remaining results
+			if (closed || (countLimit != -1 && rowCount >= countLimit)) {
+				return null;
+			}
+			if (partitionRows != null && partitionRowIndex < partitionRows.size()) {
+				rowCount++;
+				return partitionRows.get(partitionRowIndex++);
+			}
+			partitionRows = null;
+			if (partitions.isEmpty()) {
+				return null;
+			}
+			//take the results from any partition that has completed a batch
+			Partition partition = getCompleted();
+			if (partition == null) {
+				throw DataNotAvailableException.NO_POLLING;
+			}
+			partitionRows = getRows(partition);
+			if (partitionRows == null) {
+				return null;
+			}
+			partitionRowIndex = 0;
+			if (partition.done) {
+				partition.close();
+				partitions.remove(partition);
+			} else {
+				partition.fetch();
+			}
+		}
+	}
+	
+	/**
+	 * Get the rows of the completed batch
+	 * @return the rows or null if the batch was cancelled
+	 */
+	private List<List<?>> getRows(Partition partition) throws TranslatorException {
+		try {
+			return partition.pending.get();
+		} catch (CancellationException e) {
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TranslatorException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof TranslatorException) {
+				throw (TranslatorException)e.getCause();
+			}
+			throw new TranslatorException(e.getCause());
+		}
+	}
+	
+	/**
+	 * Return the least row of the partitions.  The next row of every partition
+	 * must be available before a row can be returned.
+	 */
+	private List<?> nextSorted() throws TranslatorException, DataNotAvailableException {
+		if (closed || (countLimit != -1 && rowCount >= countLimit)) {
+			return null;
+		}
+		Partition least = null;
+		for (Iterator<Partition> iter = partitions.iterator(); iter.hasNext();) {
+			Partition partition = iter.next();
+			if (!fill(partition)) {
+				partition.close();
+				iter.remove();
+				continue;
+			}
+			if (least == null || compare(partition.rows.get(partition.rowIndex), least.rows.get(least.rowIndex)) < 0) {
+				least = partition;
+			}
+		}
+		if (least == null) {
+			return null;
+		}
+		rowCount++;
+		return least.rows.get(least.rowIndex++);
+	}
+	
+	/**
+	 * Make the next row of the partition available.  A batch that has not been 
+	 * started by the executor is run by the calling thread.
+	 * @return false if the partition has no more rows
+	 */
+	private boolean fill(Partition partition) throws TranslatorException, DataNotAvailableException {
+		while (partition.rows == null || partition.rowIndex >= partition.rows.size()) {
+			if (partition.rows != null && partition.done) {
+				return false;
+			}
+			//a no-op if the batch is already running
+			partition.pending.run();
+			if (!partition.pending.isDone()) {
+				throw DataNotAvailableException.NO_POLLING;
+			}
+			List<List<?>> rows = getRows(partition);
+			if (rows == null) {
+				return false;
+			}
+			partition.rows = rows;
+			partition.rowIndex = 0;
+			if (!partition.done) {
+				partition.fetch();
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Compare rows by the sort keys.  Missing values are ordered after all others as with 
+	 * server side sorting, and strings are compared ignoring case as with the usual 
+	 * ordering rule for directory strings.
+	 */
+	@SuppressWarnings("unchecked")
+	private int compare(List<?> row, List<?> other) {
+		for (int i = 0; i < sortIndexes.length; i++) {
+			Object value = row.get(sortIndexes[i]);
+			Object otherValue = other.get(sortIndexes[i]);
+			int result = 0;
+			if (value == null || otherValue == null) {
+				result = value == null ? (otherValue == null ? 0 : 1) : -1;
+			} else if (value instanceof String && otherValue instanceof String) {
+				result = String.CASE_INSENSITIVE_ORDER.compare((String)value, (String)otherValue);
+			} else if (value instanceof Comparable<?> && value.getClass() == otherValue.getClass()) {
+				result = ((Comparable<Object>)value).compareTo(otherValue);
+			} else {
+				result = String.CASE_INSENSITIVE_ORDER.compare(value.toString(), otherValue.toString());
+			}
+			if (result != 0) {
+				return ascending[i] ? result : -result;
+			}
+		}
+		return 0;
+	}
+	
+	/**
+	 * Get a partition with a completed batch.  If there is none, a batch that
+	 * has not been started by the executor is run by the calling thread.
+	 */
+	private Partition getCompleted() {
+		for (Partition partition : partitions) {
+			if (partition.pending.isDone()) {
+				return partition;
+			}
+		}
+		for (Partition partition : partitions) {
+			//a no-op if the batch is already running
+			partition.pending.run();
+			if (partition.pending.isDone()) {
+				return partition;
+			}
+		}
+		return null;
 	}
 	
 	@Override
 	public void cancel() throws TranslatorException {
+		if (this.partitions != null) {
+			//the partitions are closed by the processing thread
+			this.closed = true;
+			for (Partition partition : this.partitions) {
+				partition.pending.cancel(false);
+			}
+			return;
+		}
 		this.delegate.cancel();
 	}
 
 	@Override
 	public void close() {
-		this.delegate.close();
+		if (this.partitions != null) {
+			this.closed = true;
+			for (Partition partition : this.partitions) {
+				partition.close();
+			}
+			this.partitions.clear();
+			return;
+		}
+		if (this.delegate != null) {
+			this.delegate.close();
+		}
 	}
 	
 	// testing
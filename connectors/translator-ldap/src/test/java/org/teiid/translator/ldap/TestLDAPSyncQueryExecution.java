@@ -0,0 +1,240 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.translator.ldap;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import javax.naming.NamingEnumeration;
+import javax.naming.directory.BasicAttributes;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.Control;
+import javax.naming.ldap.LdapContext;
+import javax.naming.ldap.PagedResultsControl;
+import javax.naming.ldap.SortControl;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.mockito.stubbing.OngoingStubbing;
+import org.teiid.CommandContext;
+import org.teiid.cdk.CommandBuilder;
+import org.teiid.language.NamedTable;
+import org.teiid.language.Select;
+import org.teiid.translator.ExecutionContext;
+
+@SuppressWarnings({"nls", "unchecked"})
+public class TestLDAPSyncQueryExecution {
+	
+	private NamingEnumeration<SearchResult> helpGetResults(String... uids) throws Exception {
+		NamingEnumeration<SearchResult> results = Mockito.mock(NamingEnumeration.class);
+		OngoingStubbing<Boolean> hasMore = Mockito.when(results.hasMore());
+		OngoingStubbing<SearchResult> next = Mockito.when(results.next());
+		for (String uid : uids) {
+			SearchResult result = new SearchResult(uid, null, new BasicAttributes("uid", uid));
+			result.setNameInNamespace("uid=" + uid);
+			hasMore = hasMore.thenReturn(true);
+			next = next.thenReturn(result);
+		}
+		hasMore.thenReturn(false);
+		return results;
+	}
+
+	private LdapContext helpGetPartitionedConnection() throws Exception {
+		LdapContext connection = Mockito.mock(LdapContext.class);
+		LdapContext east = Mockito.mock(LdapContext.class);
+		LdapContext west = Mockito.mock(LdapContext.class);
+		Mockito.stub(connection.lookup("ou=east")).toReturn(east);
+		Mockito.stub(connection.lookup("ou=west")).toReturn(west);
+		NamingEnumeration<SearchResult> eastResults = helpGetResults("a");
+		NamingEnumeration<SearchResult> westResults = helpGetResults("b");
+		Mockito.stub(east.search(Mockito.eq(""), Mockito.eq("(objectClass=*)"), Mockito.any(SearchControls.class))).toReturn(eastResults);
+		Mockito.stub(west.search(Mockito.eq(""), Mockito.eq("(objectClass=*)"), Mockito.any(SearchControls.class))).toReturn(westResults);
+		return connection;
+	}
+	
+	private Select helpGetPartitionedCommand() throws Exception {
+		Select command = (Select)new CommandBuilder(TestIQueryToLdapSearchParser.exampleLdap()).getCommand("SELECT UserID FROM LdapModel.People");
+		((NamedTable)command.getFrom().get(0)).getMetadataObject().setProperty(LDAPExecutionFactory.PARTITION_BASES, "ou=east;ou=west");
+		return command;
+	}
+	
+	private ExecutionContext helpGetExecutionContext(final List<Runnable> tasks) {
+		ExecutionContext ec = Mockito.mock(ExecutionContext.class);
+		CommandContext cc = Mockito.mock(CommandContext.class);
+		Mockito.stub(cc.getExecutor()).toReturn(new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				tasks.add(command);
+			}
+		});
+		Mockito.stub(ec.getCommandContext()).toReturn(cc);
+		return ec;
+	}
+
+	@Test public void testPartitionedSearch() throws Exception {
+		LdapContext connection = helpGetPartitionedConnection();
+		
+		//without an executor the partitions are searched by the calling thread
+		LDAPSyncQueryExecution execution = new LDAPSyncQueryExecution(helpGetPartitionedCommand(), new LDAPExecutionFactory(), Mockito.mock(ExecutionContext.class), connection);
+		execution.execute();
+		assertEquals(Arrays.asList("a"), execution.next());
+		assertEquals(Arrays.asList("b"), execution.next());
+		assertNull(execution.next());
+		execution.close();
+		
+		Mockito.verify((LdapContext)connection.lookup("ou=east")).close();
+		Mockito.verify((LdapContext)connection.lookup("ou=west")).close();
+		Mockito.verify(connection, Mockito.never()).lookup("ou=people,dc=metamatrix,dc=com");
+	}
+	
+	@Test public void testPartitionedSearchExecutor() throws Exception {
+		LdapContext connection = helpGetPartitionedConnection();
+		List<Runnable> tasks = new ArrayList<Runnable>();
+		ExecutionContext ec = helpGetExecutionContext(tasks);
+		
+		LDAPSyncQueryExecution execution = new LDAPSyncQueryExecution(helpGetPartitionedCommand(), new LDAPExecutionFactory(), ec, connection);
+		execution.execute();
+		assertEquals(2, tasks.size());
+		//the west search completes first
+		tasks.get(1).run();
+		Mockito.verify(ec).dataAvailable();
+		assertEquals(Arrays.asList("b"), execution.next());
+		//the east search has not been started by the executor, so it is run by the calling thread
+		assertEquals(Arrays.asList("a"), execution.next());
+		//the next batches are again submitted
+		assertEquals(4, tasks.size());
+		tasks.get(2).run();
+		tasks.get(3).run();
+		assertNull(execution.next());
+		execution.close();
+		
+		Mockito.verify((LdapContext)connection.lookup("ou=east")).close();
+		Mockito.verify((LdapContext)connection.lookup("ou=west")).close();
+	}
+	
+	@Test public void testPartitionedSearchCancel() throws Exception {
+		LdapContext connection = helpGetPartitionedConnection();
+		List<Runnable> tasks = new ArrayList<Runnable>();
+		
+		LDAPSyncQueryExecution execution = new LDAPSyncQueryExecution(helpGetPartitionedCommand(), new LDAPExecutionFactory(), helpGetExecutionContext(tasks), connection);
+		execution.execute();
+		execution.cancel();
+		assertNull(execution.next());
+		execution.close();
+		
+		//the cancelled searches are never started
+		for (Runnable task : tasks) {
+			task.run();
+		}
+		LdapContext east = (LdapContext)connection.lookup("ou=east");
+		Mockito.verify(east, Mockito.never()).search(Mockito.anyString(), Mockito.anyString(), Mockito.any(SearchControls.class));
+		Mockito.verify(east).close();
+	}
+
+	@Test public void testPartitionedSearchSorted() throws Exception {
+		LdapContext connection = Mockito.mock(LdapContext.class);
+		LdapContext east = Mockito.mock(LdapContext.class);
+		LdapContext west = Mockito.mock(LdapContext.class);
+		Mockito.stub(connection.lookup("ou=east")).toReturn(east);
+		Mockito.stub(connection.lookup("ou=west")).toReturn(west);
+		NamingEnumeration<SearchResult> eastResults = helpGetResults("a", "c");
+		NamingEnumeration<SearchResult> westResults = helpGetResults("B", "d");
+		Mockito.stub(east.search(Mockito.eq(""), Mockito.eq("(objectClass=*)"), Mockito.any(SearchControls.class))).toReturn(eastResults);
+		Mockito.stub(west.search(Mockito.eq(""), Mockito.eq("(objectClass=*)"), Mockito.any(SearchControls.class))).toReturn(westResults);
+		
+		Select command = (Select)new CommandBuilder(TestIQueryToLdapSearchParser.exampleLdap()).getCommand("SELECT UserID FROM LdapModel.People ORDER BY UserID");
+		((NamedTable)command.getFrom().get(0)).getMetadataObject().setProperty(LDAPExecutionFactory.PARTITION_BASES, "ou=east;ou=west");
+		
+		//the partitions are searched with the sort and merged
+		LDAPSyncQueryExecution execution = new LDAPSyncQueryExecution(command, new LDAPExecutionFactory(), Mockito.mock(ExecutionContext.class), connection);
+		execution.execute();
+		assertEquals(Arrays.asList("a"), execution.next());
+		assertEquals(Arrays.asList("B"), execution.next());
+		assertEquals(Arrays.asList("c"), execution.next());
+		assertEquals(Arrays.asList("d"), execution.next());
+		assertNull(execution.next());
+		execution.close();
+		
+		for (LdapContext context : Arrays.asList(east, west)) {
+			ArgumentCaptor<Control[]> controls = ArgumentCaptor.forClass(Control[].class);
+			Mockito.verify(context).setRequestControls(controls.capture());
+			assertTrue(controls.getValue()[0] instanceof SortControl);
+			assertTrue(controls.getValue()[0].isCritical());
+			Mockito.verify(context).close();
+		}
+		Mockito.verify(connection, Mockito.never()).lookup("ou=people,dc=metamatrix,dc=com");
+	}
+	
+	private Control[] helpGetControls(LDAPExecutionFactory factory, String query, int batchSize) throws Exception {
+		LdapContext connection = Mockito.mock(LdapContext.class);
+		LdapContext context = Mockito.mock(LdapContext.class);
+		Mockito.stub(connection.lookup("ou=people,dc=metamatrix,dc=com")).toReturn(context);
+		NamingEnumeration<SearchResult> results = helpGetResults("a");
+		Mockito.stub(context.search(Mockito.eq(""), Mockito.eq("(objectClass=*)"), Mockito.any(SearchControls.class))).toReturn(results);
+		ExecutionContext ec = Mockito.mock(ExecutionContext.class);
+		Mockito.stub(ec.getBatchSize()).toReturn(batchSize);
+		
+		Select command = (Select)new CommandBuilder(TestIQueryToLdapSearchParser.exampleLdap()).getCommand(query);
+		LDAPSyncQueryExecution execution = new LDAPSyncQueryExecution(command, factory, ec, connection);
+		execution.execute();
+		assertEquals(Arrays.asList("a"), execution.next());
+		assertNull(execution.next());
+		execution.close();
+		
+		ArgumentCaptor<Control[]> controls = ArgumentCaptor.forClass(Control[].class);
+		Mockito.verify(context).setRequestControls(controls.capture());
+		return controls.getValue();
+	}
+	
+	@Test public void testSortControlCritical() throws Exception {
+		Control[] controls = helpGetControls(new LDAPExecutionFactory(), "SELECT UserID FROM LdapModel.People ORDER BY UserID", 256);
+		assertEquals(1, controls.length);
+		assertTrue(controls[0] instanceof SortControl);
+		//the search must fail rather than return unsorted results
+		assertTrue(controls[0].isCritical());
+	}
+	
+	@Test public void testPageSize() throws Exception {
+		LDAPExecutionFactory factory = new LDAPExecutionFactory();
+		factory.setUsePagination(true);
+		factory.setPageSize(50);
+		Control[] controls = helpGetControls(factory, "SELECT UserID FROM LdapModel.People", 256);
+		assertEquals(1, controls.length);
+		assertTrue(controls[0] instanceof PagedResultsControl);
+		assertArrayEquals(new PagedResultsControl(50, Control.CRITICAL).getEncodedValue(), controls[0].getEncodedValue());
+	}
+	
+	@Test public void testPageSizeDefault() throws Exception {
+		LDAPExecutionFactory factory = new LDAPExecutionFactory();
+		factory.setUsePagination(true);
+		//without a page size the batch size is used
+		Control[] controls = helpGetControls(factory, "SELECT UserID FROM LdapModel.People", 256);
+		assertArrayEquals(new PagedResultsControl(256, Control.CRITICAL).getEncodedValue(), controls[0].getEncodedValue());
+	}
+
+}
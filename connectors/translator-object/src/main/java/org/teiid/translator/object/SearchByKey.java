@@ -23,10 +23,9 @@
 package org.teiid.translator.object;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import org.infinispan.client.hotrod.RemoteCache;
 import org.teiid.core.util.Assertion;
@@ -54,13 +53,14 @@ public final class SearchByKey  {
 		if (criterion == null) {
 			Map<?, ?> map = cache;
 			if (cache instanceof RemoteCache<?, ?>) {
+				// the bulk result already contains the values, so there is 
+				// no need for a remote get of each key
 				RemoteCache<?, ?> rc = (RemoteCache<?, ?>) cache;
-		  		map = (Map<Object, Object>) rc.getBulk();
+		  		map = rc.getBulk();
 			}
-			Set<?> keys = map.keySet();
-			results = new ArrayList<Object>();
-			for (Iterator<?> it = keys.iterator(); it.hasNext();) {
-				Object v = cache.get(it.next());
+			Collection<?> values = map.values();
+			results = new ArrayList<Object>(values.size());
+			for (Object v : values) {
 				addValue(v, results, rootClass);
 			}
 			return results;
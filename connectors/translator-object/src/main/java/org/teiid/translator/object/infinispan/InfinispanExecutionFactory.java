@@ -87,6 +87,16 @@ public class InfinispanExecutionFactory extends ObjectExecutionFactory {
 		return isFullTextSearchingSupported();
 	}
 	
+	@Override
+	public boolean supportsRowLimit() {
+		return isFullTextSearchingSupported();
+	}
+	
+	@Override
+	public boolean supportsRowOffset() {
+		return isFullTextSearchingSupported();
+	}
+	
 	@Override
 	public boolean supportsLikeCriteria() {
 		// at this point, i've been unable to get the Like to work.
@@ -27,6 +27,7 @@ import java.util.Map;
 
 import org.apache.lucene.search.Query;
 import org.hibernate.search.query.dsl.BooleanJunction;
+import org.hibernate.search.query.dsl.RangeTerminationExcludable;
 import org.hibernate.search.query.dsl.QueryBuilder;
 import org.infinispan.Cache;
 import org.infinispan.query.CacheQuery;
@@ -72,6 +73,13 @@ public final class LuceneSearch   {
 		}
 
 		CacheQuery cacheQuery = searchManager.getQuery(query, type); // rootNodeType
+		
+		Limit limit = command.getLimit();
+		if (limit != null) {
+			// only the needed objects are loaded from the cache
+			cacheQuery.firstResult(limit.getRowOffset());
+			cacheQuery.maxResults(limit.getRowLimit());
+		}
 
 		List<Object> results = cacheQuery.list();
 		if (results == null || results.isEmpty()) {
@@ -212,16 +220,24 @@ public final class LuceneSearch   {
 			break;
 
 		case GT:
-			createRangeAboveQuery(mdIDElement, value, junction, queryBuilder);
+			createRangeAboveQuery(mdIDElement, value, true, junction, queryBuilder);
+			break;
+
+		case GE:
+			createRangeAboveQuery(mdIDElement, value, false, junction, queryBuilder);
 			break;
 
 		case LT:
-			createRangeBelowQuery(mdIDElement, value, junction, queryBuilder);
+			createRangeBelowQuery(mdIDElement, value, true, junction, queryBuilder);
+			break;
+
+		case LE:
+			createRangeBelowQuery(mdIDElement, value, false, junction, queryBuilder);
 			break;
 
 		default:
 			final String msg = ObjectPlugin.Util
-					.getString("LuceneSearch.invalidOperator", new Object[] { op, "NE, EQ, GT, LT" }); //$NON-NLS-1$ //$NON-NLS-2$
+					.getString("LuceneSearch.invalidOperator", new Object[] { op, "NE, EQ, GT, GE, LT, LE" }); //$NON-NLS-1$ //$NON-NLS-2$
 			throw new TranslatorException(msg);
 		}
 		return true;
@@ -341,22 +357,30 @@ public final class LuceneSearch   {
 		return queryKey;
 	}
 
-	private static Query createRangeAboveQuery(Column column, Object value,
+	private static Query createRangeAboveQuery(Column column, Object value, boolean exclusive,
 			BooleanJunction<BooleanJunction> junction, QueryBuilder queryBuilder) {
 
-		Query queryKey = queryBuilder.range()
+		RangeTerminationExcludable range = queryBuilder.range()
 				.onField(ObjectExecution.getNameInSource(column))
-				.above(value.toString()).excludeLimit().createQuery();
+				.above(value.toString());
+		if (exclusive) {
+			range.excludeLimit();
+		}
+		Query queryKey = range.createQuery();
 		junction.must(queryKey);
 		return queryKey;
 	}
 
-	private static Query createRangeBelowQuery(Column column, Object value,
+	private static Query createRangeBelowQuery(Column column, Object value, boolean exclusive,
 			BooleanJunction<BooleanJunction> junction, QueryBuilder queryBuilder) {
 
-		Query queryKey = queryBuilder.range()
+		RangeTerminationExcludable range = queryBuilder.range()
 				.onField(ObjectExecution.getNameInSource(column))
-				.below(value.toString()).excludeLimit().createQuery();
+				.below(value.toString());
+		if (exclusive) {
+			range.excludeLimit();
+		}
+		Query queryKey = range.createQuery();
 		junction.must(queryKey);
 		return queryKey;
 	}
@@ -109,6 +109,24 @@ public class TestInfinispanJndiILuceneSearch extends BasicSearchTest {
 		performTest(command, 1, 2);
 	}	
 	
+	@Test public void testQueryRangeAboveInclusive() throws Exception {	
+		Select command = (Select)VDBUtility.TRANSLATION_UTILITY.parseCommand("select T.TradeId, T.Name as TradeName From Trade_Object.Trade as T WHERE T.TradeId >= '2'"); //$NON-NLS-1$
+					
+		performTest(command, 2, 2);
+	}
+	
+	@Test public void testQueryRangeBelowInclusive() throws Exception {	
+		Select command = (Select)VDBUtility.TRANSLATION_UTILITY.parseCommand("select T.TradeId, T.Name as TradeName From Trade_Object.Trade as T WHERE T.TradeId <= '2'"); //$NON-NLS-1$
+					
+		performTest(command, 2, 2);
+	}
+	
+	@Test public void testQueryLimit() throws Exception {	
+		Select command = (Select)VDBUtility.TRANSLATION_UTILITY.parseCommand("select T.TradeId, T.Name as TradeName From Trade_Object.Trade as T WHERE T.TradeId > '1' limit 1"); //$NON-NLS-1$
+					
+		performTest(command, 1, 2);
+	}
+	
 	@Test public void testQueryAnd() throws Exception {	
 		Select command = (Select)VDBUtility.TRANSLATION_UTILITY.parseCommand("select T.TradeId, T.Name as TradeName From Trade_Object.Trade as T WHERE T.TradeId > '1' and T.Settled = 'false' "); //$NON-NLS-1$
 					
@@ -30,8 +30,15 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.ws.rs.core.Response.Status;
 
@@ -55,6 +62,7 @@ import org.teiid.language.Literal;
 import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
 import org.teiid.metadata.RuntimeMetadata;
+import org.teiid.translator.DataNotAvailableException;
 import org.teiid.translator.ExecutionContext;
 import org.teiid.translator.TranslatorException;
 import org.teiid.translator.TypeFacility;
@@ -171,6 +179,42 @@ public class BaseQueryExecution {
 		return headers;
 	}	
 	
+	/**
+	 * A page fetch that runs at most once and can be waited on after it has been cancelled
+	 */
+	private static class PageTask extends FutureTask<Feed> {
+		private AtomicBoolean started = new AtomicBoolean();
+		private CountDownLatch done = new CountDownLatch(1);
+		
+		public PageTask(Callable<Feed> callable) {
+			super(callable);
+		}
+		
+		@Override
+		public void run() {
+			if (!started.compareAndSet(false, true)) {
+				return;
+			}
+			try {
+				super.run();
+			} finally {
+				done.countDown();
+			}
+		}
+		
+		void close() {
+			cancel(false);
+			if (started.compareAndSet(false, true)) {
+				return;
+			}
+			try {
+				done.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+	
 	class ODataEntitiesResponse {
 		private Feed feed;
 		private String uri;
@@ -178,6 +222,12 @@ public class BaseQueryExecution {
 		private String entityTypeName;
 		private TranslatorException exception;
 		private Status[] acceptedStatus;
+		private Executor executor;
+		private LinkedList<PageTask> pending = new LinkedList<PageTask>();
+		private boolean nextScheduled;
+		private int pageSize;
+		private int count;
+		private int nextSkip;
 		
 		public ODataEntitiesResponse(String uri, Feed feed, String entityTypeName, Status... accptedStatus) {
 			this.uri = uri;
@@ -185,6 +235,9 @@ public class BaseQueryExecution {
 			this.entityTypeName = entityTypeName;
 			this.rowIter = this.feed.getEntries().iterator();
 			this.acceptedStatus = accptedStatus;
+			if (translator.isPrefetchPages() && executionContext != null && executionContext.getCommandContext() != null) {
+				this.executor = executionContext.getCommandContext().getExecutor();
+			}
 		}
 		
 		public ODataEntitiesResponse(TranslatorException ex) {
@@ -207,7 +260,12 @@ public class BaseQueryExecution {
 		}
 		
 		public List<?> getNextRow(String[] columnNames, String[] embeddedColumnName, Class<?>[] expectedType) throws TranslatorException {
-			if (this.rowIter != null && this.rowIter.hasNext()) {
+			while (this.rowIter != null && !this.rowIter.hasNext()) {
+				fetchNextBatch();
+			}
+			if (this.rowIter != null) {
+				//start fetching the following pages while this page is processed
+				schedulePages();
 				OEntity entity = this.rowIter.next().getEntity();
 				ArrayList results = new ArrayList();
 				for (int i = 0; i < columnNames.length; i++) {
@@ -223,25 +281,91 @@ public class BaseQueryExecution {
 					}
 					results.add(translator.retrieveValue(value, expectedType[i]));
 				}
-				fetchNextBatch(!this.rowIter.hasNext());
 				return results;
 			}
 			
 			return null;
 		}
 		
-		// TODO:there is possibility here to async execute this feed
-		private void fetchNextBatch(boolean fetch) throws TranslatorException {
-			if (!fetch) {
+		/**
+		 * Fetch the remaining pages with $top/$skip rather than following the next links, 
+		 * so that several pages may be retrieved concurrently.
+		 * @param count the total number of entities
+		 */
+		void usePagedFetching(int count) {
+			if (this.feed == null) {
 				return;
 			}
-			
-			String next = this.feed.getNext();
-			if (next == null) {
-				this.feed = null;
-				this.rowIter = null;
+			//the first page size is assumed to be the source page size
+			int pageSize = 0;
+			for (Iterator<Entry> iter = this.feed.getEntries().iterator(); iter.hasNext(); iter.next()) {
+				pageSize++;
+			}
+			if (pageSize == 0 || count <= pageSize) {
+				return;
+			}
+			this.pageSize = pageSize;
+			this.count = count;
+			this.nextSkip = pageSize;
+		}
+		
+		String getNext() {
+			if (this.feed == null) {
+				return null;
+			}
+			return this.feed.getNext();
+		}
+		
+		/**
+		 * Make sure that the next pages are being fetched
+		 */
+		private void schedulePages() throws TranslatorException {
+			if (this.nextSkip > 0) {
+				int concurrency = Math.max(1, translator.getParallelPageCount());
+				while (this.pending.size() < concurrency && this.nextSkip < this.count) {
+					String nextUri = this.uri + (this.uri.indexOf('?') == -1?'?':'&') + "$skip=" + this.nextSkip + "&$top=" + this.pageSize; //$NON-NLS-1$ //$NON-NLS-2$
+					this.nextSkip += this.pageSize;
+					fetchPage(nextUri);
+				}
 				return;
 			}
+			if (this.nextScheduled || this.feed == null) {
+				return;
+			}
+			this.nextScheduled = true;
+			String nextUri = getNextUri(this.feed.getNext());
+			if (nextUri != null) {
+				fetchPage(nextUri);
+			}
+		}
+		
+		private void fetchPage(final String pageUri) {
+			PageTask task = new PageTask(new Callable<Feed>() {
+				@Override
+				public Feed call() throws TranslatorException {
+					try {
+						BinaryWSProcedureExecution execution = executeDirect("GET", pageUri, null, getDefaultHeaders()); //$NON-NLS-1$
+						validateResponse(execution);
+						Blob blob = (Blob)execution.getOutputParameterValues().get(0);
+					    ODataVersion version = getDataServiceVersion((String)execution.getResponseHeader(ODataConstants.Headers.DATA_SERVICE_VERSION));
+						return parse(blob, version, entityTypeName);
+					} finally {
+						if (executor != null) {
+							executionContext.dataAvailable();
+						}
+					}
+				}
+			});
+			this.pending.add(task);
+			if (this.executor != null) {
+				this.executor.execute(task);
+			}
+		}
+		
+		private String getNextUri(String next) throws TranslatorException {
+			if (next == null) {
+				return null;
+			}
 			
 			int idx = next.indexOf("$skiptoken="); //$NON-NLS-1$
 			if (idx != -1) {
@@ -254,32 +378,58 @@ public class BaseQueryExecution {
 					throw new TranslatorException(e);
 				}
 				
-				String nextUri = uri;
 				if (uri.indexOf('?') == -1) {
-					nextUri = uri + "?$skiptoken="+skip; //$NON-NLS-1$
-				}
-				else {
-					nextUri = uri + "&$skiptoken="+skip; //$NON-NLS-1$
+					return uri + "?$skiptoken="+skip; //$NON-NLS-1$
 				}
-				BinaryWSProcedureExecution execution = executeDirect("GET", nextUri, null, getDefaultHeaders()); //$NON-NLS-1$
-				validateResponse(execution);
-				Blob blob = (Blob)execution.getOutputParameterValues().get(0);
-			    ODataVersion version = getDataServiceVersion((String)execution.getResponseHeader(ODataConstants.Headers.DATA_SERVICE_VERSION));
-			    
-				this.feed = parse(blob, version, this.entityTypeName); 
-				this.rowIter = this.feed.getEntries().iterator();
-				
+				return uri + "&$skiptoken="+skip; //$NON-NLS-1$
 			} else if (next.toLowerCase().startsWith("http")) { //$NON-NLS-1$
-				BinaryWSProcedureExecution execution = executeDirect("GET", next, null, getDefaultHeaders()); //$NON-NLS-1$
-				validateResponse(execution);
-				Blob blob = (Blob)execution.getOutputParameterValues().get(0);
-			    ODataVersion version = getDataServiceVersion((String)execution.getResponseHeader(ODataConstants.Headers.DATA_SERVICE_VERSION));
-				
-				this.feed = parse(blob, version, this.entityTypeName); 
-				this.rowIter = this.feed.getEntries().iterator();
-			} else {
-				throw new TranslatorException(ODataPlugin.Util.gs(ODataPlugin.Event.TEIID17001, next));
+				return next;
+			} 
+			throw new TranslatorException(ODataPlugin.Util.gs(ODataPlugin.Event.TEIID17001, next));
+		}
+		
+		/**
+		 * Move to the next fetched page
+		 * @throws DataNotAvailableException if the page is still being fetched
+		 */
+		private void fetchNextBatch() throws TranslatorException {
+			schedulePages();
+			if (this.pending.isEmpty()) {
+				this.feed = null;
+				this.rowIter = null;
+				return;
+			}
+			PageTask task = this.pending.getFirst();
+			//a no-op if the page is already being fetched by the executor
+			task.run();
+			if (!task.isDone()) {
+				throw DataNotAvailableException.NO_POLLING;
+			}
+			this.pending.removeFirst();
+			try {
+				this.feed = task.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new TranslatorException(e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof TranslatorException) {
+					throw (TranslatorException)e.getCause();
+				}
+				throw new TranslatorException(e.getCause());
+			}
+			this.rowIter = this.feed.getEntries().iterator();
+			this.nextScheduled = false;
+		}
+		
+		/**
+		 * Cancel the pending pages, waiting for any fetch that has already started
+		 * so that the connection is not used after close.
+		 */
+		void close() {
+			for (PageTask task : this.pending) {
+				task.close();
 			}
+			this.pending.clear();
 		}
 
 		private void validateResponse(BinaryWSProcedureExecution execution) throws TranslatorException {
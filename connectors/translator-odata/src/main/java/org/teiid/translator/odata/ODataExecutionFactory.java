@@ -68,6 +68,8 @@ public class ODataExecutionFactory extends ExecutionFactory<ConnectionFactory, W
 	private EdmDataServices eds;
 	private String databaseTimeZone;
 	private TimeZone timeZone = DEFAULT_TIME_ZONE;
+	private boolean prefetchPages = true;
+	private int parallelPageCount = 1;
 	
 	public ODataExecutionFactory() {
 		setSourceRequiredForMetadata(true);
@@ -102,6 +104,24 @@ public class ODataExecutionFactory extends ExecutionFactory<ConnectionFactory, W
 		this.databaseTimeZone = databaseTimeZone;
 	}	
 	
+	@TranslatorProperty(display="Prefetch Pages", description="If true the next page of a feed will be fetched on an engine thread while the current page is processed.  Default true.", advanced=true)
+	public boolean isPrefetchPages() {
+		return this.prefetchPages;
+	}
+	
+	public void setPrefetchPages(boolean prefetchPages) {
+		this.prefetchPages = prefetchPages;
+	}
+	
+	@TranslatorProperty(display="Parallel Page Count", description="If greater than 1 and the source returns a $count, the pages of a feed will be fetched with $skip/$top ordered by the entity key and up to this many pages fetched concurrently.  Entities without a key are not fetched in parallel.  The source data should not change during the query.  Default 1.", advanced=true)
+	public int getParallelPageCount() {
+		return this.parallelPageCount;
+	}
+	
+	public void setParallelPageCount(int parallelPageCount) {
+		this.parallelPageCount = parallelPageCount;
+	}
+	
 	@Override
 	public void getMetadata(MetadataFactory metadataFactory, WSConnection conn) throws TranslatorException {
 		BaseQueryExecution execution = new BaseQueryExecution(this, null, null, conn, null);
@@ -140,6 +140,9 @@ public class ODataProcedureExecution extends BaseQueryExecution implements Proce
 
 	@Override
 	public void close() {
+		if (this.response != null) {
+			this.response.close();
+		}
 	}
 
 	@Override
@@ -34,6 +34,8 @@ import javax.ws.rs.core.Response.Status;
 import org.odata4j.edm.EdmDataServices;
 import org.teiid.core.util.ObjectConverterUtil;
 import org.teiid.language.QueryExpression;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
 import org.teiid.metadata.Column;
 import org.teiid.metadata.RuntimeMetadata;
 import org.teiid.translator.DataNotAvailableException;
@@ -84,34 +86,59 @@ public class ODataQueryExecution extends BaseQueryExecution implements ResultSet
 
 	@Override
 	public void execute() throws TranslatorException {
-		String URI = this.visitor.buildURL();
-
 		if (this.visitor.isCount()) {
-			Map<String, List<String>> headers = new TreeMap<String, List<String>>();
-			headers.put("Accept", Arrays.asList("text/xml", "text/plain"));  //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-			
-			BinaryWSProcedureExecution execution = executeDirect("GET", URI, null, headers); //$NON-NLS-1$
-			if (execution.getResponseCode() != Status.OK.getStatusCode()) {
-				throw buildError(execution);
-			}
-			
-			Blob blob = (Blob)execution.getOutputParameterValues().get(0);
-			try {
-				this.countResponse = Integer.parseInt(ObjectConverterUtil.convertToString(blob.getBinaryStream()));
-			} catch (IOException e) {
-				throw new TranslatorException(e);
-			} catch (SQLException e) {
-				throw new TranslatorException(e);
-			}			
+			this.countResponse = executeCount(this.visitor.buildURL());
 		}
 		else {
+			//$skip/$top pages are only consistent if the entities are ordered by the key
+			boolean pagedFetching = this.translator.getParallelPageCount() > 1 && !this.visitor.hasLimit() && this.visitor.orderByKey();
+			String URI = this.visitor.buildURL();
 			this.response = executeWithReturnEntity("GET", URI, null, visitor.getEnityTable().getName(), null, Status.OK, Status.NO_CONTENT); //$NON-NLS-1$
 			if (this.response != null && this.response.hasError()) {
 				this.executionContext.addWarning(this.response.getError());
+			} else if (pagedFetching && this.response != null && this.response.getNext() != null) {
+				usePagedFetching();
 			}
 		}
 	}
 	
+	/**
+	 * The source is paging the results, so use the total count to fetch the 
+	 * remaining pages concurrently.  If the count is not available the
+	 * next links are followed instead. 
+	 */
+	private void usePagedFetching() {
+		int count = 0;
+		try {
+			count = executeCount(this.visitor.buildCountURL());
+		} catch (TranslatorException e) {
+			LogManager.logDetail(LogConstants.CTX_ODATA, e, "Count is not available, following next links instead"); //$NON-NLS-1$
+			return;
+		}
+		this.response.usePagedFetching(count);
+	}
+
+	private int executeCount(String URI) throws TranslatorException {
+		Map<String, List<String>> headers = new TreeMap<String, List<String>>();
+		headers.put("Accept", Arrays.asList("text/xml", "text/plain"));  //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		
+		BinaryWSProcedureExecution execution = executeDirect("GET", URI, null, headers); //$NON-NLS-1$
+		if (execution.getResponseCode() != Status.OK.getStatusCode()) {
+			throw buildError(execution);
+		}
+		
+		Blob blob = (Blob)execution.getOutputParameterValues().get(0);
+		try {
+			return Integer.parseInt(ObjectConverterUtil.convertToString(blob.getBinaryStream()).trim());
+		} catch (NumberFormatException e) {
+			throw new TranslatorException(e);
+		} catch (IOException e) {
+			throw new TranslatorException(e);
+		} catch (SQLException e) {
+			throw new TranslatorException(e);
+		}
+	}
+	
 	@Override
 	public List<?> next() throws TranslatorException, DataNotAvailableException {
 		if (visitor.isCount() && this.countResponse != -1) {
@@ -129,6 +156,9 @@ public class ODataQueryExecution extends BaseQueryExecution implements ResultSet
 	
 	@Override
 	public void close() {
+		if (this.response != null) {
+			this.response.close();
+		}
 	}
 
 	@Override
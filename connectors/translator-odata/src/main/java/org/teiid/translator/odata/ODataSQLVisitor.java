@@ -66,6 +66,7 @@ public class ODataSQLVisitor extends HierarchyVisitor {
 	private Integer skip;
 	private Integer top;
 	private StringBuilder orderBy = new StringBuilder();
+	private HashSet<String> orderByColumns = new HashSet<String>();
 	private boolean count = false;
 	
 	public Column[] getSelect(){
@@ -90,6 +91,45 @@ public class ODataSQLVisitor extends HierarchyVisitor {
 		return url.toString();
 	}
 	
+	public boolean hasLimit() {
+		return this.skip != null || this.top != null;
+	}
+	
+	/**
+	 * Add the entity key to the $orderby, so that the entities are in the 
+	 * same order for each $skip/$top page.
+	 * @return false if the entity does not have a key
+	 */
+	public boolean orderByKey() {
+		Table table = getEnityTable();
+		if (table == null || table.getPrimaryKey() == null) {
+			return false;
+		}
+		for (Column column : table.getPrimaryKey().getColumns()) {
+			if (this.orderByColumns.add(column.getName())) {
+				if (this.orderBy.length() > 0) {
+					this.orderBy.append(Tokens.COMMA);
+				}
+				this.orderBy.append(column.getName());
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * @return the url for the count of entities matching the filter
+	 */
+	public String buildCountURL() {
+    	StringBuilder url = new StringBuilder();
+    	this.entities.append(url);
+    	url.append("/$count"); //$NON-NLS-1$
+    	UriBuilder uriBuilder = UriBuilder.fromPath(url.toString());
+    	if (this.filter.length() > 0) {
+    		uriBuilder.queryParam("$filter", this.filter.toString()); //$NON-NLS-1$
+    	}
+    	return uriBuilder.build().toString();
+	}
+	
 	public String buildURL() {
     	StringBuilder url = new StringBuilder();
     	this.entities.append(url);
@@ -366,6 +406,7 @@ public class ODataSQLVisitor extends HierarchyVisitor {
 		}
 		ColumnReference column = (ColumnReference)obj.getExpression();
 		orderBy.append(column.getMetadataObject().getName());
+		orderByColumns.add(column.getMetadataObject().getName());
 		// default is ascending
         if (obj.getOrdering() == Ordering.DESC) {
         	orderBy.append(Tokens.SPACE).append(DESC);
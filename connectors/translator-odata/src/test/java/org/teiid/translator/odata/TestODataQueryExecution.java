@@ -0,0 +1,277 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.translator.odata;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.net.URLDecoder;
+import java.sql.Blob;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+
+import javax.sql.rowset.serial.SerialBlob;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.odata4j.core.OEntity;
+import org.odata4j.core.OProperties;
+import org.odata4j.core.ODataVersion;
+import org.odata4j.edm.EdmDataServices;
+import org.odata4j.format.Entry;
+import org.odata4j.format.Feed;
+import org.odata4j.format.xml.EdmxFormatParser;
+import org.odata4j.stax2.util.StaxUtil;
+import org.teiid.CommandContext;
+import org.teiid.cdk.api.TranslationUtility;
+import org.teiid.core.util.ObjectConverterUtil;
+import org.teiid.core.util.UnitTestUtil;
+import org.teiid.language.NamedTable;
+import org.teiid.language.Select;
+import org.teiid.metadata.MetadataFactory;
+import org.teiid.query.function.FunctionTree;
+import org.teiid.query.function.UDFSource;
+import org.teiid.query.metadata.SystemMetadata;
+import org.teiid.query.metadata.TransformationMetadata;
+import org.teiid.query.unittest.RealMetadataFactory;
+import org.teiid.translator.ExecutionContext;
+import org.teiid.translator.TranslatorException;
+import org.teiid.translator.ws.BinaryWSProcedureExecution;
+
+@SuppressWarnings("nls")
+public class TestODataQueryExecution {
+	private ODataExecutionFactory translator;
+	private TranslationUtility utility;
+	//the responses by decoded uri, either a Feed, a count, or an exception
+	private Map<String, Object> responses = new HashMap<String, Object>();
+	private List<String> uris = new ArrayList<String>();
+	private List<Runnable> tasks = new ArrayList<Runnable>();
+	//a uri whose fetch blocks until released
+	private String blockedUri;
+	private CountDownLatch blockedStarted = new CountDownLatch(1);
+	private CountDownLatch blockedRelease = new CountDownLatch(1);
+
+    @Before
+    public void setUp() throws Exception {
+    	translator = new ODataExecutionFactory();
+    	translator.start();
+
+		String csdl = ObjectConverterUtil.convertFileToString(UnitTestUtil.getTestDataFile("northwind.xml"));
+		EdmDataServices eds = new EdmxFormatParser().parseMetadata(StaxUtil.newXMLEventReader(new InputStreamReader(new ByteArrayInputStream(csdl.getBytes()))));
+		ODataMetadataProcessor processor = new ODataMetadataProcessor();
+		Properties props = new Properties();
+		props.setProperty("schemaNamespace", "ODataWeb.Northwind.Model");
+		props.setProperty("entityContainer", "NorthwindEntities");
+		MetadataFactory mf = new MetadataFactory("vdb", 1, "nw", SystemMetadata.getInstance().getRuntimeTypeMap(), props, null);
+		processor.getMetadata(mf, eds);
+
+		TransformationMetadata metadata = RealMetadataFactory.createTransformationMetadata(mf.asMetadataStore(), "northwind", new FunctionTree("foo", new UDFSource(translator.getPushDownFunctions())));
+    	utility = new TranslationUtility(metadata);
+    }
+
+    private ExecutionContext helpGetExecutionContext() {
+		ExecutionContext ec = Mockito.mock(ExecutionContext.class);
+		CommandContext cc = Mockito.mock(CommandContext.class);
+		Mockito.stub(cc.getExecutor()).toReturn(new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				tasks.add(command);
+			}
+		});
+		Mockito.stub(ec.getCommandContext()).toReturn(cc);
+		return ec;
+    }
+
+    private ODataQueryExecution helpExecute(Select cmd, ExecutionContext ec) throws Exception {
+    	ODataQueryExecution execution = new ODataQueryExecution(this.translator, cmd, ec, utility.createRuntimeMetadata(), null, null) {
+    		@Override
+    		protected BinaryWSProcedureExecution executeDirect(String method, String uri, String payload, Map<String, List<String>> headers) throws TranslatorException {
+    			try {
+	    			String decoded = URLDecoder.decode(uri, "UTF-8");
+	    			uris.add(decoded);
+	    			Object response = responses.get(decoded);
+	    			assertNotNull(decoded, response);
+	    			BinaryWSProcedureExecution execution = Mockito.mock(BinaryWSProcedureExecution.class);
+	    			Mockito.stub(execution.getResponseCode()).toReturn(200);
+	    			//the count is read from the blob, otherwise the blob identifies the feed
+	    			Blob blob = new SerialBlob((response instanceof Integer?response.toString():decoded).getBytes("UTF-8"));
+	    			Mockito.doReturn(Arrays.asList(blob)).when(execution).getOutputParameterValues();
+	    			return execution;
+    			} catch (Exception e) {
+    				throw new TranslatorException(e);
+    			}
+    		}
+
+    		@Override
+    		protected Feed parse(Blob blob, ODataVersion version, String entityTable) throws TranslatorException {
+    			try {
+	    			Object response = responses.get(ObjectConverterUtil.convertToString(blob.getBinaryStream()));
+	    			if (response instanceof TranslatorException) {
+	    				throw (TranslatorException)response;
+	    			}
+	    			return (Feed)response;
+    			} catch (TranslatorException e) {
+    				throw e;
+    			} catch (Exception e) {
+    				throw new TranslatorException(e);
+    			}
+    		}
+    	};
+    	execution.execute();
+    	return execution;
+    }
+
+    private Feed helpGetFeed(String next, String... ids) {
+    	List<Entry> entries = new ArrayList<Entry>();
+    	for (String id : ids) {
+    		OEntity entity = Mockito.mock(OEntity.class);
+    		Mockito.doReturn(OProperties.string("CustomerID", id)).when(entity).getProperty("CustomerID");
+    		Entry entry = Mockito.mock(Entry.class);
+    		Mockito.stub(entry.getEntity()).toReturn(entity);
+    		entries.add(entry);
+    	}
+    	Feed feed = Mockito.mock(Feed.class);
+    	Mockito.stub(feed.getNext()).toReturn(next);
+    	Mockito.doReturn(entries).when(feed).getEntries();
+    	return feed;
+    }
+
+    @Test public void testPrefetch() throws Exception {
+    	responses.put("Customers?$select=CustomerID", helpGetFeed("http://host/next", "a"));
+    	responses.put("http://host/next", helpGetFeed(null, "b"));
+    	ExecutionContext ec = helpGetExecutionContext();
+
+    	ODataQueryExecution execution = helpExecute((Select)this.utility.parseCommand("select CustomerID from Customers"), ec);
+    	assertEquals(Arrays.asList("a"), execution.next());
+    	//the next page is fetched by the executor while the first page is processed
+    	assertEquals(1, tasks.size());
+    	tasks.get(0).run();
+    	Mockito.verify(ec).dataAvailable();
+    	assertEquals(Arrays.asList("b"), execution.next());
+    	assertNull(execution.next());
+    	execution.close();
+    	assertEquals(Arrays.asList("Customers?$select=CustomerID", "http://host/next"), uris);
+    }
+
+    @Test public void testPrefetchError() throws Exception {
+    	responses.put("Customers?$select=CustomerID", helpGetFeed("http://host/next", "a"));
+    	responses.put("http://host/next", new TranslatorException("page failed"));
+
+    	ODataQueryExecution execution = helpExecute((Select)this.utility.parseCommand("select CustomerID from Customers"), helpGetExecutionContext());
+    	assertEquals(Arrays.asList("a"), execution.next());
+    	tasks.get(0).run();
+    	try {
+    		execution.next();
+    		fail();
+    	} catch (TranslatorException e) {
+    		assertEquals("page failed", e.getMessage());
+    	}
+    	execution.close();
+    }
+
+    @Test(timeout=10000) public void testCloseWaitsForStartedPage() throws Exception {
+    	responses.put("Customers?$select=CustomerID", helpGetFeed("http://host/next", "a"));
+    	responses.put("http://host/next", helpGetFeed(null, "b"));
+    	blockedUri = "http://host/next";
+
+    	final ODataQueryExecution execution = helpExecute((Select)this.utility.parseCommand("select CustomerID from Customers"), helpGetExecutionContext());
+    	assertEquals(Arrays.asList("a"), execution.next());
+    	Thread fetch = new Thread(tasks.get(0));
+    	fetch.start();
+    	blockedStarted.await();
+    	Thread closer = new Thread() {
+    		@Override
+    		public void run() {
+    			execution.close();
+    		}
+    	};
+    	closer.start();
+    	//close does not return while the page is still being fetched
+    	closer.join(200);
+    	assertTrue(closer.isAlive());
+    	blockedRelease.countDown();
+    	closer.join();
+    	fetch.join();
+    }
+
+    @Test public void testCloseBeforePageStarted() throws Exception {
+    	responses.put("Customers?$select=CustomerID", helpGetFeed("http://host/next", "a"));
+    	responses.put("http://host/next", helpGetFeed(null, "b"));
+
+    	ODataQueryExecution execution = helpExecute((Select)this.utility.parseCommand("select CustomerID from Customers"), helpGetExecutionContext());
+    	assertEquals(Arrays.asList("a"), execution.next());
+    	execution.close();
+    	//a page that had not started is never fetched
+    	tasks.get(0).run();
+    	assertEquals(Arrays.asList("Customers?$select=CustomerID"), uris);
+    }
+
+    @Test public void testParallelPages() throws Exception {
+    	translator.setParallelPageCount(2);
+    	String uri = "Customers?$orderby=CustomerID&$select=CustomerID";
+    	responses.put(uri, helpGetFeed("http://host/next", "a", "b"));
+    	responses.put("Customers/$count", 7);
+    	responses.put(uri + "&$skip=2&$top=2", helpGetFeed(null, "c", "d"));
+    	responses.put(uri + "&$skip=4&$top=2", helpGetFeed(null, "e", "f"));
+    	responses.put(uri + "&$skip=6&$top=2", helpGetFeed(null, "g"));
+
+    	ODataQueryExecution execution = helpExecute((Select)this.utility.parseCommand("select CustomerID from Customers"), helpGetExecutionContext());
+    	assertEquals(Arrays.asList("a"), execution.next());
+    	assertEquals(2, tasks.size());
+    	//the pages are returned in order even if they complete out of order
+    	tasks.get(1).run();
+    	tasks.get(0).run();
+    	List<Object> rows = new ArrayList<Object>();
+    	List<?> row = null;
+    	while ((row = execution.next()) != null) {
+    		rows.add(row.get(0));
+    	}
+    	assertEquals(Arrays.asList("b", "c", "d", "e", "f", "g"), rows);
+    	execution.close();
+    	assertEquals(5, uris.size());
+    }
+
+    @Test public void testParallelPagesWithoutKey() throws Exception {
+    	translator.setParallelPageCount(2);
+    	responses.put("Customers?$select=CustomerID", helpGetFeed("http://host/next", "a"));
+    	responses.put("http://host/next", helpGetFeed(null, "b"));
+    	Select cmd = (Select)this.utility.parseCommand("select CustomerID from Customers");
+    	((NamedTable)cmd.getFrom().get(0)).getMetadataObject().setPrimaryKey(null);
+
+    	//without a key the next links are followed
+    	ODataQueryExecution execution = helpExecute(cmd, Mockito.mock(ExecutionContext.class));
+    	assertEquals(Arrays.asList("a"), execution.next());
+    	assertEquals(Arrays.asList("b"), execution.next());
+    	assertNull(execution.next());
+    	execution.close();
+    	assertEquals(Arrays.asList("Customers?$select=CustomerID", "http://host/next"), uris);
+    }
+
+}
@@ -23,6 +23,7 @@ package org.teiid.translator.odata;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStreamReader;
@@ -157,6 +158,30 @@ public class TestODataSQLVistor {
     	helpExecute("SELECT ContactName FROM Customers limit 10, 19", "Customers?$select=ContactName&$skip=10&$top=19");
     }  
     
+    @Test
+    public void testCountURL() throws Exception {
+    	Select cmd = (Select)this.utility.parseCommand("select UnitPrice from Order_Details where Quantity >= 2 limit 5");
+    	ODataSQLVisitor visitor = new ODataSQLVisitor(this.translator, utility.createRuntimeMetadata());
+    	visitor.visitNode(cmd); 
+    	assertTrue(visitor.hasLimit());
+    	assertEquals("Order_Details/$count?$filter=Quantity ge 2", URLDecoder.decode(visitor.buildCountURL(), "UTF-8"));
+    }
+    
+    @Test
+    public void testOrderByKey() throws Exception {
+    	helpOrderByKey("SELECT LastName FROM Employees ORDER BY LastName DESC", "Employees?$orderby=LastName DESC,EmployeeID&$select=LastName");
+    	//the key is not repeated
+    	helpOrderByKey("SELECT LastName FROM Employees ORDER BY EmployeeID DESC", "Employees?$orderby=EmployeeID DESC&$select=LastName");
+    }
+
+    private void helpOrderByKey(String query, String expected) throws Exception {
+    	Select cmd = (Select)this.utility.parseCommand(query);
+    	ODataSQLVisitor visitor = new ODataSQLVisitor(this.translator, utility.createRuntimeMetadata());
+    	visitor.visitNode(cmd); 
+    	assertTrue(visitor.orderByKey());
+    	assertEquals(expected, URLDecoder.decode(visitor.buildURL(), "UTF-8"));
+    }
+    
     @Test
     public void testUseAirthmaticFunction() throws Exception {
     	helpExecute("SELECT LastName FROM Employees WHERE EmployeeID/10 > EmployeeID", "Employees?$filter=(EmployeeID div 10) gt EmployeeID&$select=LastName");
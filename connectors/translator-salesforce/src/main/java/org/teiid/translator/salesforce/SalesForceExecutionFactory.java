@@ -64,6 +64,8 @@ public class SalesForceExecutionFactory extends ExecutionFactory<ConnectionFacto
 	private static final String INCLUDES = "includes";//$NON-NLS-1$
 	private boolean auditModelFields = false;
 	private int maxInsertBatchSize = 2048;
+	private boolean prefetchResults = true;
+	private boolean useBulkQuery = false;
 	
 	public SalesForceExecutionFactory() {
 	    // http://jira.jboss.org/jira/browse/JBEDSP-306
@@ -94,7 +96,7 @@ public class SalesForceExecutionFactory extends ExecutionFactory<ConnectionFacto
 	@Override
 	public ResultSetExecution createResultSetExecution(QueryExpression command, ExecutionContext executionContext, RuntimeMetadata metadata, SalesforceConnection connection)
 			throws TranslatorException {
-		return new QueryExecutionImpl(command, connection, metadata, executionContext);
+		return new QueryExecutionImpl(command, connection, metadata, executionContext, this);
 	}
 	
 	@Override
@@ -283,4 +285,22 @@ public class SalesForceExecutionFactory extends ExecutionFactory<ConnectionFacto
     	}
 		this.maxInsertBatchSize = maxInsertBatchSize;
 	}
+    
+    @TranslatorProperty(display="Prefetch Results", description="If true the next queryMore results, or the Bulk API result chunks, will be fetched on engine threads while the current results are processed.  Default true.", advanced=true)
+    public boolean isPrefetchResults() {
+		return prefetchResults;
+	}
+    
+    public void setPrefetchResults(boolean prefetchResults) {
+		this.prefetchResults = prefetchResults;
+	}
+    
+    @TranslatorProperty(display="Use Bulk Query", description="If true simple selects will be executed with Bulk API queries and the result chunks downloaded in parallel.  Default false.", advanced=true)
+    public boolean isUseBulkQuery() {
+		return useBulkQuery;
+	}
+    
+    public void setUseBulkQuery(boolean useBulkQuery) {
+		this.useBulkQuery = useBulkQuery;
+	}
 }
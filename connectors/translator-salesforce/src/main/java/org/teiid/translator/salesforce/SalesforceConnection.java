@@ -21,6 +21,7 @@
  */
 package org.teiid.translator.salesforce;
 
+import java.io.InputStream;
 import java.util.List;
 
 import javax.resource.ResourceException;
@@ -31,6 +32,7 @@ import org.teiid.translator.salesforce.execution.DataPayload;
 import org.teiid.translator.salesforce.execution.DeletedResult;
 import org.teiid.translator.salesforce.execution.UpdatedResult;
 
+import com.sforce.async.BatchInfo;
 import com.sforce.async.BatchResult;
 import com.sforce.async.JobInfo;
 import com.sforce.async.SObject;
@@ -67,4 +69,17 @@ public interface SalesforceConnection extends Connection {
 	public BatchResult getBulkResults(JobInfo job) throws ResourceException;
 
 	public void cancelBulkJob(JobInfo job) throws ResourceException;
+	
+	/**
+	 * Start a Bulk API query job with CSV results
+	 */
+	public BatchInfo createBulkQuery(String objectName, String query) throws ResourceException;
+	
+	/**
+	 * Get the result ids of a completed bulk query.  A {@link org.teiid.translator.DataNotAvailableException}
+	 * is thrown if the query is still in progress.
+	 */
+	public String[] getBulkQueryResults(BatchInfo batch) throws ResourceException;
+	
+	public InputStream getBulkQueryResult(BatchInfo batch, String resultId) throws ResourceException;
 }
@@ -0,0 +1,102 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.translator.salesforce.execution;
+
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A minimal reader of RFC 4180 style CSV records, as returned by Bulk API queries.
+ */
+class CSVReader {
+	
+	private Reader reader;
+	private StringBuilder value = new StringBuilder();
+	private int next = -2;
+	
+	CSVReader(Reader reader) {
+		this.reader = reader;
+	}
+	
+	private int read() throws IOException {
+		if (next != -2) {
+			int result = next;
+			next = -2;
+			return result;
+		}
+		return reader.read();
+	}
+	
+	/**
+	 * Read the next record
+	 * @return the values or null if there are no more records
+	 */
+	List<String> readRecord() throws IOException {
+		int c = read();
+		if (c == -1) {
+			return null;
+		}
+		List<String> record = new ArrayList<String>();
+		boolean quoted = false;
+		value.setLength(0);
+		while (true) {
+			if (quoted) {
+				if (c == -1) {
+					throw new IOException("Unterminated quoted value"); //$NON-NLS-1$
+				}
+				if (c == '"') {
+					c = read();
+					if (c != '"') {
+						quoted = false;
+						continue;
+					}
+				}
+				value.append((char)c);
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				record.add(value.toString());
+				value.setLength(0);
+			} else if (c == '\r' || c == '\n' || c == -1) {
+				if (c == '\r') {
+					c = read();
+					if (c != '\n') {
+						next = c;
+					}
+				}
+				record.add(value.toString());
+				return record;
+			} else {
+				value.append((char)c);
+			}
+			c = read();
+		}
+	}
+	
+	void close() throws IOException {
+		reader.close();
+	}
+
+}
@@ -21,6 +21,11 @@
  */
 package org.teiid.translator.salesforce.execution;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.util.ArrayList;
@@ -32,11 +37,18 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.resource.ResourceException;
 
+import org.teiid.core.util.ObjectConverterUtil;
 import org.teiid.core.util.TimestampWithTimezone;
 import org.teiid.language.AggregateFunction;
 import org.teiid.language.ColumnReference;
@@ -56,6 +68,7 @@ import org.teiid.translator.DataNotAvailableException;
 import org.teiid.translator.ExecutionContext;
 import org.teiid.translator.ResultSetExecution;
 import org.teiid.translator.TranslatorException;
+import org.teiid.translator.salesforce.SalesForceExecutionFactory;
 import org.teiid.translator.salesforce.SalesForcePlugin;
 import org.teiid.translator.salesforce.SalesforceConnection;
 import org.teiid.translator.salesforce.execution.visitors.JoinQueryVisitor;
@@ -64,6 +77,8 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import com.sforce.async.BatchInfo;
+import com.sforce.async.JobInfo;
 import com.sforce.soap.partner.QueryResult;
 import com.sforce.soap.partner.sobject.SObject;
 
@@ -114,7 +129,75 @@ public class QueryExecutionImpl implements ResultSetExecution {
 	
 	private Calendar cal;
 	
+	private Executor executor;
+	private boolean useBulkQuery;
+	private ConnectionTask<QueryResult> nextResults;
+	
+	private BatchInfo bulkBatch;
+	private List<ConnectionTask<File>> bulkResults;
+	private int bulkResultIndex;
+	private CSVReader bulkReader;
+	private File bulkFile;
+	private int[] bulkColumns;
+	
+	/**
+	 * Work that uses the connection on the executor.  Closing cancels the work and waits
+	 * for it if it has already started, so that the connection is not used after it is released.
+	 */
+	private static class ConnectionTask<T> extends FutureTask<T> {
+		private AtomicBoolean started = new AtomicBoolean();
+		private CountDownLatch done = new CountDownLatch(1);
+		private volatile T result;
+		
+		ConnectionTask(Callable<T> callable) {
+			super(callable);
+		}
+		
+		@Override
+		public void run() {
+			if (!started.compareAndSet(false, true)) {
+				return;
+			}
+			try {
+				super.run();
+			} finally {
+				done.countDown();
+			}
+		}
+		
+		@Override
+		protected void set(T v) {
+			this.result = v;
+			super.set(v);
+		}
+		
+		/**
+		 * Cancel with interrupt and wait for the work to stop
+		 * @return the result if the work completed
+		 */
+		T close() {
+			cancel(true);
+			if (started.compareAndSet(false, true)) {
+				return null;
+			}
+			try {
+				done.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return result;
+		}
+	}
+	
 	public QueryExecutionImpl(QueryExpression command, SalesforceConnection connection, RuntimeMetadata metadata, ExecutionContext context) {
+		this(command, connection, metadata, context, null);
+	}
+	
+	/**
+	 * @param factory if not null, the engine executor is used to prefetch results and 
+	 * bulk queries are used if enabled
+	 */
+	public QueryExecutionImpl(QueryExpression command, SalesforceConnection connection, RuntimeMetadata metadata, ExecutionContext context, SalesForceExecutionFactory factory) {
 		this.connection = connection;
 		this.metadata = metadata;
 		this.context = context;
@@ -124,14 +207,43 @@ public class QueryExecutionImpl implements ResultSetExecution {
 		connectorIdentifier = context.getConnectorIdentifier();
 		requestIdentifier = context.getRequestId();
 		partIdentifier = context.getPartIdentifier();
+		if (factory != null) {
+			if (factory.isPrefetchResults() && context.getCommandContext() != null) {
+				this.executor = context.getCommandContext().getExecutor();
+			}
+			this.useBulkQuery = factory.isUseBulkQuery();
+		}
 	}
 
 	public void cancel() throws TranslatorException {
 		LogManager.logDetail(LogConstants.CTX_CONNECTOR, SalesForcePlugin.Util.getString("SalesforceQueryExecutionImpl.cancel"));//$NON-NLS-1$
+		if (bulkBatch != null && bulkResults == null) {
+			JobInfo job = new JobInfo();
+			job.setId(bulkBatch.getJobId());
+			try {
+				connection.cancelBulkJob(job);
+			} catch (ResourceException e) {
+				throw new TranslatorException(e);
+			}
+		}
 	}
 
 	public void close() {
 		LogManager.logDetail(LogConstants.CTX_CONNECTOR, SalesForcePlugin.Util.getString("SalesforceQueryExecutionImpl.close")); //$NON-NLS-1$
+		if (nextResults != null) {
+			nextResults.close();
+			nextResults = null;
+		}
+		closeBulkReader();
+		if (bulkResults != null) {
+			for (int i = bulkResultIndex; i < bulkResults.size(); i++) {
+				File f = bulkResults.get(i).close();
+				if (f != null) {
+					f.delete();
+				}
+			}
+			bulkResults = null;
+		}
 	}
 
 	@Override
@@ -154,6 +266,11 @@ public class QueryExecutionImpl implements ResultSetExecution {
 							visitor.getTableName(), visitor.getIdInCriteria());
 				} else {
 					finalQuery = visitor.getQuery().trim();
+					if (useBulkQuery && canUseBulkQuery()) {
+						LogManager.logDetail(LogConstants.CTX_CONNECTOR,  getLogPreamble(), "Executing Bulk Query:", finalQuery); //$NON-NLS-1$
+						bulkBatch = connection.createBulkQuery(visitor.getTableName(), finalQuery);
+						return;
+					}
 					LogManager.logDetail(LogConstants.CTX_CONNECTOR,  getLogPreamble(), "Executing Query:", finalQuery); //$NON-NLS-1$
 					results = connection.query(finalQuery, this.context.getBatchSize(), visitor.getQueryAll());
 				}
@@ -166,37 +283,35 @@ public class QueryExecutionImpl implements ResultSetExecution {
 	@SuppressWarnings("unchecked")
 	@Override
 	public List next() throws TranslatorException, DataNotAvailableException {
-		List<?> result = getRow(results);
+		if (bulkBatch != null) {
+			return getBulkRow();
+		}
+		List<?> result = getRow();
 		return result;
 	}
 
-	private List<Object> getRow(QueryResult result) throws TranslatorException {
-		List<Object> row;
+	private List<Object> getRow() throws TranslatorException {
 		if(null == resultBatch) {
 			loadBatch();
 		}
-		if(resultBatch.size() == topResultIndex) {
-			row = null;
-		} else {
-			row = resultBatch.get(topResultIndex);
-			topResultIndex++;
-			if(resultBatch.size() == topResultIndex) {
-				if(!result.isDone()) {
-					loadBatch();
-				}
+		//load lazily so that a row is not lost if the next batch is not yet available
+		while (resultBatch.size() == topResultIndex) {
+			if (results.isDone()) {
+				return null;
 			}
-			
+			loadBatch();
 		}
-		return row;
+		return resultBatch.get(topResultIndex++);
 	}
 
 		private void loadBatch() throws TranslatorException {
 			try {
 				if(null != resultBatch) { // if we have an old batch, then we have to get new results
-					results = connection.queryMore(results.getQueryLocator(), context.getBatchSize());
+					results = getNextResults();
 				}
 				resultBatch = new ArrayList<List<Object>>();
 				topResultIndex = 0;
+				prefetch();
 				for(SObject sObject : results.getRecords()) {
 					List<Object[]> result = getObjectData(sObject);
 					for(Iterator<Object[]> i = result.iterator(); i.hasNext(); ) {
@@ -207,6 +322,201 @@ public class QueryExecutionImpl implements ResultSetExecution {
 				throw new TranslatorException(e);
 			}
 		}
+		
+		/**
+		 * Start the queryMore call for the next results, so that the round trip
+		 * overlaps with processing the current results
+		 */
+		private void prefetch() {
+			if (executor == null || results.isDone()) {
+				return;
+			}
+			final String locator = results.getQueryLocator();
+			nextResults = new ConnectionTask<QueryResult>(new Callable<QueryResult>() {
+				@Override
+				public QueryResult call() throws Exception {
+					try {
+						return connection.queryMore(locator, context.getBatchSize());
+					} finally {
+						context.dataAvailable();
+					}
+				}
+			});
+			executor.execute(nextResults);
+		}
+		
+		private QueryResult getNextResults() throws ResourceException, TranslatorException {
+			if (nextResults == null) {
+				return connection.queryMore(results.getQueryLocator(), context.getBatchSize());
+			}
+			if (!nextResults.isDone()) {
+				throw DataNotAvailableException.NO_POLLING;
+			}
+			ConnectionTask<QueryResult> next = nextResults;
+			nextResults = null;
+			try {
+				return next.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new TranslatorException(e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof ResourceException) {
+					throw (ResourceException)e.getCause();
+				}
+				throw new TranslatorException(e.getCause());
+			}
+		}
+		
+		/**
+		 * Bulk queries return unqualified CSV results, so they are only
+		 * used for simple projections of a single object.
+		 */
+		private boolean canUseBulkQuery() {
+			Select select = (Select)query;
+			if (visitor.getQueryAll() || select.getGroupBy() != null || select.getLimit() != null) {
+				return false;
+			}
+			for (int i = 0; i < visitor.getSelectSymbolCount(); i++) {
+				if (!(visitor.getSelectSymbolMetadata(i) instanceof ColumnReference)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		
+		private List<Object> getBulkRow() throws TranslatorException {
+			try {
+				if (bulkResults == null) {
+					String[] resultIds = connection.getBulkQueryResults(bulkBatch);
+					bulkResults = new ArrayList<ConnectionTask<File>>(resultIds.length);
+					for (String resultId : resultIds) {
+						bulkResults.add(downloadBulkResult(resultId));
+					}
+				}
+				while (true) {
+					if (bulkReader == null) {
+						if (bulkResultIndex == bulkResults.size()) {
+							return null;
+						}
+						openBulkResult(bulkResults.get(bulkResultIndex));
+						bulkResultIndex++;
+					}
+					List<String> values = bulkReader.readRecord();
+					if (values != null) {
+						return getBulkRow(values);
+					}
+					closeBulkReader();
+				}
+			} catch (ResourceException e) {
+				throw new TranslatorException(e);
+			} catch (IOException e) {
+				throw new TranslatorException(e);
+			}
+		}
+		
+		/**
+		 * Download the result to a file, in parallel with other downloads when the executor is available
+		 */
+		private ConnectionTask<File> downloadBulkResult(final String resultId) {
+			ConnectionTask<File> result = new ConnectionTask<File>(new Callable<File>() {
+				@Override
+				public File call() throws Exception {
+					try {
+						File f = File.createTempFile("teiid_sf", ".csv"); //$NON-NLS-1$ //$NON-NLS-2$
+						f.deleteOnExit();
+						try {
+							ObjectConverterUtil.write(connection.getBulkQueryResult(bulkBatch, resultId), f);
+						} catch (Exception e) {
+							f.delete();
+							throw e;
+						}
+						return f;
+					} finally {
+						context.dataAvailable();
+					}
+				}
+			});
+			if (executor != null) {
+				executor.execute(result);
+			}
+			return result;
+		}
+		
+		private void openBulkResult(ConnectionTask<File> download) throws TranslatorException, IOException {
+			if (executor == null) {
+				download.run();
+			} else if (!download.isDone()) {
+				throw DataNotAvailableException.NO_POLLING;
+			}
+			try {
+				bulkFile = download.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new TranslatorException(e);
+			} catch (ExecutionException e) {
+				throw new TranslatorException(e.getCause());
+			}
+			InputStream is = new FileInputStream(bulkFile);
+			bulkReader = new CSVReader(new InputStreamReader(is, "UTF-8")); //$NON-NLS-1$
+			List<String> header = bulkReader.readRecord();
+			if (header == null) {
+				header = new ArrayList<String>(0);
+			}
+			Map<String, Integer> headerIndexes = new HashMap<String, Integer>();
+			for (int i = 0; i < header.size(); i++) {
+				headerIndexes.put(header.get(i).toUpperCase(), i);
+			}
+			bulkColumns = new int[visitor.getSelectSymbolCount()];
+			for (int i = 0; i < bulkColumns.length; i++) {
+				Column element = ((ColumnReference)visitor.getSelectSymbolMetadata(i)).getMetadataObject();
+				//the header is the field path, which may or may not be qualified by the object name
+				Integer index = headerIndexes.get((element.getParent().getNameInSource() + '.' + element.getNameInSource()).toUpperCase());
+				if (index == null) {
+					index = headerIndexes.get(element.getNameInSource().toUpperCase());
+				}
+				if (index == null) {
+					throw new TranslatorException(SalesForcePlugin.Util.getString("SalesforceQueryExecutionImpl.missing.field")+ element.getNameInSource()); //$NON-NLS-1$
+				}
+				bulkColumns[i] = index;
+			}
+		}
+		
+		private List<Object> getBulkRow(List<String> values) throws TranslatorException {
+			List<Object> row = new ArrayList<Object>(bulkColumns.length);
+			for (int i = 0; i < bulkColumns.length; i++) {
+				String value = values.get(bulkColumns[i]);
+				if (value.isEmpty()) {
+					//the csv format does not distinguish empty from null
+					row.add(null);
+					continue;
+				}
+				Class<?> type = visitor.getSelectSymbolMetadata(i).getType();
+				if (type.equals(java.sql.Timestamp.class) || type.equals(java.sql.Time.class)) {
+					if (cal == null) {
+						cal = Calendar.getInstance();
+					}
+					row.add(parseDateTime(value, type, cal));
+				} else {
+					row.add(value);
+				}
+			}
+			return row;
+		}
+		
+		private void closeBulkReader() {
+			if (bulkReader != null) {
+				try {
+					bulkReader.close();
+				} catch (IOException e) {
+					LogManager.logDetail(LogConstants.CTX_CONNECTOR, e, "Could not close the bulk result"); //$NON-NLS-1$
+				}
+				bulkReader = null;
+			}
+			if (bulkFile != null) {
+				bulkFile.delete();
+				bulkFile = null;
+			}
+		}
 
 		private List<Object[]> getObjectData(SObject sObject) throws TranslatorException {
 			List<Object> topFields = sObject.getAny();
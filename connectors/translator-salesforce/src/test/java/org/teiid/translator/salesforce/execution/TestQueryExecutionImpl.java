@@ -24,24 +24,34 @@ package org.teiid.translator.salesforce.execution;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.Executor;
 
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.teiid.CommandContext;
 import org.teiid.cdk.api.TranslationUtility;
 import org.teiid.language.Select;
 import org.teiid.metadata.RuntimeMetadata;
 import org.teiid.query.unittest.TimestampUtil;
+import org.teiid.translator.DataNotAvailableException;
 import org.teiid.translator.ExecutionContext;
+import org.teiid.translator.salesforce.SalesForceExecutionFactory;
 import org.teiid.translator.salesforce.SalesforceConnection;
 import org.teiid.translator.salesforce.execution.visitors.TestVisitors;
 import org.w3c.dom.Element;
 
+import com.sforce.async.BatchInfo;
 import com.sforce.soap.partner.QueryResult;
 import com.sforce.soap.partner.sobject.SObject;
 
@@ -74,6 +84,106 @@ public class TestQueryExecutionImpl {
 		assertNull(qei.next());
 	}
 	
+	@Test public void testPrefetch() throws Exception {
+		Select command = (Select)translationUtility.parseCommand("select Name from Account"); //$NON-NLS-1$
+		SalesforceConnection sfc = Mockito.mock(SalesforceConnection.class);
+		QueryResult qr = new QueryResult();
+		SObject so = new SObject();
+		so.setType("Account");
+		Element elem = Mockito.mock(Element.class);
+		Mockito.stub(elem.getLocalName()).toReturn("AccountName");
+		so.getAny().add(elem);
+		qr.getRecords().add(so);
+		qr.setDone(false);
+		qr.setQueryLocator("x");
+		QueryResult finalQr = new QueryResult();
+		finalQr.getRecords().add(so);
+		finalQr.setDone(true);
+		Mockito.stub(sfc.query("SELECT Account.AccountName FROM Account", 0, false)).toReturn(qr);
+		Mockito.stub(sfc.queryMore("x", 0)).toReturn(finalQr);
+		final List<Runnable> tasks = new ArrayList<Runnable>();
+		ExecutionContext ec = getExecutionContext(tasks);
+		QueryExecutionImpl qei = new QueryExecutionImpl(command, sfc, Mockito.mock(RuntimeMetadata.class), ec, new SalesForceExecutionFactory());
+		qei.execute();
+		assertNotNull(qei.next());
+		assertEquals(1, tasks.size());
+		try {
+			qei.next();
+			fail();
+		} catch (DataNotAvailableException e) {
+			
+		}
+		tasks.get(0).run();
+		Mockito.verify(ec).dataAvailable();
+		assertNotNull(qei.next());
+		assertNull(qei.next());
+		Mockito.verify(sfc, Mockito.times(1)).queryMore("x", 0);
+	}
+	
+	private ExecutionContext getExecutionContext(final List<Runnable> tasks) {
+		ExecutionContext ec = Mockito.mock(ExecutionContext.class);
+		CommandContext cc = Mockito.mock(CommandContext.class);
+		Mockito.stub(cc.getExecutor()).toReturn(new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				tasks.add(command);
+			}
+		});
+		Mockito.stub(ec.getCommandContext()).toReturn(cc);
+		return ec;
+	}
+	
+	@Test public void testCloseCancelsPrefetch() throws Exception {
+		Select command = (Select)translationUtility.parseCommand("select Name from Account"); //$NON-NLS-1$
+		SalesforceConnection sfc = Mockito.mock(SalesforceConnection.class);
+		QueryResult qr = new QueryResult();
+		qr.setDone(false);
+		qr.setQueryLocator("x");
+		Mockito.stub(sfc.query("SELECT Account.AccountName FROM Account", 0, false)).toReturn(qr);
+		List<Runnable> tasks = new ArrayList<Runnable>();
+		QueryExecutionImpl qei = new QueryExecutionImpl(command, sfc, Mockito.mock(RuntimeMetadata.class), getExecutionContext(tasks), new SalesForceExecutionFactory());
+		qei.execute();
+		try {
+			qei.next();
+			fail();
+		} catch (DataNotAvailableException e) {
+			
+		}
+		assertEquals(1, tasks.size());
+		qei.close();
+		//the cancelled prefetch must not use the connection
+		tasks.get(0).run();
+		Mockito.verify(sfc, Mockito.never()).queryMore("x", 0);
+	}
+	
+	@Test public void testCSVReader() throws Exception {
+		CSVReader reader = new CSVReader(new StringReader("a,\"b,c\",\"d \"\"e\"\"\"\r\n\"f\ng\",,h\n"));
+		assertEquals(Arrays.asList("a", "b,c", "d \"e\""), reader.readRecord());
+		assertEquals(Arrays.asList("f\ng", "", "h"), reader.readRecord());
+		assertNull(reader.readRecord());
+	}
+	
+	@Test public void testBulkQuery() throws Exception {
+		Select command = (Select)translationUtility.parseCommand("select Name, ContactID, InitialContact from Contacts"); //$NON-NLS-1$
+		SalesforceConnection sfc = Mockito.mock(SalesforceConnection.class);
+		BatchInfo batch = new BatchInfo();
+		Mockito.stub(sfc.createBulkQuery(Mockito.eq("Contact"), Mockito.anyString())).toReturn(batch);
+		Mockito.stub(sfc.getBulkQueryResults(batch)).toReturn(new String[] {"1", "2"});
+		//the headers are mapped by the full field path
+		Mockito.stub(sfc.getBulkQueryResult(batch, "1")).toReturn(new ByteArrayInputStream("\"Contact.InitialContact\",\"Account.ContactName\",\"Contact.ContactName\",\"Contact.id\"\n\"2001-01-01T08:00:00.001Z\",\"x\",\"a, \"\"b\"\"\",\"1\"\n".getBytes("UTF-8")));
+		Mockito.stub(sfc.getBulkQueryResult(batch, "2")).toReturn(new ByteArrayInputStream("\"Contact.InitialContact\",\"Account.ContactName\",\"Contact.ContactName\",\"Contact.id\"\n\"\",\"y\",\"c\",\"2\"\n".getBytes("UTF-8")));
+		
+		SalesForceExecutionFactory sef = new SalesForceExecutionFactory();
+		sef.setUseBulkQuery(true);
+		sef.setPrefetchResults(false);
+		QueryExecutionImpl qei = new QueryExecutionImpl(command, sfc, translationUtility.createRuntimeMetadata(), Mockito.mock(ExecutionContext.class), sef);
+		qei.execute();
+		assertEquals(Arrays.asList("a, \"b\"", "1", TimestampUtil.createTimestamp(101, 0, 1, 2, 0, 0, 1000000)), qei.next());
+		assertEquals(Arrays.asList("c", "2", null), qei.next());
+		assertNull(qei.next());
+		qei.close();
+	}
+	
 	@BeforeClass static public void oneTimeSetup() {
 		TimeZone.setDefault(TimeZone.getTimeZone("GMT-06:00"));
 	}
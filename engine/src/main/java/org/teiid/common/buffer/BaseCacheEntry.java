@@ -25,6 +25,7 @@ package org.teiid.common.buffer;
 public class BaseCacheEntry {
 
 	private CacheKey key;
+	private long pendingAccess;
 
 	public BaseCacheEntry(CacheKey key) {
 		this.key = key;
@@ -51,5 +52,16 @@ public class BaseCacheEntry {
 	public CacheKey getKey() {
 		return key;
 	}
+	
+	/**
+	 * @return the clock value of the last access that was recorded, but not yet applied to the key
+	 */
+	public long getPendingAccess() {
+		return pendingAccess;
+	}
+	
+	public void setPendingAccess(long pendingAccess) {
+		this.pendingAccess = pendingAccess;
+	}
 
 }
\ No newline at end of file
@@ -39,6 +39,7 @@ import org.teiid.client.BatchSerializer;
 import org.teiid.common.buffer.LobManager.ReferenceMode;
 import org.teiid.common.buffer.SPage.SearchResult;
 import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.TeiidRuntimeException;
 import org.teiid.query.QueryPlugin;
 import org.teiid.query.processor.relational.ListNestedSortComparator;
@@ -155,6 +156,7 @@ public class STree implements Cloneable {
 			if (page.next == null) {
 				break;
 			}
+			page = page.next;
 		}
 	}
 	
@@ -174,17 +176,43 @@ public class STree implements Cloneable {
 		toFlush.setValues(toFlush.getValues());
 	}
 	
-	public void readValuesFrom(ObjectInputStream ois) throws IOException, ClassNotFoundException, TeiidComponentException {
-		int size = ois.readInt();
-		int sizeHint = this.getExpectedHeight(size);
-		batchInsert = true;
-		while (this.getRowCount() < size) {
-			List<List<Object>> batch = BatchSerializer.readBatch(ois, leafManager.getTypes());
-			for (List list : batch) {
-				this.insert(list, InsertMode.ORDERED, sizeHint);
+	public void readValuesFrom(final ObjectInputStream ois) throws IOException, ClassNotFoundException, TeiidComponentException {
+		final int size = ois.readInt();
+		//the values were written in key order, so the tree can be built bottom up
+		TupleSource ts = new TupleSource() {
+			int read;
+			List<List<Object>> batch;
+			int index;
+			
+			@Override
+			public List<?> nextTuple() throws TeiidComponentException {
+				if (read >= size) {
+					return null;
+				}
+				while (batch == null || index >= batch.size()) {
+					try {
+						batch = BatchSerializer.readBatch(ois, leafManager.getTypes());
+					} catch (IOException e) {
+						throw new TeiidComponentException(e);
+					} catch (ClassNotFoundException e) {
+						throw new TeiidComponentException(e);
+					}
+					index = 0;
+				}
+				read++;
+				return batch.get(index++);
+			}
+			
+			@Override
+			public void closeSource() {
+				
 			}
+		};
+		try {
+			bulkLoad(ts);
+		} catch (TeiidProcessingException e) {
+			throw new TeiidComponentException(e);
 		}
-		batchInsert = false;
 	}
 	
 	protected SPage findChildTail(SPage page) {
@@ -340,7 +368,86 @@ public class STree implements Cloneable {
 		}
 		return null;
 	}
-	
+
+	/**
+	 * Load an empty tree bottom up from a source that is already sorted by the key
+	 * and has no duplicate keys.  Leaf pages are filled completely and each page is
+	 * written once, so this avoids the repeated searches and page splits of an insert
+	 * per row.
+	 * @param ts
+	 * @return the number of rows loaded
+	 */
+	public int bulkLoad(TupleSource ts) throws TeiidComponentException, TeiidProcessingException {
+		if (rowCount.get() != 0 || header.length != 1) {
+			throw new AssertionError("Bulk load requires an empty tree"); //$NON-NLS-1$
+		}
+		int leafPageSize = getPageSize(true);
+		List<SPage> level = new ArrayList<SPage>();
+		List<List<?>> firstKeys = new ArrayList<List<?>>();
+		SPage page = header[0];
+		List<List<?>> values = page.getValues();
+		List<?> previous = null;
+		List<?> tuple = null;
+		int count = 0;
+		while ((tuple = ts.nextTuple()) != null) {
+			if (previous != null && comparator.compare(previous, tuple) >= 0) {
+				throw new AssertionError("Bulk load values are not in key order"); //$NON-NLS-1$
+			}
+			if (this.lobManager != null) {
+				this.lobManager.updateReferences(tuple, ReferenceMode.CREATE);
+			}
+			if (values.size() == leafPageSize) {
+				page.setValues(values);
+				level.add(page);
+				SPage next = new SPage(this, true);
+				page.next = next;
+				next.prev = page;
+				page = next;
+				values = page.getValues();
+			}
+			if (values.isEmpty()) {
+				firstKeys.add(extractKey(tuple));
+			}
+			values.add(tuple);
+			previous = tuple;
+			count++;
+		}
+		page.setValues(values);
+		level.add(page);
+		List<SPage> heads = new ArrayList<SPage>();
+		heads.add(header[0]);
+		int keyPageSize = getPageSize(false);
+		while (level.size() > 1) {
+			List<SPage> parents = new ArrayList<SPage>();
+			List<List<?>> parentKeys = new ArrayList<List<?>>();
+			SPage parent = null;
+			List<List<?>> keys = null;
+			for (int i = 0; i < level.size(); i++) {
+				if (parent == null || keys.size() == keyPageSize) {
+					SPage next = new SPage(this, false);
+					if (parent != null) {
+						parent.setValues(keys);
+						parent.next = next;
+						next.prev = parent;
+					}
+					parent = next;
+					parents.add(parent);
+					parentKeys.add(firstKeys.get(i));
+					keys = parent.getValues();
+				}
+				keys.add(firstKeys.get(i));
+				parent.children.add(level.get(i));
+			}
+			parent.setValues(keys);
+			heads.add(parents.get(0));
+			level = parents;
+			firstKeys = parentKeys;
+		}
+		header = heads.toArray(new SPage[heads.size()]);
+		rowCount.set(count);
+		return count;
+	}
+
 	public int getExpectedHeight(int sizeHint) {
 		if (sizeHint == 0) {
 			return 0;
@@ -34,6 +34,7 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -43,6 +44,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
@@ -98,6 +100,14 @@ import org.teiid.query.QueryPlugin;
  * The locking is as fine grained as possible to prevent contention.  See {@link PhysicalInfo} for
  * flags that are used when it is used as a lock.  It is important to not access the
  * group maps when a {@link PhysicalInfo} lock is held.
+ * 
+ * With write behind enabled memory entries that do not yet have a storage copy (dirty blocks) 
+ * are written to storage by a dedicated thread in eviction order, so that most evictions 
+ * only need to release memory blocks rather than perform a storage write on the processing thread.
+ * 
+ * Entries whose {@link Serializer} uses the soft cache prefer memory.  Up to a limit they are only
+ * evicted from the memory buffer when no other entry is available, which allows a direct memory buffer
+ * to hold them off heap in their compact serialized form.
  */
 public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 	
@@ -105,6 +115,8 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 	private static final int DEFAULT_MIN_DEFRAG = 1 << 26;
 	private static final byte[] HEADER_SKIP_BUFFER = new byte[16];
 	private static final int EVICTION_SCANS = 2;
+	private static final int WRITE_BEHIND_BATCH = 64;
+	private static final long WRITE_BEHIND_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
 
 	public static final int DEFAuLT_MAX_OBJECT_SIZE = 1 << 23;
 	
@@ -357,11 +369,12 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 	
 	private int maxMemoryBlocks;
 	private AtomicLong readAttempts = new AtomicLong();
-	LrfuEvictionQueue<PhysicalInfo> memoryBufferEntries = new LrfuEvictionQueue<PhysicalInfo>(readAttempts);
+	LrfuEvictionQueue<PhysicalInfo> memoryBufferEntries = new BufferedLrfuEvictionQueue<PhysicalInfo>(readAttempts);
 	private Semaphore memoryWritePermits; //prevents deadlock waiting for free blocks
 	private ReentrantReadWriteLock memoryEvictionLock = new ReentrantReadWriteLock(true);
 	private ReentrantLock freedLock = new ReentrantLock();
 	private Condition blocksFreed = freedLock.newCondition();
+	private Condition dirtyBlocksWritten = freedLock.newCondition();
 	
 	private int blocks;
 	private ConcurrentBitSet blocksInuse;
@@ -494,6 +507,37 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 	private int cleaningThreshold;
 	private int criticalCleaningThreshold;
 	
+	private boolean writeBehind;
+	private volatile ExecutorService writeBehindPool;
+	private AtomicBoolean writeBehindRunning = new AtomicBoolean();
+	//write memory entries to storage ahead of eviction
+	private final Runnable writeBehindTask = new Runnable() {
+		
+		@Override
+		public void run() {
+			try {
+				//drain to half of the threshold so that we're not constantly restarting
+				while (dirtyBlocks.get() > (writeBehindThreshold>>1)) {
+					if (writeBehind(WRITE_BEHIND_BATCH) == 0) {
+						break;
+					}
+				}
+			} finally {
+				writeBehindRunning.set(false);
+			}
+		}
+	};
+	//memory blocks that do not have a storage copy
+	private AtomicInteger dirtyBlocks = new AtomicInteger();
+	private int writeBehindThreshold;
+	private int maxDirtyBlocks;
+	private AtomicLong writeBehindWrites = new AtomicLong();
+	
+	//memory blocks held by entries that prefer memory
+	private AtomicInteger preferredBlocks = new AtomicInteger();
+	private int maxPreferredBlocks;
+	private boolean retainPreferred;
+	
 	private AtomicLong storageWrites = new AtomicLong();
 	private AtomicLong storageReads = new AtomicLong();
 	
@@ -502,6 +546,9 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 	@Override
 	public void initialize() throws TeiidComponentException {
 		storageManager.initialize();
+		if (writeBehind && writeBehindPool == null) {
+			writeBehindPool = ExecutorUtils.newFixedThreadPool(1, "FileStore Write Behind"); //$NON-NLS-1$
+		}
 		memoryBufferSpace = Math.max(memoryBufferSpace, maxStorageObjectSize);
 		blocks = (int) Math.min(Integer.MAX_VALUE, (memoryBufferSpace>>LOG_BLOCK_SIZE)*ADDRESSES_PER_BLOCK/(ADDRESSES_PER_BLOCK+1));
 		inodesInuse = new ConcurrentBitSet(blocks+1, BufferManagerImpl.CONCURRENCY_LEVEL);
@@ -515,6 +562,11 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 		//try to maintain enough freespace so that writers don't block in cleaning
 		cleaningThreshold = Math.min(maxMemoryBlocks<<4, blocks>>1);
 		criticalCleaningThreshold = Math.min(maxMemoryBlocks<<2, blocks>>2);
+		//start writing behind before the cleaner needs to evict dirty entries
+		writeBehindThreshold = Math.max(maxMemoryBlocks, blocks>>2);
+		maxDirtyBlocks = Math.max(writeBehindThreshold, blocks - cleaningThreshold);
+		//leave some room for working entries
+		maxPreferredBlocks = blocks - (blocks>>2);
 		//account for index pointer block overhead
 		if (maxMemoryBlocks > DIRECT_POINTERS) {
 			maxMemoryBlocks--;
@@ -573,6 +625,7 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 						}
 						info = new PhysicalInfo(s.getId(), entry.getId(), EMPTY_ADDRESS, (int)readAttempts.get());
 						info.adding = true;
+						info.prefersMemory = retainPreferred && s.useSoftCache();
 						map.put(entry.getId(), info);
 					}
 				}
@@ -582,16 +635,20 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 					if (info.adding) {
 						return false; //someone else is responsible for adding this cache entry
 					}
+					boolean prefersMemory = retainPreferred && s.useSoftCache();
 					if (info.evicting || info.inode != EMPTY_ADDRESS
-							|| !shouldPlaceInMemoryBuffer(0, info)) {
+							|| (!shouldPlaceInMemoryBuffer(0, info) 
+									&& !(prefersMemory && preferredBlocks.get() < maxPreferredBlocks))) {
 						return true; //safe to remove from tier 1 
 					}
+					info.prefersMemory = prefersMemory;
 					info.adding = true;
 					//second chance re-add to the cache, we assume that serialization would be faster than a disk read
 					memoryBlocks = info.memoryBlockCount;
 				}
 			}
 			checkForLowMemory();
+			checkDirtyBlocks();
 			memoryWritePermits.acquire(memoryBlocks);
 			hasPermit = true;
 			blockManager = getBlockManager(s.getId(), entry.getId(), EMPTY_ADDRESS);
@@ -609,6 +666,12 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
         				//set the size first, since it may raise an exceptional condition
             			info.setSize(bos.getBytesWritten());
             			info.inode = blockManager.getInode();
+            			if (info.block == EMPTY_ADDRESS) {
+            				dirtyBlocks.addAndGet(info.memoryBlockCount);
+            			}
+            			if (info.prefersMemory) {
+            				preferredBlocks.addAndGet(info.memoryBlockCount);
+            			}
         				memoryBufferEntries.add(info);
 					}
             		success = true;
@@ -655,6 +718,105 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 		}
 	}
 	
+	/**
+	 * Start the write behind task if needed and apply backpressure to the 
+	 * adding thread if the dirty block budget has been exceeded.
+	 */
+	private void checkDirtyBlocks() throws InterruptedException {
+		ExecutorService pool = writeBehindPool;
+		if (!writeBehind || pool == null) {
+			return;
+		}
+		if (!writeBehindRunning.get() && dirtyBlocks.get() > writeBehindThreshold && writeBehindRunning.compareAndSet(false, true)) {
+			LogManager.logDetail(LogConstants.CTX_BUFFER_MGR, "Starting memory buffer write behind"); //$NON-NLS-1$
+			pool.execute(writeBehindTask);
+		}
+		if (dirtyBlocks.get() <= maxDirtyBlocks) {
+			return;
+		}
+		//wait a bounded amount of time for the write behind thread to catch up, 
+		//if it cannot we'll fall back to synchronous eviction
+		freedLock.lock();
+		try {
+			long waitTime = WRITE_BEHIND_WAIT_NANOS;
+			while (dirtyBlocks.get() > maxDirtyBlocks && waitTime > 0) {
+				waitTime = dirtyBlocksWritten.awaitNanos(waitTime);
+			}
+		} finally {
+			freedLock.unlock();
+		}
+	}
+	
+	/**
+	 * Write the least valuable memory entries without a storage copy to storage.
+	 * The entries remain in the memory buffer, but may then be evicted without
+	 * a storage write.
+	 * @param maxEntries
+	 * @return the number of entries written
+	 */
+	int writeBehind(int maxEntries) {
+		List<PhysicalInfo> toWrite = new ArrayList<PhysicalInfo>(maxEntries);
+		Iterator<PhysicalInfo> iter = memoryBufferEntries.getEvictionQueue().iterator();
+		while (toWrite.size() < maxEntries && iter.hasNext()) {
+			PhysicalInfo info = iter.next();
+			synchronized (info) {
+				if (info.inode == EMPTY_ADDRESS || info.block != EMPTY_ADDRESS 
+						|| info.pinned || info.evicting || info.adding) {
+					continue;
+				}
+				//mark as evicting so that removal and eviction will wait for the write
+				info.evicting = true;
+			}
+			toWrite.add(info);
+		}
+		//group the writes by store so that they are as sequential as possible
+		Collections.sort(toWrite, new Comparator<PhysicalInfo>() {
+			@Override
+			public int compare(PhysicalInfo o1, PhysicalInfo o2) {
+				return o1.sizeIndex - o2.sizeIndex;
+			}
+		});
+		int written = 0;
+		for (PhysicalInfo info : toWrite) {
+			int block = EMPTY_ADDRESS;
+			try {
+				BlockManager bm = null;
+				int memoryBlockCount = 0;
+				synchronized (info) {
+					bm = getBlockManager(info.gid, info.getId(), info.inode);
+					memoryBlockCount = info.memoryBlockCount;
+				}
+				storageWrites.getAndIncrement();
+				BlockInputStream is = new BlockInputStream(bm, memoryBlockCount); 
+				block = sizeBasedStores[info.sizeIndex].writeToStorageBlock(info, is);
+			} catch (IOException e) {
+				LogManager.logError(LogConstants.CTX_BUFFER_MGR, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30016, info.getId()));
+			} finally {
+				synchronized (info) {
+					assert info.evicting && info.inode != EMPTY_ADDRESS;
+					info.evicting = false;
+					if (block != EMPTY_ADDRESS) {
+						if (LogManager.isMessageToBeRecorded(LogConstants.CTX_BUFFER_MGR, MessageLevel.DETAIL)) {
+							LogManager.logDetail(LogConstants.CTX_BUFFER_MGR, "Assigning write behind storage data block", block, "of size", sizeBasedStores[info.sizeIndex].blockSize); //$NON-NLS-1$ //$NON-NLS-2$
+						}
+						info.block = block;
+						dirtyBlocks.addAndGet(-info.memoryBlockCount);
+						written++;
+					}
+					info.notifyAll();
+				}
+			}
+		}
+		writeBehindWrites.addAndGet(written);
+		freedLock.lock();
+		try {
+			dirtyBlocksWritten.signalAll();
+		} finally {
+			freedLock.unlock();
+		}
+		return written;
+	}
+	
 	@Override
 	public PhysicalInfo lockForLoad(Long oid, Serializer<?> serializer) {
 		Map<Long, PhysicalInfo> map = physicalMapping.get(serializer.getId());
@@ -774,6 +936,9 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 			locked = false;
 		    synchronized (info) {
 		        info.inode = manager.getInode();
+		        if (info.prefersMemory) {
+		        	preferredBlocks.addAndGet(info.memoryBlockCount);
+		        }
 				memoryBufferEntries.add(info);
 				is = new BlockInputStream(manager, info.memoryBlockCount);
 			}
@@ -817,6 +982,35 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 		this.direct = direct;
 	}
 	
+	/**
+	 * Set to true to keep entries that prefer memory in the memory buffer, evicting them only as a last resort.
+	 * Should only be used with an off heap memory buffer, where the entries are not also held by soft references.
+	 * @param retainPreferred
+	 */
+	public void setRetainPreferred(boolean retainPreferred) {
+		this.retainPreferred = retainPreferred;
+	}
+	
+	public void setWriteBehind(boolean writeBehind) {
+		this.writeBehind = writeBehind;
+	}
+	
+	/**
+	 * Stop the write behind thread if one was started
+	 */
+	public void shutdown() {
+		writeBehind = false;
+		ExecutorService pool = writeBehindPool;
+		if (pool != null) {
+			writeBehindPool = null;
+			pool.shutdownNow();
+		}
+	}
+	
+	public boolean isWriteBehind() {
+		return writeBehind;
+	}
+	
 	@Override
 	public void addToCacheGroup(Long gid, Long oid) {
 		Map<Long, PhysicalInfo> map = physicalMapping.get(gid);
@@ -878,6 +1072,7 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 		int block = EMPTY_ADDRESS;
 		int memoryBlockCount;
 		int sizeIndex;
+		boolean dirty = false;
 		synchronized (info) {
 			//if we're a demotion then the free flag was already checked and set 
 			if (!demote) {
@@ -893,6 +1088,7 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 			memoryBlockCount = info.memoryBlockCount;
 			sizeIndex = info.sizeIndex;
 			if (info.inode != EMPTY_ADDRESS) {
+				dirty = block == EMPTY_ADDRESS;
 				bm = getBlockManager(info.gid, oid, info.inode);
 			} else if (demote) {
 				return EMPTY_ADDRESS;
@@ -922,6 +1118,12 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 				if (info.inode != EMPTY_ADDRESS) {
 					info.inode = EMPTY_ADDRESS;
 					memoryBufferEntries.remove(info);
+					if (dirty) {
+						dirtyBlocks.addAndGet(-memoryBlockCount);
+					}
+					if (info.prefersMemory) {
+						preferredBlocks.addAndGet(-memoryBlockCount);
+					}
 				}
 				if (block != EMPTY_ADDRESS) {
 					if (demote) {
@@ -990,6 +1192,10 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 						if (info.inode == EMPTY_ADDRESS) {
 							continue;
 						}
+						if (info.prefersMemory && (!acquire || i == 0) && preferredBlocks.get() <= maxPreferredBlocks) {
+							//only evict entries that prefer memory as a last resort
+							continue;
+						}
 						if (info.pinned || info.evicting) {
 							if (!acquire || i != EVICTION_SCANS - 1) {
 								continue;
@@ -1081,6 +1287,18 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 		return storageWrites.get();
 	}
 	
+	public long getWriteBehindWrites() {
+		return writeBehindWrites.get();
+	}
+	
+	public int getDirtyBlocks() {
+		return dirtyBlocks.get();
+	}
+	
+	public int getPreferredBlocks() {
+		return preferredBlocks.get();
+	}
+	
 	public long getMemoryBufferSpace() {
 		return memoryBufferSpace;
 	}
@@ -22,6 +22,7 @@
 
 package org.teiid.common.buffer.impl;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInput;
@@ -43,6 +44,10 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 import org.teiid.client.BatchSerializer;
 import org.teiid.client.ResizingArrayList;
@@ -54,6 +59,7 @@ import org.teiid.core.TeiidRuntimeException;
 import org.teiid.core.types.DataTypeManager;
 import org.teiid.core.types.DataTypeManager.WeakReferenceHashedValueCache;
 import org.teiid.core.types.Streamable;
+import org.teiid.core.util.AccessibleByteArrayOutputStream;
 import org.teiid.dqp.internal.process.DQPConfiguration;
 import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
@@ -149,6 +155,10 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 	 */
 	private static final long BATCH_OVERHEAD = 128;
 	
+	private static final byte UNCOMPRESSED_FORMAT = 0;
+	private static final byte COMPRESSED_FORMAT = 1;
+	private static final int COMPRESSION_BUFFER_SIZE = 1 << 13;
+	
 	final class BatchManagerImpl implements BatchManager, Serializer<List<? extends List<?>>> {
 		final Long id;
 		SizeUtility sizeUtility;
@@ -235,7 +245,22 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 		@Override
 		public List<? extends List<?>> deserialize(ObjectInput ois)
 				throws IOException, ClassNotFoundException {
-			List<? extends List<?>> batch = BatchSerializer.readBatch(ois, types);
+			List<? extends List<?>> batch = null;
+			byte format = ois.readByte();
+			if (format == COMPRESSED_FORMAT) {
+				int length = ois.readInt();
+				byte[] bytes = new byte[length];
+				ois.readFully(bytes);
+				Inflater inflater = new Inflater();
+				try {
+					ObjectInputStream in = new ObjectInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes), inflater, COMPRESSION_BUFFER_SIZE));
+					batch = BatchSerializer.readBatch(in, types);
+				} finally {
+					inflater.end();
+				}
+			} else {
+				batch = BatchSerializer.readBatch(ois, types);
+			}
 			if (lobManager != null) {
 				for (int i = batch.size() - 1; i >= 0; i--) {
 					try {
@@ -258,7 +283,12 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 			}
 			try {
 				//it's expected that the containing structure has updated the lob manager
-				BatchSerializer.writeBatch(oos, types, obj);
+				if (compressBatches) {
+					writeCompressed(obj, oos);
+				} else {
+					oos.writeByte(UNCOMPRESSED_FORMAT);
+					BatchSerializer.writeBatch(oos, types, obj);
+				}
 			} catch (RuntimeException e) {
 				//there is a chance of a concurrent persist while modifying 
 				//in which case we want to swallow this exception
@@ -268,6 +298,29 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 			}
 		}
 		
+		/**
+		 * Write the batch as a length prefixed deflated block.  Since the 
+		 * {@link BatchSerializer} format is column oriented, repeated values 
+		 * within a column are well suited to the LZ77 matching of deflate. 
+		 */
+		private void writeCompressed(List<? extends List<?>> obj,
+				ObjectOutput oos) throws IOException {
+			Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+			try {
+				AccessibleByteArrayOutputStream baos = new AccessibleByteArrayOutputStream(COMPRESSION_BUFFER_SIZE);
+				ObjectOutputStream out = new ObjectOutputStream(new DeflaterOutputStream(baos, deflater, COMPRESSION_BUFFER_SIZE));
+				BatchSerializer.writeBatch(out, types, obj);
+				out.close();
+				oos.writeByte(COMPRESSED_FORMAT);
+				oos.writeInt(baos.getCount());
+				oos.write(baos.getBuffer(), 0, baos.getCount());
+				uncompressedBatchBytes.addAndGet(deflater.getBytesRead());
+				compressedBatchBytes.addAndGet(deflater.getBytesWritten());
+			} finally {
+				deflater.end();
+			}
+		}
+		
 		public int getSizeEstimate(List<? extends List<?>> obj) {
 			return (int) Math.max(1, sizeUtility.getBatchSize(DataTypeManager.isValueCacheEnabled(), obj));
 		}
@@ -360,6 +413,8 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
     private boolean inlineLobs = true;
     private int targetBytesPerRow = TARGET_BYTES_PER_ROW;
     private int maxSoftReferences;
+    private boolean compressBatches;
+    private boolean prefersMemoryOffHeap;
 
     private ReentrantLock lock = new ReentrantLock(true);
     private Condition batchesFreed = lock.newCondition();
@@ -368,7 +423,7 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
     
     private AtomicLong readAttempts = new AtomicLong();
     //TODO: consider the size estimate in the weighting function
-    LrfuEvictionQueue<CacheEntry> evictionQueue = new LrfuEvictionQueue<CacheEntry>(readAttempts);
+    LrfuEvictionQueue<CacheEntry> evictionQueue = new BufferedLrfuEvictionQueue<CacheEntry>(readAttempts);
     ConcurrentHashMap<Long, CacheEntry> memoryEntries = new ConcurrentHashMap<Long, CacheEntry>(16, .75f, CONCURRENCY_LEVEL);
     
     private static class IntegerThreadLocal extends ThreadLocal<int[]> {
@@ -405,6 +460,8 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
     private AtomicLong readCount = new AtomicLong();
 	private AtomicLong writeCount = new AtomicLong();
 	private AtomicLong referenceHit = new AtomicLong();
+	private AtomicLong uncompressedBatchBytes = new AtomicLong();
+	private AtomicLong compressedBatchBytes = new AtomicLong();
 	
 	private static final Timer timer = new Timer("BufferManager Cleaner", true); //$NON-NLS-1$
 	
@@ -751,7 +808,7 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 			}
 		}
 		boolean result = cache.add(ce, s);
-		if (s.useSoftCache()) {
+		if (s.useSoftCache() && !prefersMemoryOffHeap) {
 			createSoftReference(ce);
 		} else if (useWeakReferences) {
 			weakReferenceCache.getValue(ce); //a get will set the value
@@ -796,7 +853,7 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 			}
 			return ce;
 		}
-		if (prefersMemory) {
+		if (prefersMemory && !prefersMemoryOffHeap) {
 			BatchSoftReference bsr = softCache.remove(batch);
 			if (bsr != null) {
 				ce = bsr.get();
@@ -1077,6 +1134,57 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 	public void setInlineLobs(boolean inlineLobs) {
 		this.inlineLobs = inlineLobs;
 	}
+	
+	/**
+	 * Set to true to rely on the cache to keep batches that prefer memory rather than
+	 * holding them on heap with soft references.  This is only appropriate if the cache
+	 * has an off heap memory buffer.
+	 * @param prefersMemoryOffHeap
+	 */
+	public void setPrefersMemoryOffHeap(boolean prefersMemoryOffHeap) {
+		this.prefersMemoryOffHeap = prefersMemoryOffHeap;
+	}
+	
+	public boolean isPrefersMemoryOffHeap() {
+		return prefersMemoryOffHeap;
+	}
+	
+	/**
+	 * Set to true to deflate batches as they are serialized to the cache.
+	 * @param compressBatches
+	 */
+	public void setCompressBatches(boolean compressBatches) {
+		this.compressBatches = compressBatches;
+	}
+	
+	public boolean isCompressBatches() {
+		return compressBatches;
+	}
+	
+	/**
+	 * @return the uncompressed serialized size of batches written with compression
+	 */
+	public long getUncompressedBatchBytes() {
+		return uncompressedBatchBytes.get();
+	}
+	
+	/**
+	 * @return the compressed serialized size of batches written with compression
+	 */
+	public long getCompressedBatchBytes() {
+		return compressedBatchBytes.get();
+	}
+	
+	/**
+	 * @return the ratio of uncompressed to compressed bytes, or 1 if nothing has been compressed
+	 */
+	public double getBatchCompressionRatio() {
+		long compressed = compressedBatchBytes.get();
+		if (compressed == 0) {
+			return 1;
+		}
+		return uncompressedBatchBytes.get()/(double)compressed;
+	}
 
 	public int getMaxReserveKB() {
 		return (int)maxReserveBytes.get()>>10;
@@ -0,0 +1,159 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.common.buffer.impl;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.teiid.common.buffer.BaseCacheEntry;
+
+/**
+ * A {@link LrfuEvictionQueue} that defers the reordering performed by touch.
+ * <br/>
+ * Accesses are recorded in striped buffers and applied to the eviction queue in 
+ * batches by whichever thread fills a buffer, so that concurrent reads don't 
+ * all contend to remove and reinsert keys in the skip list.  Recording is lossy 
+ * - if a buffer cannot accept an access the touch is performed immediately.
+ * <br/>
+ * As with the base queue callers of touch should be synchronized on the value.
+ * Buffered values are synchronized on when they are drained, which is 
+ * only attempted with a tryLock so that a thread holding a value lock 
+ * will never wait on the drain.
+ * @param <V>
+ */
+public class BufferedLrfuEvictionQueue<V extends BaseCacheEntry> extends LrfuEvictionQueue<V> {
+	
+	private static final int STRIPES = 16;
+	private static final int BUFFER_SIZE = 32;
+	
+	private static final class AccessBuffer<V> {
+		AtomicReferenceArray<V> values = new AtomicReferenceArray<V>(BUFFER_SIZE);
+		AtomicInteger count = new AtomicInteger();
+		
+		/**
+		 * @return the index the value was placed at, or -1 if the buffer is full
+		 */
+		int offer(V value) {
+			int index = count.getAndIncrement();
+			if (index >= BUFFER_SIZE) {
+				return -1;
+			}
+			values.lazySet(index, value);
+			return index;
+		}
+	}
+	
+	private AccessBuffer<V>[] buffers;
+	private ReentrantLock drainLock = new ReentrantLock();
+
+	@SuppressWarnings("unchecked")
+	public BufferedLrfuEvictionQueue(AtomicLong clock) {
+		super(clock);
+		this.buffers = new AccessBuffer[STRIPES];
+		for (int i = 0; i < buffers.length; i++) {
+			buffers[i] = new AccessBuffer<V>();
+		}
+	}
+	
+	@Override
+	public void touch(V value) {
+		long tick = clock.get();
+		//the key is not updated until the buffered access is applied, so also check the pending access
+		if (tick - MIN_INTERVAL < Math.max(value.getKey().getLastAccess(), value.getPendingAccess())) {
+			return;
+		}
+		AccessBuffer<V> buffer = buffers[(int)Thread.currentThread().getId() & (STRIPES - 1)];
+		int index = buffer.offer(value);
+		if (index == -1) {
+			super.touch(value);
+			return;
+		} 
+		value.setPendingAccess(tick);
+		if (index == BUFFER_SIZE - 1) {
+			drainBuffers();
+		}
+	}
+	
+	@Override
+	public V firstEntry(boolean poll) {
+		if (poll) {
+			drainBuffers();
+		}
+		return super.firstEntry(poll);
+	}
+	
+	@Override
+	public Collection<V> getEvictionQueue() {
+		drainBuffers();
+		return super.getEvictionQueue();
+	}
+	
+	/**
+	 * @return the number of accesses waiting to be applied
+	 */
+	int getBufferedCount() {
+		int result = 0;
+		for (AccessBuffer<V> buffer : buffers) {
+			result += Math.min(BUFFER_SIZE, buffer.count.get());
+		}
+		return result;
+	}
+	
+	/**
+	 * Apply the buffered accesses if no other thread is already doing so.
+	 */
+	void drainBuffers() {
+		if (!drainLock.tryLock()) {
+			return;
+		}
+		try {
+			for (AccessBuffer<V> buffer : buffers) {
+				int count = Math.min(BUFFER_SIZE, buffer.count.get());
+				for (int i = 0; i < count; i++) {
+					V value = buffer.values.getAndSet(i, null);
+					if (value != null) {
+						applyAccess(value);
+					}
+				}
+				//accesses recorded concurrently with the reset may be lost, which is acceptable
+				buffer.count.set(0);
+			}
+		} finally {
+			drainLock.unlock();
+		}
+	}
+
+	private void applyAccess(V value) {
+		synchronized (value) {
+			//the value may have been removed since the access was recorded
+			if (evictionQueue.remove(value.getKey()) != null) {
+				recordAccess(value);
+				evictionQueue.put(value.getKey(), value);
+			}
+		}
+	}
+	
+}
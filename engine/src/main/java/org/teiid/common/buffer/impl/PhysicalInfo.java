@@ -48,6 +48,7 @@ final class PhysicalInfo extends BaseCacheEntry {
 	boolean evicting; //indicates that the entry will be moved out of the memory buffer
 	boolean loading; //used by tier 1 cache to prevent double loads
 	boolean adding; //used to prevent double adds
+	boolean prefersMemory; //indicates that the entry should be kept in the memory buffer if possible
 	
 	PhysicalInfo(Long gid, Long id, int inode, int lastAccess) {
 		super(new CacheKey(id, lastAccess, 0));
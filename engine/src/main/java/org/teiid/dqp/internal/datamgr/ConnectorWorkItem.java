@@ -65,6 +65,7 @@ public class ConnectorWorkItem implements ConnectorWork {
     private Object connectionFactory;
     private ExecutionContextImpl securityContext;
     private volatile ResultSetExecution execution;
+    private BatchedResultSetExecution batchedExecution;
     private ProcedureBatchHandler procedureBatchHandler;
     private int expectedColumns;
         
@@ -271,6 +272,9 @@ public class ConnectorWorkItem implements ConnectorWork {
 			}
 		} else if (command instanceof QueryCommand){
 			this.execution = Assertion.isInstanceOf(exec, ResultSetExecution.class, "QueryExpression Executions are expected to be ResultSetExecutions"); //$NON-NLS-1$
+			if (exec instanceof BatchedResultSetExecution) {
+				this.batchedExecution = (BatchedResultSetExecution)exec;
+			}
 		} else {
 			Assertion.isInstanceOf(exec, UpdateExecution.class, "Update Executions are expected to be UpdateExecutions"); //$NON-NLS-1$
 			this.execution = new ResultSetExecution() {
@@ -307,6 +311,9 @@ public class ConnectorWorkItem implements ConnectorWork {
     protected AtomicResultsMessage handleBatch() throws TranslatorException {
     	Assertion.assertTrue(!this.lastBatch);
         LogManager.logDetail(LogConstants.CTX_CONNECTOR, new Object[] {this.id, "Getting results from connector"}); //$NON-NLS-1$
+        if (this.batchedExecution != null) {
+        	return handleRows(readBatch());
+        }
         int batchSize = 0;
         List<List<?>> rows = new ResizingArrayList<List<?>>(batchSize/4);
         
@@ -351,6 +358,10 @@ public class ConnectorWorkItem implements ConnectorWork {
     		//else we can just ignore the delay
     	}
                 
+        return handleRows(rows);
+    }
+    
+    private AtomicResultsMessage handleRows(List<List<?>> rows) {
         if (lastBatch) {
         	if (this.procedureBatchHandler != null) {
         		List<?> row = this.procedureBatchHandler.getParameterRow();
@@ -386,6 +397,52 @@ public class ConnectorWorkItem implements ConnectorWork {
 		return response;
 	}
     
+    /**
+     * Read the next batch of rows from a {@link BatchedResultSetExecution}
+     */
+	private List<List<?>> readBatch() throws TranslatorException {
+		int maxRows = this.requestMsg.getFetchSize();
+		int maxResultRows = this.requestMsg.getMaxResultRows();
+		boolean exceptionOnMaxRows = this.requestMsg.isExceptionOnMaxRows();
+		if (maxResultRows > 0 || (maxResultRows == 0 && exceptionOnMaxRows)) {
+			//read one past the max if we need to detect that it has been exceeded
+			maxRows = Math.max(1, Math.min(maxRows, maxResultRows - this.rowCount + (exceptionOnMaxRows?1:0)));
+		}
+		List<List<?>> rows = new ResizingArrayList<List<?>>();
+		boolean more = true;
+		try {
+			more = this.batchedExecution.nextBatch(rows, maxRows);
+		} catch (DataNotAvailableException e) {
+    		if (rows.size() == 0) {
+    			throw e;
+    		}
+    		if (e.getWaitUntil() != null) {
+    			//we have an await until that we need to enforce 
+    			this.dnae = e;
+    		}
+    		//else we can just ignore the delay and check the rows already read
+		}
+		this.rowCount += rows.size();
+		for (List<?> row : rows) {
+			if (row.size() != this.expectedColumns) {
+        		throw new AssertionError("Inproper results returned.  Expected " + this.expectedColumns + " columns, but was " + row.size()); //$NON-NLS-1$ //$NON-NLS-2$
+    		}
+		}
+		if (!more) {
+			this.lastBatch = true;
+		}
+		if (maxResultRows > -1 && !rows.isEmpty() && this.rowCount >= maxResultRows) {
+			if (this.rowCount == maxResultRows && !exceptionOnMaxRows) {
+                LogManager.logDetail(LogConstants.CTX_CONNECTOR, new Object[] {this.id, "Exceeded max, returning", maxResultRows}); //$NON-NLS-1$
+        		this.lastBatch = true;
+        	} else if (this.rowCount > maxResultRows && exceptionOnMaxRows) {
+                String msg = QueryPlugin.Util.getString("ConnectorWorker.MaxResultRowsExceed", maxResultRows); //$NON-NLS-1$
+                throw new TranslatorException(QueryPlugin.Event.TEIID30478, msg);
+            }
+		}
+		return rows;
+	}
+    
     @Override
     public boolean areLobsUsableAfterClose() {
     	return this.connector.areLobsUsableAfterClose();
@@ -23,10 +23,12 @@
 package org.teiid.dqp.internal.process;
 
 import java.io.Serializable;
+import java.util.List;
 
 import org.teiid.api.exception.query.QueryParserException;
 import org.teiid.api.exception.query.QueryResolverException;
 import org.teiid.cache.Cachable;
+import org.teiid.common.buffer.BufferManager;
 import org.teiid.common.buffer.TupleBuffer;
 import org.teiid.common.buffer.TupleBufferCache;
 import org.teiid.core.TeiidComponentException;
@@ -41,6 +43,7 @@ import org.teiid.query.parser.QueryParser;
 import org.teiid.query.processor.ProcessorPlan;
 import org.teiid.query.resolver.QueryResolver;
 import org.teiid.query.sql.lang.Command;
+import org.teiid.query.sql.symbol.Expression;
 
 
 public class CachedResults implements Serializable, Cachable {
@@ -52,6 +55,7 @@ public class CachedResults implements Serializable, Cachable {
 	private String uuid;
 	private boolean hasLobs;
 	private int rowLimit;
+	private long sizeEstimate;
 	
 	private AccessInfo accessInfo = new AccessInfo();
 	
@@ -125,4 +129,21 @@ public class CachedResults implements Serializable, Cachable {
 		this.rowLimit = rowLimit;
 	}
 	
+	/**
+	 * Get the estimated memory size in bytes of the results, or 0 if not known
+	 */
+	public long getSizeEstimate() {
+		return sizeEstimate;
+	}
+	
+	/**
+	 * Estimate the memory size of the results based upon the schema and row count
+	 * @param bufferManager
+	 */
+	public void estimateSize(BufferManager bufferManager) {
+		List<? extends Expression> schema = this.results.getSchema();
+		long rowSize = bufferManager.getSchemaSize(schema) / Math.max(1, bufferManager.getProcessorBatchSize(schema));
+		this.sizeEstimate = rowSize * this.results.getRowCount();
+	}
+	
 }
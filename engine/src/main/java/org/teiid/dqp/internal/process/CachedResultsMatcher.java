@@ -0,0 +1,213 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.dqp.internal.process;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidException;
+import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.id.IDGenerator;
+import org.teiid.dqp.internal.process.SessionAwareCache.CacheID;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
+import org.teiid.metadata.FunctionMethod.Determinism;
+import org.teiid.metadata.FunctionMethod.PushDown;
+import org.teiid.query.metadata.QueryMetadataInterface;
+import org.teiid.query.parser.ParseInfo;
+import org.teiid.query.processor.relational.ProjectNode;
+import org.teiid.query.processor.relational.RelationalNode;
+import org.teiid.query.processor.relational.RelationalPlan;
+import org.teiid.query.processor.relational.SelectNode;
+import org.teiid.query.processor.relational.TupleBufferNode;
+import org.teiid.query.rewriter.QueryRewriter;
+import org.teiid.query.sql.lang.Command;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.Query;
+import org.teiid.query.sql.lang.UnaryFromClause;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.sql.symbol.Function;
+import org.teiid.query.sql.symbol.GroupSymbol;
+import org.teiid.query.sql.symbol.WindowFunction;
+import org.teiid.query.sql.visitor.AggregateSymbolCollectorVisitor;
+import org.teiid.query.sql.visitor.ElementCollectorVisitor;
+import org.teiid.query.sql.visitor.FunctionCollectorVisitor;
+import org.teiid.query.sql.visitor.ValueIteratorProviderCollectorVisitor;
+import org.teiid.query.util.CommandContext;
+
+/**
+ * Answers a query against a single group from the cached results of a less restrictive query 
+ * against the same group.  The cached query must project plain columns and have a subset of 
+ * the conjuncts of the new query.  The remaining conjuncts and the new select clause are 
+ * then evaluated against the cached TupleBuffer rather than the sources.
+ */
+final class CachedResultsMatcher {
+	
+	private CachedResults results;
+	
+	/**
+	 * Get the group of a simple single group query without grouping, ordering, limits, etc.
+	 * @return the group or null if the command is not of that form
+	 */
+	static GroupSymbol getGroup(Command command) {
+		if (!(command instanceof Query)) {
+			return null;
+		}
+		Query query = (Query)command;
+		if (query.getIsXML() || query.getFrom() == null || query.getFrom().getClauses().size() != 1 
+				|| !(query.getFrom().getClauses().get(0) instanceof UnaryFromClause)
+				|| query.getInto() != null || query.getWith() != null || query.getSelect().isDistinct()
+				|| query.getOrderBy() != null || query.getLimit() != null || query.hasAggregates()) {
+			return null;
+		}
+		List<WindowFunction> windowFunctions = new ArrayList<WindowFunction>(1);
+		AggregateSymbolCollectorVisitor.getAggregates(query.getSelect(), null, null, null, windowFunctions, null);
+		if (!windowFunctions.isEmpty()) {
+			return null;
+		}
+		return ((UnaryFromClause)query.getFrom().getClauses().get(0)).getGroup();
+	}
+	
+	/**
+	 * @return true if the results of the command may be used to answer other queries
+	 */
+	static boolean isCandidate(Command command) {
+		if (getGroup(command) == null) {
+			return false;
+		}
+		for (Expression ex : command.getProjectedSymbols()) {
+			if (!(ex instanceof ElementSymbol)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Create a plan that answers the command from a cached result.
+	 * @return the plan or null if no cached result contains the command results
+	 */
+	RelationalPlan createPlan(Command command, SessionAwareCache<CachedResults> cache, CacheID id, 
+			QueryMetadataInterface metadata, ParseInfo parseInfo, IDGenerator idGenerator, CommandContext context) throws TeiidComponentException, TeiidProcessingException {
+		GroupSymbol group = getGroup(command);
+		if (group == null) {
+			return null;
+		}
+		if (!ValueIteratorProviderCollectorVisitor.getValueIteratorProviders(command).isEmpty()) {
+			return null;
+		}
+		//the residual work is not planned, so it must be in rewritten form and be evaluatable by the engine
+		Command rewritten = QueryRewriter.rewrite((Command)command.clone(), metadata, context);
+		if (!group.equals(getGroup(rewritten)) || requiresPushdown(rewritten)) {
+			return null;
+		}
+		Query query = (Query)rewritten;
+		List<Criteria> conjuncts = Criteria.separateCriteriaByAnd(query.getCriteria());
+		for (CacheID candidate : cache.getContainmentCandidates(id, group.getNonCorrelationName())) {
+			CachedResults cr = cache.peek(candidate);
+			if (cr == null || cr.getRowLimit() != 0) {
+				continue;
+			}
+			Command cachedCommand = null;
+			try {
+				cachedCommand = cr.getCommand(candidate.getSql(), metadata, parseInfo);
+				//rewrite a copy so that the conjuncts are compared in the same form
+				cachedCommand = QueryRewriter.rewrite((Command)cachedCommand.clone(), metadata, context);
+			} catch (TeiidException e) {
+				LogManager.logDetail(LogConstants.CTX_DQP, e, "Could not use the cached results for", candidate); //$NON-NLS-1$
+				continue;
+			}
+			if (!isCandidate(cachedCommand) || !group.equals(getGroup(cachedCommand))) {
+				continue;
+			}
+			List<Criteria> residual = new ArrayList<Criteria>(conjuncts);
+			boolean contained = true;
+			for (Criteria crit : Criteria.separateCriteriaByAnd(((Query)cachedCommand).getCriteria())) {
+				if (!residual.remove(crit)) {
+					contained = false;
+					break;
+				}
+			}
+			if (!contained) {
+				continue;
+			}
+			List<Expression> cachedCols = cachedCommand.getProjectedSymbols();
+			Collection<ElementSymbol> required = new HashSet<ElementSymbol>();
+			ElementCollectorVisitor.getElements(query.getSelect(), required);
+			ElementCollectorVisitor.getElements(residual, required);
+			if (!new LinkedHashSet<Expression>(cachedCols).containsAll(required)) {
+				continue;
+			}
+			LogManager.logDetail(LogConstants.CTX_DQP, "Answering the query from the containing cached results", candidate); //$NON-NLS-1$
+			this.results = cr;
+			if (candidate.getSessionId() != null) {
+				context.setDeterminismLevel(Determinism.SESSION_DETERMINISTIC);
+			} else if (candidate.getUserName() != null) {
+				context.setDeterminismLevel(Determinism.USER_DETERMINISTIC);
+			}
+			RelationalNode node = new TupleBufferNode(idGenerator.nextInt(), cr.getResults());
+			node.setElements(cachedCols);
+			if (!residual.isEmpty()) {
+				SelectNode select = new SelectNode(idGenerator.nextInt());
+				select.setCriteria(Criteria.combineCriteria(residual));
+				select.setElements(cachedCols);
+				select.addChild(node);
+				node = select;
+			}
+			List<Expression> projected = query.getProjectedSymbols();
+			ProjectNode project = new ProjectNode(idGenerator.nextInt());
+			project.setSelectSymbols(projected);
+			project.setElements(projected);
+			project.addChild(node);
+			RelationalPlan plan = new RelationalPlan(project);
+			plan.setOutputElements(projected);
+			return plan;
+		}
+		return null;
+	}
+	
+	/**
+	 * @return true if the command uses a function that can only be evaluated by a source
+	 */
+	static boolean requiresPushdown(Command command) {
+		for (Function function : FunctionCollectorVisitor.getFunctions(command, false)) {
+			if (function.getFunctionDescriptor().getPushdown() == PushDown.MUST_PUSHDOWN) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * @return the cached results used by the last plan created
+	 */
+	CachedResults getResults() {
+		return results;
+	}
+
+}
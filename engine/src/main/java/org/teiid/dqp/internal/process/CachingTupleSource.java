@@ -81,6 +81,7 @@ final class CachingTupleSource extends
 				}
 				CachedResults cr = new CachedResults();
 		        cr.setResults(tb, null);
+		        cr.estimateSize(this.dataTierManagerImpl.getBufferManager());
 		        if (!Boolean.FALSE.equals(cd.getUpdatable())) {
 		        	if (accessedGroups != null) {
 			        	for (GroupSymbol gs : accessedGroups) {
@@ -99,10 +100,13 @@ final class CachingTupleSource extends
 		    		switch (dtts.scope) {
 		    		case VDB:
 		    			determinismLevel = Determinism.VDB_DETERMINISTIC;
+		    			break;
 		    		case SESSION:
 		    			determinismLevel = Determinism.SESSION_DETERMINISTIC;
+		    			break;
 		    		case USER:
 		    			determinismLevel = Determinism.USER_DETERMINISTIC;
+		    			break;
 		    		}
 		    	}
 		        this.dataTierManagerImpl.requestMgr.getRsCache().put(cid, determinismLevel, cr, cd.getTtl()); 
@@ -732,6 +732,8 @@ public class DQPCore implements DQP {
 			}
 		});
         dataTierMgr.setEventDistributor(eventDistributor);
+        dataTierMgr.setLoadExecutor(this.processWorkerPool);
+        dataTierMgr.setLoadConcurrency(Math.max(1, this.config.getMaxThreads()>>3));
         //for now options are scoped to the engine - vdb scoping is a todo
         options = new Options();
         options.setProperties(System.getProperties());
@@ -663,7 +663,7 @@ public class DataTierManagerImpl implements ProcessorDataManager {
 		ConnectorManagerRepository cmr = workItem.getDqpWorkContext().getVDB().getAttachment(ConnectorManagerRepository.class);
 		ConnectorManager connectorManager = cmr.getConnectorManager(aqr.getConnectorName());
 		ConnectorWork work = connectorManager.registerRequest(aqr);
-		if (!work.isForkable()) {
+		if (!work.isForkable() || context.isSerialSourceAccess()) {
     		aqr.setSerial(true);
     	}
 		CacheID cid = null;
@@ -684,8 +684,18 @@ public class DataTierManagerImpl implements ProcessorDataManager {
 						String cmdString = command.toString();
 						if (cmdString.length() < 100000) { //TODO: this check won't be needed if keys aren't exclusively held in memory
 							cid = new CacheID(workItem.getDqpWorkContext(), ParseInfo.DEFAULT_INSTANCE, cmdString);
-							cid.setParameters(cv.parameters);
-							CachedResults cr = workItem.getRsCache().get(cid);
+							//include the source so that the same command against different sources, such as with multi-source models, is not shared
+							List<Object> params = new ArrayList<Object>(1);
+							params.add(aqr.getConnectorName());
+							if (cv.parameters != null) {
+								params.addAll(cv.parameters);
+							}
+							CachedResults cr = null;
+							if (!cid.setParameters(params)) {
+								cid = null;
+							} else {
+								cr = workItem.getRsCache().get(cid);
+							}
 							if (cr != null && (cr.getRowLimit() == 0 || (parameterObject.limit > 0 && cr.getRowLimit() >= parameterObject.limit))) {
 								parameterObject.doNotCache = true;
 								LogManager.logDetail(LogConstants.CTX_DQP, "Using cache entry for", cid); //$NON-NLS-1$
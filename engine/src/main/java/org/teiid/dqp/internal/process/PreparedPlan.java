@@ -23,6 +23,7 @@
 package org.teiid.dqp.internal.process;
 
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.teiid.cache.Cachable;
 import org.teiid.common.buffer.TupleBufferCache;
@@ -36,6 +37,12 @@ import org.teiid.query.util.CommandContext;
 
 
 public class PreparedPlan implements Cachable {
+	
+	/**
+	 * The maximum number of additional plans kept for other selectivity classes
+	 */
+	public static final int MAX_VARIANTS = 4;
+	
 	private ProcessorPlan plan;
 	private Command command;
 	private List<Reference> refs;
@@ -43,6 +50,9 @@ public class PreparedPlan implements Cachable {
 	
 	private AccessInfo accessInfo = new AccessInfo();
 	
+	private String selectivityClass;
+	private ConcurrentHashMap<String, PreparedPlan> variants;
+	
 	/**
 	 * Return the ProcessorPlan.
 	 */
@@ -108,6 +118,49 @@ public class PreparedPlan implements Cachable {
 		refs = refsValue;
 	}
 	
+	/**
+	 * Return the selectivity class of the parameter values this plan was built for, 
+	 * or null if the plan is not sensitive to the parameter values.
+	 */
+	public String getSelectivityClass() {
+		return selectivityClass;
+	}
+	
+	public void setSelectivityClass(String selectivityClass) {
+		this.selectivityClass = selectivityClass;
+	}
+	
+	/**
+	 * Return the plan built for the given selectivity class.
+	 */
+	public PreparedPlan getVariant(String selectivityClass) {
+		if (selectivityClass == null || selectivityClass.equals(this.selectivityClass)) {
+			return this;
+		}
+		if (variants == null) {
+			return null;
+		}
+		return variants.get(selectivityClass);
+	}
+	
+	/**
+	 * Add a plan for another selectivity class.
+	 * @return false if the maximum number of variants has already been reached
+	 */
+	public synchronized boolean addVariant(String selectivityClass, PreparedPlan variant) {
+		if (variants == null) {
+			variants = new ConcurrentHashMap<String, PreparedPlan>();
+		} else if (variants.size() >= MAX_VARIANTS) {
+			return variants.containsKey(selectivityClass);
+		}
+		variants.put(selectivityClass, variant);
+		return true;
+	}
+	
+	public boolean canAddVariant() {
+		return variants == null || variants.size() < MAX_VARIANTS;
+	}
+	
 	@Override
 	public AccessInfo getAccessInfo() {
 		return accessInfo;
@@ -45,18 +45,24 @@ import org.teiid.query.eval.Evaluator;
 import org.teiid.query.metadata.QueryMetadataInterface;
 import org.teiid.query.optimizer.BatchedUpdatePlanner;
 import org.teiid.query.optimizer.capabilities.SourceCapabilities;
+import org.teiid.query.optimizer.relational.rules.NewCalculateCostUtil;
+import org.teiid.query.parser.ParseInfo;
 import org.teiid.query.processor.ProcessorPlan;
 import org.teiid.query.processor.relational.AccessNode;
 import org.teiid.query.processor.relational.RelationalPlan;
 import org.teiid.query.resolver.util.ResolverUtil;
 import org.teiid.query.sql.lang.BatchedUpdateCommand;
 import org.teiid.query.sql.lang.Command;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.Criteria;
 import org.teiid.query.sql.lang.SPParameter;
 import org.teiid.query.sql.lang.StoredProcedure;
 import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.ElementSymbol;
 import org.teiid.query.sql.symbol.Expression;
 import org.teiid.query.sql.symbol.Reference;
 import org.teiid.query.sql.util.VariableContext;
+import org.teiid.query.sql.visitor.PredicateCollectorVisitor;
 import org.teiid.query.util.CommandContext;
 
 
@@ -90,21 +96,46 @@ public class PreparedStatementRequest extends Request {
 	@Override
     protected void generatePlan(boolean addLimit) throws TeiidComponentException, TeiidProcessingException {
     	String sqlQuery = requestMsg.getCommands()[0];
-    	CacheID id = new CacheID(this.workContext, Request.createParseInfo(this.requestMsg), sqlQuery);
+    	ParseInfo parseInfo = Request.createParseInfo(this.requestMsg);
+    	CacheID id = new CacheID(this.workContext, parseInfo, sqlQuery);
         prepPlan = prepPlanCache.get(id);
+        CacheID rawId = null;
+        if (prepPlan == null) {
+        	//look for an equivalent command that differs only in formatting
+        	String normalized = Request.getNormalizedCommandString(this.requestMsg, parseInfo);
+        	if (!normalized.equals(sqlQuery)) {
+        		rawId = id;
+        		id = new CacheID(this.workContext, parseInfo, normalized);
+        		prepPlan = prepPlanCache.get(id);
+        	}
+        }
         
+        PreparedPlan variantOf = null;
+        String selectivityClass = null;
         if (prepPlan != null) {
         	//already in cache. obtain the values from cache
-            analysisRecord = prepPlan.getAnalysisRecord();
-        	ProcessorPlan cachedPlan = prepPlan.getPlan();
         	this.userCommand = prepPlan.getCommand();
         	if (validateAccess(requestMsg.getCommands(), userCommand, CommandType.PREPARED)) {
         		LogManager.logDetail(LogConstants.CTX_DQP, requestId, "AuthorizationValidator indicates that the prepared plan for command will not be used"); //$NON-NLS-1$
             	prepPlan = null;
             	analysisRecord = null;
             } else {
-	        	LogManager.logTrace(LogConstants.CTX_DQP, new Object[] { "Query exist in cache: ", sqlQuery }); //$NON-NLS-1$
-	            processPlan = cachedPlan.clone();
+            	if (prepPlan.getSelectivityClass() != null && !requestMsg.isBatchedUpdate()) {
+            		//choose the plan built for values of similar selectivity
+            		selectivityClass = getSelectivityClass(this.userCommand, requestMsg.getParameterValues(), this.metadata);
+            		PreparedPlan variant = prepPlan.getVariant(selectivityClass);
+            		if (variant != null) {
+            			prepPlan = variant;
+            		} else if (prepPlan.canAddVariant()) {
+            			variantOf = prepPlan;
+            			prepPlan = null;
+            		}
+            	}
+            	if (prepPlan != null) {
+            		analysisRecord = prepPlan.getAnalysisRecord();
+		        	LogManager.logTrace(LogConstants.CTX_DQP, new Object[] { "Query exist in cache: ", sqlQuery }); //$NON-NLS-1$
+		            processPlan = prepPlan.getPlan().clone();
+            	}
             }
         }
         
@@ -112,7 +143,15 @@ public class PreparedStatementRequest extends Request {
             //if prepared plan does not exist, create one
             prepPlan = new PreparedPlan();
             LogManager.logTrace(LogConstants.CTX_DQP, new Object[] { "Query does not exist in cache: ", sqlQuery}); //$NON-NLS-1$
-            super.generatePlan(false);
+            if (!requestMsg.isBatchedUpdate()) {
+            	//allow the costing to consider the values of this binding
+            	this.context.setBoundParameterValues(requestMsg.getParameterValues());
+            }
+            try {
+            	super.generatePlan(false);
+            } finally {
+            	this.context.setBoundParameterValues(null);
+            }
         	prepPlan.setCommand(this.userCommand);
         	
         	//there's no need to cache the plan if it's a stored procedure, since we already do that in the optimizer
@@ -121,15 +160,30 @@ public class PreparedStatementRequest extends Request {
 	        // Defect 13751: Clone the plan in its current state (i.e. before processing) so that it can be used for later queries
 	        prepPlan.setPlan(cache?processPlan.clone():processPlan, this.context);
 	        prepPlan.setAnalysisRecord(analysisRecord);
+	        if (!requestMsg.isBatchedUpdate()) {
+	        	if (selectivityClass == null) {
+	        		selectivityClass = getSelectivityClass(this.userCommand, requestMsg.getParameterValues(), this.metadata);
+	        	}
+	        	prepPlan.setSelectivityClass(selectivityClass);
+	        }
 			
-	        if (cache) {
+	        if (variantOf != null) {
+	        	if (cache) {
+	        		variantOf.addVariant(selectivityClass, prepPlan);
+	        	}
+	        } else if (cache) {
 		        Determinism determinismLevel = this.context.getDeterminismLevel();
 				if (userCommand.getCacheHint() != null && userCommand.getCacheHint().getDeterminism() != null) {
 					LogManager.logTrace(LogConstants.CTX_DQP, new Object[] { "Cache hint modified the query determinism from ",this.context.getDeterminismLevel(), " to ", determinismLevel }); //$NON-NLS-1$ //$NON-NLS-2$
 					determinismLevel = userCommand.getCacheHint().getDeterminism();
 				}		        
 		        
-		        this.prepPlanCache.put(id, determinismLevel, prepPlan, userCommand.getCacheHint() != null?userCommand.getCacheHint().getTtl():null);
+		        Long ttl = userCommand.getCacheHint() != null?userCommand.getCacheHint().getTtl():null;
+		        this.prepPlanCache.put(id, determinismLevel, prepPlan, ttl);
+		        if (rawId != null) {
+		        	//also make the plan directly available to the original string
+		        	this.prepPlanCache.put(rawId, determinismLevel, prepPlan, ttl);
+		        }
 	        }
         }
         
@@ -143,6 +197,54 @@ public class PreparedStatementRequest extends Request {
         }
     }
 
+    /**
+     * Classify the selectivity of the parameter values used in range comparisons 
+     * against columns with known min/max values.
+     * @return the selectivity class or null if no comparison can be classified
+     */
+    static String getSelectivityClass(Command command, List<?> values, QueryMetadataInterface metadata) throws TeiidComponentException {
+    	if (values == null || values.isEmpty()) {
+    		return null;
+    	}
+    	StringBuilder result = null;
+    	for (Criteria crit : PredicateCollectorVisitor.getPredicates(command)) {
+    		if (!(crit instanceof CompareCriteria)) {
+    			continue;
+    		}
+    		CompareCriteria cc = (CompareCriteria)crit;
+    		if (cc.getOperator() == CompareCriteria.EQ || cc.getOperator() == CompareCriteria.NE 
+    				|| !(cc.getLeftExpression() instanceof ElementSymbol) || !(cc.getRightExpression() instanceof Reference)) {
+    			continue;
+    		}
+    		Reference ref = (Reference)cc.getRightExpression();
+    		if (!ref.isPositional() || ref.getIndex() >= values.size()) {
+    			continue;
+    		}
+    		float selectivity = NewCalculateCostUtil.getComparisonSelectivity((ElementSymbol)cc.getLeftExpression(), cc.getOperator(), values.get(ref.getIndex()), ref.getType(), metadata);
+    		if (selectivity == NewCalculateCostUtil.UNKNOWN_VALUE) {
+    			continue;
+    		}
+    		if (result == null) {
+    			result = new StringBuilder();
+    		}
+    		result.append(ref.getIndex()).append(':');
+    		if (selectivity <= .01) {
+    			result.append('0');
+    		} else if (selectivity <= .1) {
+    			result.append('1');
+    		} else if (selectivity <= .5) {
+    			result.append('2');
+    		} else {
+    			result.append('3');
+    		}
+    		result.append(' ');
+    	}
+    	if (result == null) {
+    		return null;
+    	}
+    	return result.toString();
+    }
+
     /**
      * There are two cases
      *   if 
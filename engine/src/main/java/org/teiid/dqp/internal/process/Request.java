@@ -44,6 +44,7 @@ import org.teiid.core.types.DataTypeManager;
 import org.teiid.core.util.Assertion;
 import org.teiid.dqp.internal.datamgr.ConnectorManagerRepository;
 import org.teiid.dqp.internal.process.AuthorizationValidator.CommandType;
+import org.teiid.dqp.internal.process.SessionAwareCache.CacheID;
 import org.teiid.dqp.message.RequestID;
 import org.teiid.dqp.service.TransactionContext;
 import org.teiid.dqp.service.TransactionContext.Scope;
@@ -65,6 +66,7 @@ import org.teiid.query.parser.QueryParser;
 import org.teiid.query.processor.ProcessorDataManager;
 import org.teiid.query.processor.ProcessorPlan;
 import org.teiid.query.processor.QueryProcessor;
+import org.teiid.query.processor.relational.RelationalPlan;
 import org.teiid.query.processor.xml.XMLPlan;
 import org.teiid.query.resolver.QueryResolver;
 import org.teiid.query.rewriter.QueryRewriter;
@@ -131,6 +133,9 @@ public class Request implements SecurityFunctionEvaluator {
 	private AuthorizationValidator authorizationValidator;
 	private Executor executor;
 	private Options options;
+	private SessionAwareCache<CachedResults> resultsCache;
+	private CacheID resultsCacheId;
+	CachedResults containingResults;
 
     void initialize(RequestMessage requestMsg,
                               BufferManager bufferManager,
@@ -308,6 +313,31 @@ public class Request implements SecurityFunctionEvaluator {
 		return parseInfo;
 	}
 
+	/**
+	 * Get the normalized string form of the request command for use in cache keys, so that
+	 * commands differing only in whitespace, comments, or keyword case share entries.
+	 * <br/>
+	 * The parsed command is retained on the request message so that it is not parsed again.
+	 * If the command cannot be parsed, the original string is returned.
+	 */
+	static String getNormalizedCommandString(RequestMessage requestMsg, ParseInfo parseInfo) {
+		String sql = requestMsg.getCommandString();
+		if (requestMsg.isBatchedUpdate() && !requestMsg.isPreparedStatement() && !requestMsg.isCallableStatement()) {
+			return sql;
+		}
+		Command command = (Command)requestMsg.getCommand();
+		if (command == null) {
+			try {
+				command = QueryParser.getQueryParser().parseCommand(requestMsg.getCommands()[0], parseInfo);
+			} catch (QueryParserException e) {
+				//the exception will be raised when the request is processed
+				return sql;
+			}
+			requestMsg.setCommand(command);
+		}
+		return command.toString();
+	}
+
     public static void validateWithVisitor(
         AbstractValidationVisitor visitor,
         QueryMetadataInterface metadata,
@@ -387,7 +417,7 @@ public class Request implements SecurityFunctionEvaluator {
 
         checkReferences(references);
         
-        validateAccess(requestMsg.getCommands(), command, CommandType.USER);
+        boolean modified = validateAccess(requestMsg.getCommands(), command, CommandType.USER);
         
     	this.userCommand = (Command) command.clone();
         
@@ -401,6 +431,16 @@ public class Request implements SecurityFunctionEvaluator {
 
         validateQuery(command);
         
+        if (this.resultsCache != null && !modified) {
+        	CachedResultsMatcher matcher = new CachedResultsMatcher();
+        	RelationalPlan plan = matcher.createPlan(command, this.resultsCache, this.resultsCacheId, metadata, createParseInfo(requestMsg), idGenerator, context);
+        	if (plan != null) {
+        		this.containingResults = matcher.getResults();
+        		this.processPlan = plan;
+        		return;
+        	}
+        }
+        
         command = QueryRewriter.rewrite(command, metadata, context);
         
         /*
@@ -473,6 +513,16 @@ public class Request implements SecurityFunctionEvaluator {
 		return false;
 	}
 	
+	/**
+	 * Allow the command to be answered from a cached result of a less restrictive query 
+	 * @param cache
+	 * @param id
+	 */
+	void setResultsCache(SessionAwareCache<CachedResults> cache, CacheID id) {
+		this.resultsCache = cache;
+		this.resultsCacheId = id;
+	}
+	
 	public void setExecutor(Executor executor) {
 		this.executor = executor;
 	}
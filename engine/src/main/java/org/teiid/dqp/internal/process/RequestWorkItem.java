@@ -39,6 +39,7 @@ import org.teiid.client.RequestMessage.ShowPlan;
 import org.teiid.client.ResultsMessage;
 import org.teiid.client.lob.LobChunk;
 import org.teiid.client.metadata.ParameterInfo;
+import org.teiid.client.util.ResultsFuture;
 import org.teiid.client.util.ResultsReceiver;
 import org.teiid.client.xa.XATransactionException;
 import org.teiid.common.buffer.BlockedException;
@@ -142,6 +143,8 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
     private Request request; //provides the processing plan, held on a temporary basis
     private final int processorTimeslice;
 	private CacheID cid;
+	private CacheID loadingCacheId;
+	private boolean waitedForLoad;
 	private final TransactionService transactionService;
 	private final DQPWorkContext dqpWorkContext;
 	boolean active;
@@ -442,6 +445,7 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 		int rowcount = -1;
 		try {
 			cancelCancelTask();
+			endCacheLoad();
 			if (this.resultsBuffer != null) {
 				if (this.processor != null) {
 					this.processor.closeProcessing();
@@ -535,7 +539,7 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 				LogManager.logDetail(LogConstants.CTX_DQP, requestID, "Non-cachable command."); //$NON-NLS-1$
 			} else {
 				ParseInfo pi = Request.createParseInfo(requestMsg);
-				cacheId = new CacheID(this.dqpWorkContext, pi, requestMsg.getCommandString());
+				cacheId = new CacheID(this.dqpWorkContext, pi, Request.getNormalizedCommandString(requestMsg, pi));
 		    	cachable = cacheId.setParameters(requestMsg.getParameterValues());
 				if (cachable) {
 					//allow cache to be transactionally aware
@@ -559,6 +563,27 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 						}
 						LogManager.logDetail(LogConstants.CTX_DQP, requestID, "Cached result command to be modified, will not use the cached results", cacheId); //$NON-NLS-1$
 					} 
+					if (!requestMsg.isPreparedStatement() && !requestMsg.isCallableStatement()) {
+						request.setResultsCache(rsCache, cacheId);
+					}
+					if (this.transactionState != TransactionState.ACTIVE) {
+						ResultsFuture<Void> loading = rsCache.startLoad(cacheId);
+						if (loading == null) {
+							this.loadingCacheId = cacheId;
+						} else if (!this.waitedForLoad) {
+							//an identical request is already executing, wait for it then check the cache again
+							this.waitedForLoad = true;
+							this.state = ProcessingState.NEW;
+							LogManager.logDetail(LogConstants.CTX_DQP, requestID, "Waiting for a concurrent request to populate the cache", cacheId); //$NON-NLS-1$
+							loading.addCompletionListener(new ResultsFuture.CompletionListener<Void>() {
+								@Override
+								public void onCompletion(ResultsFuture<Void> future) {
+									moreWork();
+								}
+							});
+							throw BlockedException.block(requestID, "Blocking on a concurrent cache load", cacheId); //$NON-NLS-1$
+						}
+					}
 				} else {
 					LogManager.logDetail(LogConstants.CTX_DQP, requestID, "Parameters are not serializable - cache cannot be used for", cacheId); //$NON-NLS-1$
 				}
@@ -574,6 +599,12 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
         	this.cid = cacheId;
         	//turn on the collection of data objects used
         	request.processor.getContext().setDataObjects(new HashSet<Object>(4));
+        	if (request.containingResults != null) {
+        		//the results depend upon the same objects as the results they were computed from
+        		request.processor.getContext().getDataObjects().addAll(request.containingResults.getAccessInfo().getObjectsAccessed());
+        	}
+        } else {
+        	endCacheLoad();
         }
 		processor = request.processor;
 		this.dqpCore.logMMCommand(this, Event.PLAN, null);
@@ -633,6 +664,7 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 		    doneProducingBatches();
             resultsBuffer.close();
             this.cid = null;
+            endCacheLoad();
 		}
 	    this.returnsUpdateCount = request.returnsUpdateCount;
 	    if (this.returnsUpdateCount && this.requestMsg.getRequestOptions().isContinuous()) {
@@ -666,6 +698,7 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
     	CachedResults cr = new CachedResults();
     	cr.setCommand(originalCommand);
         cr.setResults(resultsBuffer, processor.getProcessorPlan());
+        cr.estimateSize(processor.getBufferManager());
         if (requestMsg.getRowLimit() > 0 && resultsBuffer.getRowCount() == requestMsg.getRowLimit()) {
         	cr.setRowLimit(resultsBuffer.getRowCount());
         }
@@ -687,6 +720,20 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 			LogManager.logInfo(LogConstants.CTX_DQP, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30008, originalCommand));
 		}
         dqpCore.getRsCache().put(cid, determinismLevel, cr, originalCommand.getCacheHint() != null?originalCommand.getCacheHint().getTtl():null);
+        if (cr.getRowLimit() == 0 && CachedResultsMatcher.isCandidate(originalCommand)) {
+        	dqpCore.getRsCache().addContainmentCandidate(cid, CachedResultsMatcher.getGroup(originalCommand).getNonCorrelationName());
+        }
+        endCacheLoad();
+	}
+	
+	/**
+	 * Allow any requests waiting on this request to populate the cache to proceed
+	 */
+	private void endCacheLoad() {
+		if (this.loadingCacheId != null) {
+			dqpCore.getRsCache().endLoad(this.loadingCacheId);
+			this.loadingCacheId = null;
+		}
 	}
 	
 	public SessionAwareCache<CachedResults> getRsCache() {
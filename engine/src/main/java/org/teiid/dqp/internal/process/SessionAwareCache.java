@@ -24,15 +24,23 @@ package org.teiid.dqp.internal.process;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.teiid.adminapi.Admin;
 import org.teiid.cache.Cachable;
 import org.teiid.cache.Cache;
 import org.teiid.cache.CacheFactory;
+import org.teiid.client.util.ResultsFuture;
 import org.teiid.common.buffer.TupleBufferCache;
 import org.teiid.core.util.Assertion;
 import org.teiid.core.util.EquivalenceUtil;
@@ -50,6 +58,7 @@ import org.teiid.vdb.runtime.VDBKey;
 public class SessionAwareCache<T> {
 	public static final String REPL = "-repl"; //$NON-NLS-1$
 	public static final int DEFAULT_MAX_SIZE_TOTAL = 512;
+	private static final int MAX_CONTAINMENT_CANDIDATES = 16;
 	public enum Type {
 		RESULTSET,
 		PREPAREDPLAN;
@@ -67,6 +76,37 @@ public class SessionAwareCache<T> {
 	
 	private TupleBufferCache bufferManager;
 	
+	private ConcurrentHashMap<List<?>, ResultsFuture<Void>> loading = new ConcurrentHashMap<List<?>, ResultsFuture<Void>>();
+	
+	private static class EntryWeight implements Comparable<EntryWeight> {
+		CacheID id;
+		long size;
+		int hits;
+		long seq;
+		
+		double getValue() {
+			return (hits + 1) / (double)Math.max(1, size);
+		}
+		
+		@Override
+		public int compareTo(EntryWeight o) {
+			int result = Double.compare(getValue(), o.getValue());
+			if (result != 0) {
+				return result;
+			}
+			return seq < o.seq ? -1 : (seq > o.seq ? 1 : 0);
+		}
+	}
+	
+	private long maxSizeBytes = -1;
+	private long totalSize;
+	private long weightSeq;
+	private Map<CacheID, EntryWeight> weights = new HashMap<CacheID, EntryWeight>();
+	//ordered from the least to the most valuable entry
+	private TreeSet<EntryWeight> weightOrder = new TreeSet<EntryWeight>();
+	
+	private Map<List<?>, LinkedList<CacheID>> containmentCandidates = new HashMap<List<?>, LinkedList<CacheID>>();
+	
 	public SessionAwareCache (String cacheName, final CacheFactory cacheFactory, final Type type, int maxStaleness) {
 		assert (cacheFactory != null);
 		
@@ -89,8 +129,22 @@ public class SessionAwareCache<T> {
 	}	
 	
 	public T get(CacheID id){
-
-		this.totalRequests.getAndIncrement();
+		return get(id, true);
+	}
+	
+	/**
+	 * Get the entry without counting the lookup as a request or hit 
+	 * @param id
+	 * @return the entry or null if it does not exist or is no longer valid
+	 */
+	public T peek(CacheID id) {
+		return get(id, false);
+	}
+	
+	private T get(CacheID id, boolean countRequest) {
+		if (countRequest) {
+			this.totalRequests.getAndIncrement();
+		}
 		
 		id.setSessionId(id.originalSessionId);
 		T result = localCache.get(id);
@@ -120,17 +174,26 @@ public class SessionAwareCache<T> {
 				AccessInfo info = c.getAccessInfo();
 				if (info != null && !info.validate(type == Type.RESULTSET, modTime)) {
 					LogManager.logTrace(LogConstants.CTX_DQP, "Invalidating cache entry", id); //$NON-NLS-1$
-					if (id.getSessionId() == null) {
-						this.distributedCache.remove(id);
-					} else {
-						this.localCache.remove(id);
-					}
+					remove(id);
 					return null;
 				}
 			}
+			if (!countRequest) {
+				return result;
+			}
 			LogManager.logTrace(LogConstants.CTX_DQP, "Cache hit for", id); //$NON-NLS-1$
 			cacheHit.getAndIncrement();
-		} else {
+			if (this.maxSizeBytes >= 0) {
+				synchronized (weights) {
+					EntryWeight weight = weights.get(id);
+					if (weight != null) {
+						weightOrder.remove(weight);
+						weight.hits++;
+						weightOrder.add(weight);
+					}
+				}
+			}
+		} else if (countRequest) {
 			LogManager.logTrace(LogConstants.CTX_DQP, "Cache miss for", id); //$NON-NLS-1$
 		}
 		return result;
@@ -185,6 +248,111 @@ public class SessionAwareCache<T> {
 				this.distributedCache.put(id, t, ttl);
 			}
 		}
+		if (this.maxSizeBytes >= 0 && t instanceof CachedResults) {
+			addWeight(id, ((CachedResults)t).getSizeEstimate());
+		}
+	}
+	
+	private void remove(CacheID id) {
+		if (id.getSessionId() == null) {
+			this.distributedCache.remove(id);
+		} else {
+			this.localCache.remove(id);
+		}
+		removeWeight(id);
+	}
+	
+	private void removeWeight(CacheID id) {
+		synchronized (weights) {
+			EntryWeight weight = weights.remove(id);
+			if (weight != null) {
+				weightOrder.remove(weight);
+				totalSize -= weight.size;
+			}
+		}
+	}
+	
+	/**
+	 * Track the size of the new entry and evict entries until the total size is within
+	 * the max.  Entries with the fewest hits relative to their size are evicted first, so that
+	 * a single large result cannot displace many small frequently used results.  The new 
+	 * entry is not itself a candidate for eviction.
+	 */
+	private void addWeight(CacheID id, long size) {
+		int entries = getTotalCacheEntries();
+		EntryWeight weight = new EntryWeight();
+		weight.id = id.copy();
+		weight.size = size;
+		boolean prune = false;
+		synchronized (weights) {
+			weight.seq = weightSeq++;
+			EntryWeight old = weights.put(weight.id, weight);
+			if (old != null) {
+				weightOrder.remove(old);
+				totalSize -= old.size;
+			}
+			weightOrder.add(weight);
+			totalSize += size;
+			if (totalSize <= maxSizeBytes) {
+				return;
+			}
+			prune = weights.size() > entries;
+		}
+		if (prune) {
+			//stop tracking entries that the cache has already expired before choosing victims
+			pruneWeights();
+		}
+		List<CacheID> toEvict = new ArrayList<CacheID>();
+		synchronized (weights) {
+			for (Iterator<EntryWeight> iter = weightOrder.iterator(); totalSize > maxSizeBytes && iter.hasNext();) {
+				EntryWeight victim = iter.next();
+				if (victim == weight) {
+					continue;
+				}
+				iter.remove();
+				weights.remove(victim.id);
+				totalSize -= victim.size;
+				toEvict.add(victim.id);
+			}
+		}
+		for (CacheID victim : toEvict) {
+			LogManager.logDetail(LogConstants.CTX_DQP, "Evicting cache entry to stay within the max size", victim); //$NON-NLS-1$
+			remove(victim);
+		}
+	}
+	
+	/**
+	 * remove the tracking of entries that have already expired or been evicted.
+	 * The underlying caches are not accessed while holding the weights lock.
+	 */
+	private void pruneWeights() {
+		List<CacheID> ids = null;
+		synchronized (weights) {
+			ids = new ArrayList<CacheID>(weights.keySet());
+		}
+		for (CacheID key : ids) {
+			if ((key.getSessionId() == null?distributedCache:localCache).get(key) == null) {
+				removeWeight(key);
+			}
+		}
+	}
+	
+	/**
+	 * Set the max estimated size of the cached entries in bytes.  
+	 * A negative value, the default, means that entries are not limited by size.
+	 * @param maxSizeBytes
+	 */
+	public void setMaxSizeBytes(long maxSizeBytes) {
+		this.maxSizeBytes = maxSizeBytes;
+	}
+	
+	/**
+	 * Get the estimated memory size in bytes of the cached entries.
+	 */
+	public long getTotalSizeEstimate() {
+		synchronized (weights) {
+			return totalSize;
+		}
 	}
 	
 	/**
@@ -194,6 +362,14 @@ public class SessionAwareCache<T> {
 	public void clearAll(){
 		this.localCache.clear();
 		this.distributedCache.clear();
+		synchronized (weights) {
+			this.weights.clear();
+			this.weightOrder.clear();
+			this.totalSize = 0;
+		}
+		synchronized (containmentCandidates) {
+			this.containmentCandidates.clear();
+		}
 		this.totalRequests.set(0);
 		this.cacheHit.set(0);
 		this.cachePuts.set(0);
@@ -202,6 +378,71 @@ public class SessionAwareCache<T> {
 	public void clearForVDB(String vdbName, int version) {
 		clearCache(this.localCache, vdbName, version);
 		clearCache(this.distributedCache, vdbName, version);
+		VDBKey vdbKey = new VDBKey(vdbName, version);
+		synchronized (containmentCandidates) {
+			for (Iterator<List<?>> iter = containmentCandidates.keySet().iterator(); iter.hasNext();) {
+				if (iter.next().get(0).equals(vdbKey)) {
+					iter.remove();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Register the entry for the given id as a candidate for answering more restrictive
+	 * queries against the given group.  Only the most recent entries for each group are retained.
+	 * @param id
+	 * @param groupName
+	 */
+	public void addContainmentCandidate(CacheID id, String groupName) {
+		if (id.parameters != null) {
+			return;
+		}
+		List<?> key = Arrays.asList(id.vdbInfo, groupName.toUpperCase());
+		CacheID copy = id.copy();
+		synchronized (containmentCandidates) {
+			LinkedList<CacheID> ids = containmentCandidates.get(key);
+			if (ids == null) {
+				ids = new LinkedList<CacheID>();
+				containmentCandidates.put(key, ids);
+			}
+			ids.remove(copy);
+			ids.addFirst(copy);
+			if (ids.size() > MAX_CONTAINMENT_CANDIDATES) {
+				ids.removeLast();
+			}
+		}
+	}
+	
+	/**
+	 * Get the ids of the candidate entries for the given group that are visible to the 
+	 * session and user of the given id.  The results are copies that may be used with {@link #peek(CacheID)},
+	 * which will also determine if the entry is still valid.
+	 * @param id
+	 * @param groupName
+	 * @return the candidate ids, most recently added first
+	 */
+	public List<CacheID> getContainmentCandidates(CacheID id, String groupName) {
+		List<?> key = Arrays.asList(id.vdbInfo, groupName.toUpperCase());
+		List<CacheID> result = new ArrayList<CacheID>();
+		synchronized (containmentCandidates) {
+			LinkedList<CacheID> ids = containmentCandidates.get(key);
+			if (ids == null) {
+				return result;
+			}
+			for (CacheID candidate : ids) {
+				if (candidate.ansiIdentifiers != id.ansiIdentifiers 
+						|| (candidate.sessionId != null && !candidate.sessionId.equals(id.originalSessionId))
+						|| (candidate.userName != null && !candidate.userName.equals(id.originalUserName))) {
+					continue;
+				}
+				CacheID copy = candidate.copy();
+				copy.originalSessionId = id.originalSessionId;
+				copy.originalUserName = id.originalUserName;
+				result.add(copy);
+			}
+		}
+		return result;
 	}
 	
 	private void clearCache(Cache<CacheID, T> cache, String vdbName, int version) {
@@ -210,10 +451,34 @@ public class SessionAwareCache<T> {
 		for (CacheID key:keys) {
 			if (key.vdbInfo.equals(vdbKey)) {
 				cache.remove(key);
+				removeWeight(key);
 			}
 		}
 	}
 	
+	/**
+	 * Register the caller as the loader of the entry for the given id, so that
+	 * concurrent requests for the same entry can wait rather than also loading it.
+	 * @param id
+	 * @return null if the caller should load the entry, otherwise a future that
+	 * will be completed when the current loader has finished
+	 */
+	public ResultsFuture<Void> startLoad(CacheID id) {
+		return this.loading.putIfAbsent(id.getLoadKey(), new ResultsFuture<Void>());
+	}
+	
+	/**
+	 * Called by the loader of the entry for the given id when it is done, whether or
+	 * not the entry was added to the cache.
+	 * @param id
+	 */
+	public void endLoad(CacheID id) {
+		ResultsFuture<Void> future = this.loading.remove(id.getLoadKey());
+		if (future != null) {
+			future.getResultsReceiver().receiveResults(null);
+		}
+	}
+	
 	public static class CacheID implements Serializable {
 		private static final long serialVersionUID = 8261905111156764744L;
 		private String sql;
@@ -225,6 +490,10 @@ public class SessionAwareCache<T> {
 		private String userName;
 		private String originalUserName;
 		
+		private CacheID() {
+			
+		}
+		
 		public CacheID(DQPWorkContext context, ParseInfo pi, String sql){
 			this(pi, sql, context.getVdbName(), context.getVdbVersion(), context.getSessionId(), context.getUserName());
 		}
@@ -243,6 +512,10 @@ public class SessionAwareCache<T> {
 			return sessionId;
 		}
 		
+		public String getSql() {
+			return sql;
+		}
+		
 		public String getUserName() {
 			return userName;
 		}
@@ -281,6 +554,26 @@ public class SessionAwareCache<T> {
 			return vdbInfo;
 		}
 						
+		CacheID copy() {
+			CacheID result = new CacheID();
+			result.sql = this.sql;
+			result.vdbInfo = this.vdbInfo;
+			result.ansiIdentifiers = this.ansiIdentifiers;
+			result.sessionId = this.sessionId;
+			result.originalSessionId = this.originalSessionId;
+			result.parameters = this.parameters;
+			result.userName = this.userName;
+			result.originalUserName = this.originalUserName;
+			return result;
+		}
+		
+		/**
+		 * @return a key that does not depend upon the session/user scoping
+		 */
+		List<?> getLoadKey() {
+			return Arrays.asList(vdbInfo, sql, ansiIdentifiers, parameters);
+		}
+		
 		public boolean equals(Object obj){
 	        if(obj == this) {
 	            return true;
@@ -548,5 +548,6 @@ public class QueryPlugin { // extends Plugin {
     	TEIID31133, 
     	TEIID31134,
     	TEIID31135,
+    	TEIID31136,
 	}
 }
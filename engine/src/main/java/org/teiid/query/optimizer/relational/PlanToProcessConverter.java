@@ -22,6 +22,7 @@
 
 package org.teiid.query.optimizer.relational;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -29,6 +30,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -45,10 +47,12 @@ import org.teiid.core.types.DataTypeManager;
 import org.teiid.core.util.Assertion;
 import org.teiid.dqp.internal.process.multisource.MultiSourceElementReplacementVisitor;
 import org.teiid.language.SQLConstants.NonReserved;
+import org.teiid.metadata.AbstractMetadataRecord;
 import org.teiid.metadata.FunctionMethod.Determinism;
 import org.teiid.query.QueryPlugin;
 import org.teiid.query.analysis.AnalysisRecord;
 import org.teiid.query.metadata.QueryMetadataInterface;
+import org.teiid.query.metadata.SupportConstants;
 import org.teiid.query.metadata.TempMetadataAdapter;
 import org.teiid.query.metadata.TempMetadataID;
 import org.teiid.query.optimizer.capabilities.CapabilitiesFinder;
@@ -59,6 +63,7 @@ import org.teiid.query.optimizer.relational.plantree.NodeConstants.Info;
 import org.teiid.query.optimizer.relational.plantree.PlanNode;
 import org.teiid.query.optimizer.relational.rules.CapabilitiesUtil;
 import org.teiid.query.optimizer.relational.rules.FrameUtil;
+import org.teiid.query.optimizer.relational.rules.NewCalculateCostUtil;
 import org.teiid.query.optimizer.relational.rules.RuleAssignOutputElements;
 import org.teiid.query.optimizer.relational.rules.RuleChooseJoinStrategy;
 import org.teiid.query.processor.ProcessorPlan;
@@ -82,6 +87,7 @@ import org.teiid.query.sql.symbol.ExpressionSymbol;
 import org.teiid.query.sql.symbol.GroupSymbol;
 import org.teiid.query.sql.symbol.WindowFunction;
 import org.teiid.query.sql.util.SymbolMap;
+import org.teiid.query.sql.visitor.ElementCollectorVisitor;
 import org.teiid.query.sql.visitor.EvaluatableVisitor;
 import org.teiid.query.sql.visitor.EvaluatableVisitor.EvaluationLevel;
 import org.teiid.query.sql.visitor.GroupCollectorVisitor;
@@ -99,6 +105,20 @@ public class PlanToProcessConverter {
 	private CommandContext context;
 	private static AtomicInteger sharedId = new AtomicInteger();
 	
+	/**
+	 * Table extension property naming an integral column to range partition pushed scans on
+	 */
+	public static final String PARTITION_COLUMN = AbstractMetadataRecord.RELATIONAL_URI + "partition-column"; //$NON-NLS-1$
+	/**
+	 * Table extension property for the number of partitions to read in parallel
+	 */
+	public static final String PARTITION_COUNT = AbstractMetadataRecord.RELATIONAL_URI + "partition-count"; //$NON-NLS-1$
+	static final int DEFAULT_PARTITION_COUNT = 4;
+	/**
+	 * The minimum estimated number of rows for each partition of a restricted scan
+	 */
+	static final int MIN_PARTITION_CARDINALITY = 1000;
+	
 	public static class SharedStateKey {
 		int id;
 		int expectedReaders;
@@ -407,8 +427,14 @@ public class PlanToProcessConverter {
 	                    if (!aNode.isShouldEvaluate()) {
 	                    	aNode.minimizeProject(command);
 	                    }
-	                    //check if valid to share this with other nodes
-	                    if (ev != null && ev.getDeterminismLevel().compareTo(Determinism.COMMAND_DETERMINISTIC) >= 0 && command.areResultsCachable()) {
+	                    RelationalNode partitioned = null;
+	                    if (processNode == aNode && aNode.getClass() == AccessNode.class) {
+	                    	partitioned = partitionSourceQuery(node, aNode);
+	                    }
+	                    if (partitioned != null) {
+	                    	processNode = partitioned;
+	                    } else if (ev != null && ev.getDeterminismLevel().compareTo(Determinism.COMMAND_DETERMINISTIC) >= 0 && command.areResultsCachable()) {
+	                    	//check if valid to share this with other nodes
 	                    	checkForSharedSourceCommand(aNode);
 	                    }
                     }
@@ -806,6 +832,140 @@ public class PlanToProcessConverter {
         }
     }
 
+	/**
+	 * Split a simple scan of a table that declares a partition column into range partitions
+	 * that are read in parallel through a union.  Only unrestricted scans or scans estimated 
+	 * to return enough rows are split, and never if there is already criteria on the partition column.
+	 * @return the union or null if the query should not be partitioned
+	 */
+	private RelationalNode partitionSourceQuery(PlanNode node, AccessNode accessNode) throws TeiidComponentException, TeiidProcessingException {
+		if (!(accessNode.getCommand() instanceof Query) || accessNode.getModelId() == null) {
+			return null;
+		}
+		Query query = (Query)accessNode.getCommand();
+		if (query.getInto() != null || query.hasAggregates() || query.getSelect().isDistinct() || query.getOrderBy() != null 
+				|| query.getLimit() != null || query.getWith() != null || query.getFrom() == null || query.getFrom().getClauses().size() != 1 
+				|| !(query.getFrom().getClauses().get(0) instanceof UnaryFromClause)) {
+			return null;
+		}
+		GroupSymbol group = ((UnaryFromClause)query.getFrom().getClauses().get(0)).getGroup();
+		if (group.getMetadataID() instanceof TempMetadataID || group.isProcedure()) {
+			return null;
+		}
+		Properties props = metadata.getExtensionProperties(group.getMetadataID());
+		if (props == null) {
+			return null;
+		}
+		String columnName = props.getProperty(PARTITION_COLUMN);
+		if (columnName == null) {
+			return null;
+		}
+		int partitions = DEFAULT_PARTITION_COUNT;
+		String count = props.getProperty(PARTITION_COUNT);
+		if (count != null) {
+			try {
+				partitions = Integer.parseInt(count);
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+		if (partitions < 2) {
+			return null;
+		}
+		Object elementID = null;
+		for (Object id : metadata.getElementIDsInGroupID(group.getMetadataID())) {
+			if (metadata.getName(id).equalsIgnoreCase(columnName)) {
+				elementID = id;
+				break;
+			}
+		}
+		if (elementID == null) {
+			return null;
+		}
+		if (query.getCriteria() != null) {
+			for (ElementSymbol es : ElementCollectorVisitor.getElements(query.getCriteria(), true)) {
+				if (elementID.equals(es.getMetadataID())) {
+					return null;
+				}
+			}
+		}
+		Number cardinality = (Number)node.getProperty(NodeConstants.Info.EST_CARDINALITY);
+		if (cardinality == null || cardinality.floatValue() == NewCalculateCostUtil.UNKNOWN_VALUE) {
+			if (query.getCriteria() != null) {
+				return null;
+			}
+			cardinality = metadata.getCardinality(group.getMetadataID());
+		}
+		if (cardinality.floatValue() != QueryMetadataInterface.UNKNOWN_CARDINALITY && cardinality.floatValue() < partitions * MIN_PARTITION_CARDINALITY) {
+			return null;
+		}
+		Class<?> type = DataTypeManager.getDataTypeClass(metadata.getElementType(elementID));
+		if (type != DataTypeManager.DefaultDataClasses.INTEGER && type != DataTypeManager.DefaultDataClasses.LONG
+				&& type != DataTypeManager.DefaultDataClasses.SHORT && type != DataTypeManager.DefaultDataClasses.BIG_INTEGER) {
+			return null;
+		}
+		Object min = metadata.getMinimumValue(elementID);
+		Object max = metadata.getMaximumValue(elementID);
+		if (min == null || max == null) {
+			return null;
+		}
+		BigInteger minValue = null;
+		BigInteger maxValue = null;
+		try {
+			minValue = new BigInteger(min.toString());
+			maxValue = new BigInteger(max.toString());
+		} catch (NumberFormatException e) {
+			return null;
+		}
+		BigInteger range = maxValue.subtract(minValue).add(BigInteger.ONE);
+		if (range.compareTo(BigInteger.valueOf(partitions)) < 0) {
+			return null;
+		}
+		boolean nullable = metadata.elementSupports(elementID, SupportConstants.Element.NULL);
+		Object modelID = accessNode.getModelId();
+		if (!CapabilitiesUtil.supports(Capability.CRITERIA_COMPARE_ORDERED, modelID, metadata, capFinder)
+				|| (nullable && !CapabilitiesUtil.supports(Capability.CRITERIA_ISNULL, modelID, metadata, capFinder))) {
+			return null;
+		}
+		ElementSymbol partitionColumn = new ElementSymbol(metadata.getName(elementID), group.clone());
+		partitionColumn.setMetadataID(elementID);
+		partitionColumn.setType(type);
+		
+		List<Criteria> partitionCriteria = new ArrayList<Criteria>(partitions + 1);
+		Constant lower = null;
+		for (int i = 1; i <= partitions; i++) {
+			Constant upper = null;
+			if (i < partitions) {
+				BigInteger bound = minValue.add(range.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(partitions)));
+				upper = new Constant(DataTypeManager.transformValue(bound, type), type);
+			}
+			Criteria crit = null;
+			if (lower != null) {
+				crit = new CompareCriteria(partitionColumn.clone(), CompareCriteria.GE, lower);
+			}
+			if (upper != null) {
+				crit = Criteria.combineCriteria(crit, new CompareCriteria(partitionColumn.clone(), CompareCriteria.LT, upper));
+			}
+			partitionCriteria.add(crit);
+			lower = upper;
+		}
+		if (nullable) {
+			partitionCriteria.add(new IsNullCriteria(partitionColumn.clone()));
+		}
+		
+		UnionAllNode unionNode = new UnionAllNode(getID());
+		unionNode.setElements(accessNode.getElements());
+		for (Criteria crit : partitionCriteria) {
+			Query partitionQuery = (Query)query.clone();
+			partitionQuery.setCriteria(Criteria.combineCriteria(partitionQuery.getCriteria(), crit));
+			AccessNode partitionNode = (AccessNode)accessNode.clone();
+			partitionNode.setID(getID());
+			partitionNode.setCommand(partitionQuery);
+			unionNode.addChild(partitionNode);
+		}
+		return unionNode;
+	}
+
 	private Expression rewriteMultiSourceCommand(Command command) throws TeiidComponentException {
 		Expression result = null;
 		if (command instanceof StoredProcedure) {
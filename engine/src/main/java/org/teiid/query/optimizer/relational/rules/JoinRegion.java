@@ -394,20 +394,21 @@ class JoinRegion {
         return true;
     }
 
-    public void initializeCostingInformation(QueryMetadataInterface metadata) throws QueryMetadataException, TeiidComponentException {
+    public void initializeCostingInformation(QueryMetadataInterface metadata, CommandContext context) throws QueryMetadataException, TeiidComponentException {
     	for (PlanNode node : joinSourceNodes.values()) {
-            NewCalculateCostUtil.computeCostForTree(node, metadata);
+            NewCalculateCostUtil.computeCostForTree(node, metadata, context);
         }
         
-        estimateCriteriaSelectivity(metadata);        
+        estimateCriteriaSelectivity(metadata, context);        
     }
 
     /** 
      * @param metadata
+     * @param context
      * @throws QueryMetadataException
      * @throws TeiidComponentException
      */
-    private void estimateCriteriaSelectivity(QueryMetadataInterface metadata) throws QueryMetadataException,
+    private void estimateCriteriaSelectivity(QueryMetadataInterface metadata, CommandContext context) throws QueryMetadataException,
                                                                              TeiidComponentException {
         for (PlanNode node : criteriaNodes) {
             Criteria crit = (Criteria)node.getProperty(NodeConstants.Info.SELECT_CRITERIA);
@@ -417,7 +418,7 @@ class JoinRegion {
             float filterValue = 0;
             
             for (int j = 0; j < baseCosts.length; j++) {
-                float filter = NewCalculateCostUtil.recursiveEstimateCostOfCriteria(baseCosts[j], node, crit, metadata);
+                float filter = NewCalculateCostUtil.recursiveEstimateCostOfCriteria(baseCosts[j], node, crit, metadata, context);
                 
                 filterValue += filter/baseCosts[j];
             }
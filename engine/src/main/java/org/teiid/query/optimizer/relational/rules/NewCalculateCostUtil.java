@@ -52,6 +52,7 @@ import org.teiid.query.sql.symbol.Constant;
 import org.teiid.query.sql.symbol.ElementSymbol;
 import org.teiid.query.sql.symbol.Expression;
 import org.teiid.query.sql.symbol.GroupSymbol;
+import org.teiid.query.sql.symbol.Reference;
 import org.teiid.query.sql.util.SymbolMap;
 import org.teiid.query.sql.visitor.ElementCollectorVisitor;
 import org.teiid.query.sql.visitor.EvaluatableVisitor;
@@ -112,28 +113,29 @@ public class NewCalculateCostUtil {
      * Calculate cost of a node and all children, recursively from the bottom up.
      * @param node
      * @param metadata
+     * @param context the context used to find bound parameter values, may be null
      * @return Cost computed at the passed node
      * @throws QueryMetadataException
      * @throws TeiidComponentException
      */
-    static float computeCostForTree(PlanNode node, QueryMetadataInterface metadata) 
+    static float computeCostForTree(PlanNode node, QueryMetadataInterface metadata, CommandContext context) 
         throws QueryMetadataException, TeiidComponentException {
 
-    	updateCardinality(node, metadata);
+    	updateCardinality(node, metadata, context);
         
         return node.getCardinality();
     }
     
-    static boolean updateCardinality(PlanNode node, QueryMetadataInterface metadata) throws QueryMetadataException, TeiidComponentException {
+    static boolean updateCardinality(PlanNode node, QueryMetadataInterface metadata, CommandContext context) throws QueryMetadataException, TeiidComponentException {
     	Float cost = (Float) node.getProperty(NodeConstants.Info.EST_CARDINALITY);
 
     	// check if already computed
     	boolean updated = false;
     	for (PlanNode child : node.getChildren()) {
-    		updated |= updateCardinality(child, metadata);
+    		updated |= updateCardinality(child, metadata, context);
         }
         if(cost == null || updated) {
-            computeNodeCost(node, metadata);
+            computeNodeCost(node, metadata, context);
             return true;
         }
         return false;
@@ -146,7 +148,7 @@ public class NewCalculateCostUtil {
      * @throws QueryMetadataException
      * @throws TeiidComponentException
      */
-    private static void computeNodeCost(PlanNode node, QueryMetadataInterface metadata) 
+    private static void computeNodeCost(PlanNode node, QueryMetadataInterface metadata, CommandContext context) 
         throws QueryMetadataException, TeiidComponentException {
         
         switch(node.getType()) {
@@ -155,11 +157,11 @@ public class NewCalculateCostUtil {
                 break;
 
             case NodeConstants.Types.SELECT:
-                estimateSelectNodeCost(node, metadata);
+                estimateSelectNodeCost(node, metadata, context);
                 break;
                            
             case NodeConstants.Types.JOIN:
-                estimateJoinNodeCost(node, metadata);
+                estimateJoinNodeCost(node, metadata, context);
                 break;
 
             case NodeConstants.Types.DUP_REMOVE:
@@ -316,7 +318,7 @@ public class NewCalculateCostUtil {
      * @param node
      * @param metadata
      */
-    private static void estimateJoinNodeCost(PlanNode node, QueryMetadataInterface metadata)
+    private static void estimateJoinNodeCost(PlanNode node, QueryMetadataInterface metadata, CommandContext context)
         throws QueryMetadataException, TeiidComponentException {
 
         Iterator<PlanNode> children = node.getChildren().iterator();
@@ -339,7 +341,7 @@ public class NewCalculateCostUtil {
     		Criteria crit = Criteria.combineCriteria(joinCriteria);
     		//TODO: we may be able to get a fairly accurate join estimate if the
     		//unknown side is being joined with a key
-        	baseCost = recursiveEstimateCostOfCriteria(baseCost, node, crit, metadata);
+        	baseCost = recursiveEstimateCostOfCriteria(baseCost, node, crit, metadata, context);
         }
         
         Float cost = null;
@@ -361,7 +363,7 @@ public class NewCalculateCostUtil {
      * about the value count for each relation attribute.  
      * @param metadata
      */
-    private static void estimateSelectNodeCost(PlanNode node, QueryMetadataInterface metadata) 
+    private static void estimateSelectNodeCost(PlanNode node, QueryMetadataInterface metadata, CommandContext context) 
         throws QueryMetadataException, TeiidComponentException {
 
         PlanNode child = node.getFirstChild();
@@ -369,7 +371,7 @@ public class NewCalculateCostUtil {
         
         //Get list of conjuncts
         Criteria selectCriteria = (Criteria)node.getProperty(NodeConstants.Info.SELECT_CRITERIA);
-        float newCost = recursiveEstimateCostOfCriteria(childCost, node, selectCriteria, metadata);
+        float newCost = recursiveEstimateCostOfCriteria(childCost, node, selectCriteria, metadata, context);
         setCardinalityEstimate(node, newCost, true, metadata);
     }
     
@@ -649,7 +651,7 @@ public class NewCalculateCostUtil {
 		return result;
 	}
 
-	static float recursiveEstimateCostOfCriteria(float childCost, PlanNode currentNode, Criteria crit, QueryMetadataInterface metadata)
+	static float recursiveEstimateCostOfCriteria(float childCost, PlanNode currentNode, Criteria crit, QueryMetadataInterface metadata, CommandContext context)
         throws QueryMetadataException, TeiidComponentException {
         
         float cost = childCost; 
@@ -662,7 +664,7 @@ public class NewCalculateCostUtil {
                 return 1;
             }
             for (Criteria critPart : compCrit.getCriteria()) {
-                float nextCost = recursiveEstimateCostOfCriteria(childCost, currentNode, critPart, metadata);
+                float nextCost = recursiveEstimateCostOfCriteria(childCost, currentNode, critPart, metadata, context);
                 
                 if(compCrit.getOperator() == CompoundCriteria.AND) {
                     if (nextCost == UNKNOWN_VALUE) {
@@ -698,13 +700,13 @@ public class NewCalculateCostUtil {
             if (childCost == UNKNOWN_VALUE) {
                 return UNKNOWN_VALUE;
             }
-            float nextCost = recursiveEstimateCostOfCriteria(childCost, currentNode, ((NotCriteria)crit).getCriteria(), metadata);
+            float nextCost = recursiveEstimateCostOfCriteria(childCost, currentNode, ((NotCriteria)crit).getCriteria(), metadata, context);
             if (nextCost == UNKNOWN_VALUE){
                 return childCost;
             }   
             cost -= nextCost;
         } else {
-            cost = estimatePredicateCost(childCost, currentNode, (PredicateCriteria) crit, metadata);
+            cost = estimatePredicateCost(childCost, currentNode, (PredicateCriteria) crit, metadata, context);
             
             if (cost == UNKNOWN_VALUE) {
                 return childCost;
@@ -781,7 +783,7 @@ public class NewCalculateCostUtil {
      * @return
      * @since 4.3
      */
-    private static float estimatePredicateCost(float childCost, PlanNode currentNode, PredicateCriteria predicateCriteria, QueryMetadataInterface metadata)
+    private static float estimatePredicateCost(float childCost, PlanNode currentNode, PredicateCriteria predicateCriteria, QueryMetadataInterface metadata, CommandContext context)
         throws QueryMetadataException, TeiidComponentException {
         
         Collection<ElementSymbol> elements = ElementCollectorVisitor.getElements(predicateCriteria, true);
@@ -827,7 +829,7 @@ public class NewCalculateCostUtil {
                     isNegatedPredicateCriteria = true;
                 }
             } else { //GE, LE, GT, LT
-                cost = getCostForComparison(childCost, metadata, compCrit, unknownChildCost);
+                cost = getCostForComparison(childCost, metadata, compCrit, unknownChildCost, context);
             }
         } else if(predicateCriteria instanceof MatchCriteria) {
             MatchCriteria matchCriteria = (MatchCriteria)predicateCriteria;
@@ -926,55 +928,74 @@ public class NewCalculateCostUtil {
 
     private static float getCostForComparison(float childCost,
                                               QueryMetadataInterface metadata,
-                                              CompareCriteria compCrit, boolean unknownChildCost) throws TeiidComponentException,
+                                              CompareCriteria compCrit, boolean unknownChildCost, CommandContext context) throws TeiidComponentException,
                                                                        QueryMetadataException {
-        if (!(compCrit.getLeftExpression() instanceof ElementSymbol) || !(compCrit.getRightExpression() instanceof Constant)) {
+        float costMultiple = UNKNOWN_VALUE;
+        if (compCrit.getLeftExpression() instanceof ElementSymbol) {
+        	Expression right = compCrit.getRightExpression();
+        	Object value = null;
+        	boolean known = false;
+        	if (right instanceof Constant) {
+        		value = ((Constant)right).getValue();
+        		known = true;
+        	} else if (right instanceof Reference && ((Reference)right).isPositional()) {
+        		List<?> values = context != null ? context.getBoundParameterValues() : null;
+        		int index = ((Reference)right).getIndex();
+        		if (values != null && index < values.size()) {
+        			value = values.get(index);
+        			known = true;
+        		}
+        	}
+        	if (known) {
+        		costMultiple = getComparisonSelectivity((ElementSymbol)compCrit.getLeftExpression(), compCrit.getOperator(), value, right.getType(), metadata);
+        	}
+        }
+        if (costMultiple == UNKNOWN_VALUE) {
             if (unknownChildCost) {
                 return UNKNOWN_VALUE;
             }
             return childCost/3;
         }
-        ElementSymbol element = (ElementSymbol)compCrit.getLeftExpression();
-        Class<?> dataType = compCrit.getRightExpression().getType();
+        return childCost * costMultiple;
+    }
     
+    /**
+     * Estimate the fraction of rows satisfying element op value using the min/max
+     * values of the element.
+     * @return the fraction between 0 and 1 or {@link #UNKNOWN_VALUE}
+     */
+    public static float getComparisonSelectivity(ElementSymbol element, int operator, Object value, Class<?> dataType, QueryMetadataInterface metadata) throws TeiidComponentException,
+                                                                       QueryMetadataException {
         String max = (String)metadata.getMaximumValue(element.getMetadataID());
         String min = (String)metadata.getMinimumValue(element.getMetadataID());
-        if(max == null || min == null) {
-            if (unknownChildCost) {
-                return UNKNOWN_VALUE;
-            }
-            return childCost/3;
+        if(max == null || min == null || value == null) {
+            return UNKNOWN_VALUE;
         } 
-        float cost = childCost;
         try{
             float maxValue = 0;
             float minValue = 0;
 
-            Constant value = (Constant)compCrit.getRightExpression();
             float compareValue = 0;
         	// Case 6257 - handling added for time and date.  If the max/min values are not
             // in the expected format, NumberFormatException is thrown and reverts to default costing.
-            if(dataType.equals(DataTypeManager.DefaultDataClasses.TIMESTAMP)) {
-                compareValue = ((Timestamp)value.getValue()).getTime();
+            if(dataType.equals(DataTypeManager.DefaultDataClasses.TIMESTAMP) && value instanceof Timestamp) {
+                compareValue = ((Timestamp)value).getTime();
                 maxValue = Timestamp.valueOf(max).getTime();
                 minValue = Timestamp.valueOf(min).getTime();
-            } else if(dataType.equals(DataTypeManager.DefaultDataClasses.TIME)) {
-                compareValue = ((Time)value.getValue()).getTime();
+            } else if(dataType.equals(DataTypeManager.DefaultDataClasses.TIME) && value instanceof Time) {
+                compareValue = ((Time)value).getTime();
                 maxValue = Time.valueOf(max).getTime();
                 minValue = Time.valueOf(min).getTime();
             // (For date, our costing sets the max and min values using timestamp format)
-            } else if(dataType.equals(DataTypeManager.DefaultDataClasses.DATE)) {
-                compareValue = ((Date)value.getValue()).getTime();
+            } else if(dataType.equals(DataTypeManager.DefaultDataClasses.DATE) && value instanceof Date) {
+                compareValue = ((Date)value).getTime();
                 maxValue = Timestamp.valueOf(max).getTime();
                 minValue = Timestamp.valueOf(min).getTime();
             } else {
-            	if(!Number.class.isAssignableFrom(dataType)) {
-                    if (unknownChildCost) {
-                        return UNKNOWN_VALUE;
-                    }
-                    return childCost/3;
+            	if(!Number.class.isAssignableFrom(dataType) || !(value instanceof Number)) {
+                    return UNKNOWN_VALUE;
                 }
-                compareValue = ((Number)value.getValue()).floatValue();
+                compareValue = ((Number)value).floatValue();
                 maxValue = Integer.parseInt(max);
                 minValue = Integer.parseInt(min);
             }
@@ -982,12 +1003,12 @@ public class NewCalculateCostUtil {
             
             float costMultiple = 1;
             
-            if(compCrit.getOperator() == CompareCriteria.GT || compCrit.getOperator() == CompareCriteria.GE) {
+            if(operator == CompareCriteria.GT || operator == CompareCriteria.GE) {
             	costMultiple = (maxValue - compareValue)/range;
                 if (compareValue < 0 && maxValue < 0) {
                 	costMultiple = (1 - costMultiple);
                 }
-            } else if(compCrit.getOperator() == CompareCriteria.LT || compCrit.getOperator() == CompareCriteria.LE) {
+            } else if(operator == CompareCriteria.LT || operator == CompareCriteria.LE) {
             	costMultiple = (compareValue - minValue)/range;
                 if (compareValue < 0 && minValue < 0) {
                 	costMultiple = (1 - costMultiple);
@@ -998,16 +1019,12 @@ public class NewCalculateCostUtil {
             } else if (costMultiple < 0) {
             	costMultiple = 0;
             }
-            cost = childCost * costMultiple;
+            return costMultiple;
         } catch(IllegalArgumentException e) {
             LogManager.logWarning(LogConstants.CTX_QUERY_PLANNER, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30029));
             // If we were unable to parse the timestamp we will revert to the divide by three estimate
-            if (unknownChildCost) {
-                return UNKNOWN_VALUE;
-            }
-            cost = childCost/3;
+            return UNKNOWN_VALUE;
         }
-        return cost;
     }
     
     static boolean usesKey(PlanNode planNode, Collection<? extends Expression> allElements, QueryMetadataInterface metadata) throws QueryMetadataException, TeiidComponentException {
@@ -1135,8 +1152,8 @@ public class NewCalculateCostUtil {
 			CapabilitiesFinder capFinder, CommandContext context)
 			throws QueryMetadataException, TeiidComponentException, QueryPlannerException {
 
-        float independentCardinality = computeCostForTree(independentNode, metadata);
-        float dependentCardinality = computeCostForTree(dependentNode, metadata);
+        float independentCardinality = computeCostForTree(independentNode, metadata, context);
+        float dependentCardinality = computeCostForTree(dependentNode, metadata, context);
 
         DependentCostAnalysis dca = new DependentCostAnalysis();
         dca.maxNdv = new Float[independentExpressions.size()];
@@ -1200,7 +1217,7 @@ public class NewCalculateCostUtil {
 	        	while (target.getParent().getType() == NodeConstants.Types.SELECT) {
 	        		target = target.getParent();
 	        	}
-	        	float depTargetCardinality = computeCostForTree(target, metadata);
+	        	float depTargetCardinality = computeCostForTree(target, metadata, context);
 	        	if (depTargetCardinality == UNKNOWN_VALUE) {
 	        		continue;
 	        	}
@@ -1214,7 +1231,7 @@ public class NewCalculateCostUtil {
 						//TODO: we should probably dig deeper than this
 						PlanNode indOrigNode = FrameUtil.findOriginatingNode(independentNode, GroupsUsedByElementsVisitor.getGroups(indElements));
 						if (indOrigNode != null) {
-							indCardinalityOrig = computeCostForTree(indOrigNode, metadata);
+							indCardinalityOrig = computeCostForTree(indOrigNode, metadata, context);
 							indSymbolOrigNDV = getStat(Stat.NDV, indElements, indOrigNode, indCardinalityOrig, metadata);
 							if (indSymbolOrigNDV == UNKNOWN_VALUE) {
 								indSymbolOrigNDV = indCardinalityOrig * indSymbolNDV / independentCardinality;
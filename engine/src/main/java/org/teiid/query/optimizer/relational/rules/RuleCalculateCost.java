@@ -47,7 +47,7 @@ public class RuleCalculateCost implements OptimizerRule {
                             CommandContext context) throws QueryPlannerException,
                                                    QueryMetadataException,
                                                    TeiidComponentException {
-        NewCalculateCostUtil.computeCostForTree(plan, metadata);
+        NewCalculateCostUtil.computeCostForTree(plan, metadata, context);
         return plan;
     }
     
@@ -91,7 +91,7 @@ public final class RuleChooseDependent implements OptimizerRule {
             
             PlanNode chosenNode = chooseDepWithoutCosting(sourceNode, bothCandidates?siblingNode:null, analysisRecord);
             if(chosenNode != null) {
-                pushCriteria |= markDependent(chosenNode, joinNode, metadata, null, false);
+                pushCriteria |= markDependent(chosenNode, joinNode, metadata, null, false, context);
                 continue;
             }   
             
@@ -106,16 +106,16 @@ public final class RuleChooseDependent implements OptimizerRule {
             }
             
             if (dca.expectedCardinality != null) {
-                pushCriteria |= markDependent(dependentNode, joinNode, metadata, dca, null);
+                pushCriteria |= markDependent(dependentNode, joinNode, metadata, dca, null, context);
             } else {
-            	float sourceCost = NewCalculateCostUtil.computeCostForTree(sourceNode, metadata);
-            	float siblingCost = NewCalculateCostUtil.computeCostForTree(siblingNode, metadata);
+            	float sourceCost = NewCalculateCostUtil.computeCostForTree(sourceNode, metadata, context);
+            	float siblingCost = NewCalculateCostUtil.computeCostForTree(siblingNode, metadata, context);
             	
                 if (bothCandidates && sourceCost != NewCalculateCostUtil.UNKNOWN_VALUE && ((sourceCost <= RuleChooseDependent.DEFAULT_INDEPENDENT_CARDINALITY 
                 		&& sourceCost <= siblingCost) || (siblingCost == NewCalculateCostUtil.UNKNOWN_VALUE && sourceCost <= UNKNOWN_INDEPENDENT_CARDINALITY))) {
-                    pushCriteria |= markDependent(siblingNode, joinNode, metadata, null, sourceCost > RuleChooseDependent.DEFAULT_INDEPENDENT_CARDINALITY?true:null);
+                    pushCriteria |= markDependent(siblingNode, joinNode, metadata, null, sourceCost > RuleChooseDependent.DEFAULT_INDEPENDENT_CARDINALITY?true:null, context);
                 } else if (siblingCost != NewCalculateCostUtil.UNKNOWN_VALUE && (siblingCost <= RuleChooseDependent.DEFAULT_INDEPENDENT_CARDINALITY || (sourceCost == NewCalculateCostUtil.UNKNOWN_VALUE && siblingCost <= UNKNOWN_INDEPENDENT_CARDINALITY))) {
-                    pushCriteria |= markDependent(sourceNode, joinNode, metadata, null, siblingCost > RuleChooseDependent.DEFAULT_INDEPENDENT_CARDINALITY?true:null);
+                    pushCriteria |= markDependent(sourceNode, joinNode, metadata, null, siblingCost > RuleChooseDependent.DEFAULT_INDEPENDENT_CARDINALITY?true:null, context);
                 }
             }
         }
@@ -263,7 +263,7 @@ public final class RuleChooseDependent implements OptimizerRule {
      * @throws TeiidComponentException 
      * @throws QueryMetadataException 
      */
-    boolean markDependent(PlanNode sourceNode, PlanNode joinNode, QueryMetadataInterface metadata, DependentCostAnalysis dca, Boolean bound) throws QueryMetadataException, TeiidComponentException {
+    boolean markDependent(PlanNode sourceNode, PlanNode joinNode, QueryMetadataInterface metadata, DependentCostAnalysis dca, Boolean bound, CommandContext context) throws QueryMetadataException, TeiidComponentException {
 
         boolean isLeft = joinNode.getFirstChild() == sourceNode;
         
@@ -296,7 +296,7 @@ public final class RuleChooseDependent implements OptimizerRule {
         	}
         }
 
-        PlanNode crit = getDependentCriteriaNode(id, independentExpressions, dependentExpressions, indNode, metadata, dca, bound);
+        PlanNode crit = getDependentCriteriaNode(id, independentExpressions, dependentExpressions, indNode, metadata, dca, bound, context);
         
         sourceNode.addAsParent(crit);
               
@@ -315,7 +315,7 @@ public final class RuleChooseDependent implements OptimizerRule {
      * @since 4.3
      */
     private PlanNode getDependentCriteriaNode(String id, List<Expression> independentExpressions,
-                                           List<Expression> dependentExpressions, PlanNode indNode, QueryMetadataInterface metadata, DependentCostAnalysis dca, Boolean bound) throws QueryMetadataException, TeiidComponentException {
+                                           List<Expression> dependentExpressions, PlanNode indNode, QueryMetadataInterface metadata, DependentCostAnalysis dca, Boolean bound, CommandContext context) throws QueryMetadataException, TeiidComponentException {
         
         Float cardinality = null;
         
@@ -335,7 +335,7 @@ public final class RuleChooseDependent implements OptimizerRule {
             } else { 
                 Collection<ElementSymbol> elems = ElementCollectorVisitor.getElements(indExpr, true);
                 if (cardinality == null) {
-                	cardinality = NewCalculateCostUtil.computeCostForTree(indNode, metadata);
+                	cardinality = NewCalculateCostUtil.computeCostForTree(indNode, metadata, context);
                 }
                 comp.ndv = NewCalculateCostUtil.getNDVEstimate(indNode, metadata, cardinality, elems, true);
                 if (bound) {
@@ -107,8 +107,8 @@ public class RuleImplementJoinStrategy implements OptimizerRule {
             boolean pushLeft = true;
             boolean pushRight = true;
             if (joinNode.getProperty(NodeConstants.Info.JOIN_TYPE) == JoinType.JOIN_INNER && context != null) {
-            	float leftCost = NewCalculateCostUtil.computeCostForTree(joinNode.getFirstChild(), metadata);
-            	float rightCost = NewCalculateCostUtil.computeCostForTree(joinNode.getLastChild(), metadata);
+            	float leftCost = NewCalculateCostUtil.computeCostForTree(joinNode.getFirstChild(), metadata, context);
+            	float rightCost = NewCalculateCostUtil.computeCostForTree(joinNode.getLastChild(), metadata, context);
             	if (leftCost != NewCalculateCostUtil.UNKNOWN_VALUE && rightCost != NewCalculateCostUtil.UNKNOWN_VALUE 
             			&& (leftCost > context.getProcessorBatchSize() || rightCost > context.getProcessorBatchSize())) {
             		//we use a larger constant here to ensure that we don't unwisely prevent pushdown
@@ -239,7 +239,7 @@ public final class RuleMergeCriteria implements OptimizerRule {
      */
 	private PlanNode planMergeJoin(PlanNode current, PlanNode root) throws QueryMetadataException,
 			TeiidComponentException {
-		float sourceCost = NewCalculateCostUtil.computeCostForTree(current.getFirstChild(), metadata);
+		float sourceCost = NewCalculateCostUtil.computeCostForTree(current.getFirstChild(), metadata, context);
 		Criteria crit = (Criteria)current.getProperty(NodeConstants.Info.SELECT_CRITERIA);
 		
 		PlannedResult plannedResult = findSubquery(crit, true);
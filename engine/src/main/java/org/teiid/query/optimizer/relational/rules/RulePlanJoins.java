@@ -159,7 +159,7 @@ public class RulePlanJoins implements OptimizerRule {
                 continue;
             }
             
-            joinRegion.initializeCostingInformation(metadata);
+            joinRegion.initializeCostingInformation(metadata, context);
             
             Object[] bestOrder = findBestJoinOrder(joinRegion, metadata, capabilitiesFinder, context);
             
@@ -321,8 +321,8 @@ public class RulePlanJoins implements OptimizerRule {
 	private boolean canPushCrossJoin(QueryMetadataInterface metadata, CommandContext context,
 			PlanNode accessNode1, PlanNode accessNode2)
 			throws QueryMetadataException, TeiidComponentException {
-		float cost1 = NewCalculateCostUtil.computeCostForTree(accessNode1, metadata);
-		float cost2 = NewCalculateCostUtil.computeCostForTree(accessNode2, metadata);
+		float cost1 = NewCalculateCostUtil.computeCostForTree(accessNode1, metadata, context);
+		float cost2 = NewCalculateCostUtil.computeCostForTree(accessNode2, metadata, context);
 		float acceptableCost = context == null? 45.0f : (float)Math.sqrt(context.getProcessorBatchSize());
 		return !((cost1 == -1 || cost2 == -1 || (cost1 > acceptableCost && cost2 > acceptableCost)));
 	}
@@ -724,7 +724,7 @@ public class RulePushAggregates implements
             collectSymbolsFromOtherAggregates(allAggregates, aggregates, planNode, stagedGroupingSymbols);
             
             //perform a costing check, if there's not a significant reduction, then don't stage
-            float cardinality = NewCalculateCostUtil.computeCostForTree(planNode, metadata);
+            float cardinality = NewCalculateCostUtil.computeCostForTree(planNode, metadata, cc);
             float ndv = NewCalculateCostUtil.getNDVEstimate(planNode, metadata, cardinality, stagedGroupingSymbols, false);
         	if (ndv != NewCalculateCostUtil.UNKNOWN_VALUE && cardinality / ndv < 4) {
     			continue;
@@ -512,7 +512,9 @@ public abstract class RelationalNode implements Cloneable, BatchProducer {
 	protected void copyTo(RelationalNode target){
 		target.data = this.data;
         
-        target.children = new RelationalNode[this.children.length];
+		if (target.children.length != this.children.length) {
+			target.children = new RelationalNode[this.children.length];
+		}
         for(int i=0; i<this.children.length; i++) {
             if(this.children[i] != null) {
                 target.children[i] = (RelationalNode)this.children[i].clone();
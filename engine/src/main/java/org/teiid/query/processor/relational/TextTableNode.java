@@ -31,8 +31,13 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 import org.teiid.api.exception.query.ExpressionEvaluationException;
 import org.teiid.common.buffer.BlockedException;
@@ -40,6 +45,7 @@ import org.teiid.common.buffer.BufferManager;
 import org.teiid.common.buffer.TupleBatch;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.TeiidRuntimeException;
 import org.teiid.core.types.ClobImpl;
 import org.teiid.core.types.ClobType;
 import org.teiid.core.types.DataTypeManager;
@@ -51,14 +57,59 @@ import org.teiid.query.sql.lang.TextTable;
 import org.teiid.query.sql.lang.TextTable.TextColumn;
 import org.teiid.query.sql.symbol.Expression;
 import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
 
 /**
  * Handles text file processing.
  * 
+ * When an executor is available, there are no selectors and the input has more than 
+ * {@link org.teiid.query.util.Options#getTextTableParallelMinLines()} lines, the remaining 
+ * lines are read serially but are parsed and converted in batch sized chunks by the executor.  
+ * The results are returned in file order.
+ * 
  * TODO: allow for a configurable line terminator
  */
 public class TextTableNode extends SubqueryAwareRelationalNode {
 
+	/**
+	 * A run of consecutive lines to be parsed and converted off of the processing thread.
+	 * Lines that could span multiple lines are parsed by the processing thread when read
+	 * and are held as their values.
+	 */
+	private class Chunk implements Callable<List<List<?>>> {
+		
+		private List<String> lines;
+		private List<List<String>> values;
+		private int[] lineNumbers;
+		private Map<String, Integer> names;
+		private int limit;
+		
+		/**
+		 * @param lines the unparsed lines, null where the line has already been parsed
+		 * @param values the already parsed values, null where the line is unparsed
+		 */
+		public Chunk(List<String> lines, List<List<String>> values, int[] lineNumbers, Map<String, Integer> names, int limit) {
+			this.lines = lines;
+			this.values = values;
+			this.lineNumbers = lineNumbers;
+			this.names = names;
+			this.limit = limit;
+		}
+		
+		@Override
+		public List<List<?>> call() throws TeiidProcessingException {
+			List<List<?>> tuples = new ArrayList<List<?>>(lines.size());
+			for (int i = 0; i < lines.size(); i++) {
+				List<String> vals = values.get(i);
+				if (vals == null) {
+					vals = parseLine(lines.get(i), limit);
+				}
+				tuples.add(convertRow(vals, names, lineNumbers[i]));
+			}
+			return tuples;
+		}
+	}
+
 	private TextTable table;
 	
 	//initialized state
@@ -80,6 +131,14 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
 	private boolean cr;
 	private boolean eof;
 	
+	private int maxValues = Integer.MAX_VALUE;
+	private boolean parallelAllowed;
+	private boolean parallel;
+	private LinkedList<FutureTask<List<List<?>>>> chunks;
+	private List<List<?>> currentChunk;
+	private int chunkIndex;
+	private TeiidProcessingException readException;
+	
 	public TextTableNode(int nodeID) {
 		super(nodeID);
 	}
@@ -148,6 +207,18 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
 		this.textLine = 0;
 		this.cr = false;
 		this.eof = false;
+		this.maxValues = Integer.MAX_VALUE;
+		this.parallelAllowed = false;
+		this.parallel = false;
+		if (this.chunks != null) {
+			for (FutureTask<List<List<?>>> chunk : this.chunks) {
+				chunk.cancel(false);
+			}
+			this.chunks = null;
+		}
+		this.currentChunk = null;
+		this.chunkIndex = 0;
+		this.readException = null;
 		if (this.parentLines != null) {
 			for (Map.Entry<String, List<String>> entry : this.parentLines.entrySet()) {
 				entry.setValue(null);
@@ -180,7 +251,16 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
 			return pullBatch();
 		}
 		
+		if (parallel) {
+			return nextBatchParallel();
+		}
+		
 		while (!isBatchFull()) {
+			if (parallelAllowed && textLine >= getContext().getOptions().getTextTableParallelMinLines()) {
+				//the input is large enough to be worth parsing in parallel
+				parallel = true;
+				return nextBatchParallel();
+			}
 			String line = readLine(lineWidth, table.isFixedWidth());
 			
 			if (line == null) {
@@ -200,7 +280,7 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
 				} 
 			}
 			
-			List<String> vals = parseLine(line);
+			List<String> vals = parseLine(line, maxValues);
 			
 			if (parentSelector != null) {
 				this.parentLines.put(parentSelector, vals);
@@ -209,35 +289,121 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
 				continue;
 			}
 			
-			List<Object> tuple = new ArrayList<Object>(projectionIndexes.length);
-			for (int output : projectionIndexes) {
-				TextColumn col = table.getColumns().get(output);
-				String val = null;
-				int index = output;
-				
-				if (col.getSelector() != null) {
-					vals = this.parentLines.get(col.getSelector());
-					index = col.getPosition() - 1;
-				} else if (nameIndexes != null) {
-					index = nameIndexes.get(col.getName());
-				}
-				if (vals == null || index >= vals.size()) {
-					//throw new TeiidProcessingException(QueryPlugin.Util.getString("TextTableNode.no_value", col.getName(), textLine, systemId)); //$NON-NLS-1$
-					tuple.add(null);
-					continue;
-				} 
-				val = vals.get(index);
-				try {
-					tuple.add(DataTypeManager.transformValue(val, table.getColumns().get(output).getSymbol().getType()));
-				} catch (TransformationException e) {
-					 throw new TeiidProcessingException(QueryPlugin.Event.TEIID30176, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30176, col.getName(), textLine, systemId));
+			addBatchRow(convertRow(vals, nameIndexes, textLine));
+		}
+		
+		return pullBatch();
+	}
+
+	private TupleBatch nextBatchParallel() throws TeiidProcessingException {
+		while (!isBatchFull()) {
+			if (currentChunk != null && chunkIndex < currentChunk.size()) {
+				addBatchRow(currentChunk.get(chunkIndex++));
+				continue;
+			}
+			scheduleChunks();
+			FutureTask<List<List<?>>> next = chunks.poll();
+			if (next == null) {
+				if (readException != null) {
+					throw readException;
 				}
+				terminateBatches();
+				break;
 			}
-			addBatchRow(tuple);
+			currentChunk = getChunk(next);
+			chunkIndex = 0;
 		}
-		
 		return pullBatch();
 	}
+	
+	/**
+	 * Read ahead so that up to {@link Options#getTextTableParallelChunks()} chunks are being parsed.
+	 * A read error is held until all of the preceding lines have been returned.
+	 */
+	private void scheduleChunks() {
+		if (chunks == null) {
+			chunks = new LinkedList<FutureTask<List<List<?>>>>();
+		}
+		Executor executor = getContext().getExecutor();
+		int maxChunks = getContext().getOptions().getTextTableParallelChunks();
+		while (chunks.size() < maxChunks && !eof && readException == null) {
+			int size = getBatchSize();
+			List<String> lines = new ArrayList<String>(size);
+			List<List<String>> values = new ArrayList<List<String>>(size);
+			int[] lineNumbers = new int[size];
+			try {
+				while (lines.size() < size) {
+					String line = readLine(lineWidth, table.isFixedWidth());
+					if (line == null) {
+						break;
+					}
+					if (!table.isFixedWidth() && line.indexOf(quote) != -1) {
+						//the value may continue onto the following lines
+						lines.add(null);
+						values.add(parseLine(line, maxValues));
+					} else {
+						lines.add(line);
+						values.add(null);
+					}
+					lineNumbers[lines.size() - 1] = textLine;
+				}
+			} catch (TeiidProcessingException e) {
+				readException = e;
+			}
+			if (lines.isEmpty()) {
+				break;
+			}
+			FutureTask<List<List<?>>> chunk = new FutureTask<List<List<?>>>(new Chunk(lines, values, lineNumbers, nameIndexes, maxValues));
+			chunks.add(chunk);
+			executor.execute(chunk);
+		}
+	}
+
+	private List<List<?>> getChunk(FutureTask<List<List<?>>> chunk) throws TeiidProcessingException {
+		//run the chunk here if the executor has not yet started it 
+		chunk.run();
+		try {
+			return chunk.get();
+		} catch (InterruptedException e) {
+			throw new TeiidRuntimeException(QueryPlugin.Event.TEIID31136, e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof TeiidProcessingException) {
+				throw (TeiidProcessingException)e.getCause();
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException)e.getCause();
+			}
+			throw new TeiidRuntimeException(QueryPlugin.Event.TEIID31136, e.getCause());
+		}
+	}
+
+	private List<Object> convertRow(List<String> vals, Map<String, Integer> names, int lineNumber) throws TeiidProcessingException {
+		List<Object> tuple = new ArrayList<Object>(projectionIndexes.length);
+		for (int output : projectionIndexes) {
+			TextColumn col = table.getColumns().get(output);
+			String val = null;
+			int index = output;
+			
+			if (col.getSelector() != null) {
+				vals = this.parentLines.get(col.getSelector());
+				index = col.getPosition() - 1;
+			} else if (names != null) {
+				index = names.get(col.getName());
+			}
+			if (vals == null || index >= vals.size()) {
+				//throw new TeiidProcessingException(QueryPlugin.Util.getString("TextTableNode.no_value", col.getName(), textLine, systemId)); //$NON-NLS-1$
+				tuple.add(null);
+				continue;
+			} 
+			val = vals.get(index);
+			try {
+				tuple.add(DataTypeManager.transformValue(val, table.getColumns().get(output).getSymbol().getType()));
+			} catch (TransformationException e) {
+				 throw new TeiidProcessingException(QueryPlugin.Event.TEIID30176, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30176, col.getName(), lineNumber, systemId));
+			}
+		}
+		return tuple;
+	}
 
 	private String readLine(int maxLength, boolean exact) throws TeiidProcessingException {
 		if (eof) {
@@ -338,9 +504,6 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
 		}
 		
 		//process the skip field
-		if (skip <= 0) {
-			return;
-		}
 		while (textLine < skip) {
 			boolean isHeader = textLine == header;
 			if (isHeader) {
@@ -349,13 +512,27 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
 					reset();
 					return;
 				}
-				processHeader(parseLine(line));
+				processHeader(parseLine(line, Integer.MAX_VALUE));
 			} else {
 				while (readChar() != '\n') {
 	    			
 	    		}
 			}
 		}
+		
+		if (table.getSelector() != null || parentLines != null) {
+			return;
+		}
+		//only the values up to the last projected column need to be parsed
+		maxValues = 0;
+		for (int output : projectionIndexes) {
+			int index = output;
+			if (nameIndexes != null) {
+				index = nameIndexes.get(table.getColumns().get(output).getName());
+			}
+			maxValues = Math.max(maxValues, index + 1);
+		}
+		parallelAllowed = getContext().getOptions().getTextTableParallelChunks() > 1 && getContext().getExecutor() != null;
 	}
 
 	private void processHeader(List<String> line) throws TeiidProcessingException {
@@ -376,14 +553,22 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
 		}
 	}
 
-	private List<String> parseLine(String line) throws TeiidProcessingException {
+	/**
+	 * Parse the line, stopping once limit values have been found.  The limit is only 
+	 * applied to fixed width or unquoted lines, since quoted values may continue onto 
+	 * the following lines and must be validated.
+	 */
+	private List<String> parseLine(String line, int limit) throws TeiidProcessingException {
 		if (table.isFixedWidth()) {
-			return parseFixedWidth(line);
+			return parseFixedWidth(line, limit);
 		} 
-		return parseDelimitedLine(line);
+		if (line.indexOf(quote) != -1) {
+			limit = Integer.MAX_VALUE;
+		}
+		return parseDelimitedLine(line, limit);
 	}
 
-	private List<String> parseDelimitedLine(String line) throws TeiidProcessingException {
+	private List<String> parseDelimitedLine(String line, int limit) throws TeiidProcessingException {
 		ArrayList<String> result = new ArrayList<String>();
 		StringBuilder builder = new StringBuilder();
 		boolean escaped = false;
@@ -420,6 +605,9 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
 						escaped = false;
 					} else {
 						addValue(result, wasQualified, builder.toString());
+						if (result.size() >= limit) {
+							return result;
+						}
 						wasQualified = false;
 						builder = new StringBuilder();  //next entry
 					} 
@@ -475,10 +663,13 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
 		result.add(val);
 	}
 
-	private List<String> parseFixedWidth(String line) {
+	private List<String> parseFixedWidth(String line, int limit) {
 		ArrayList<String> result = new ArrayList<String>();
 		int beginIndex = 0;
 		for (TextColumn col : table.getColumns()) {
+			if (result.size() >= limit) {
+				break;
+			}
 			String val = new String(line.substring(beginIndex, beginIndex + col.getWidth()));
 			addValue(result, col.isNoTrim(), val);
 			beginIndex += col.getWidth();
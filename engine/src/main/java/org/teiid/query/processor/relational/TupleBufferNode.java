@@ -0,0 +1,93 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.query.processor.relational;
+
+import java.util.List;
+
+import org.teiid.common.buffer.BlockedException;
+import org.teiid.common.buffer.TupleBatch;
+import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.common.buffer.TupleSource;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidProcessingException;
+
+/**
+ * Reads the rows of an existing {@link TupleBuffer}, such as a cached result.
+ * The elements of this node must match the buffer schema.
+ */
+public class TupleBufferNode extends RelationalNode {
+
+	private TupleBuffer buffer;
+	
+	//initialized state
+	private TupleSource source;
+	
+	public TupleBufferNode(int nodeID, TupleBuffer buffer) {
+		super(nodeID);
+		this.buffer = buffer;
+	}
+	
+	@Override
+	public void open() throws TeiidComponentException,
+			TeiidProcessingException {
+		super.open();
+		this.source = this.buffer.createIndexedTupleSource();
+	}
+	
+	@Override
+	protected TupleBatch nextBatchDirect() throws BlockedException,
+			TeiidComponentException, TeiidProcessingException {
+		while (!isBatchFull()) {
+			List<?> tuple = this.source.nextTuple();
+			if (tuple == null) {
+				terminateBatches();
+				break;
+			}
+			addBatchRow(tuple);
+		}
+		return pullBatch();
+	}
+	
+	@Override
+	public void closeDirect() {
+		super.closeDirect();
+		if (this.source != null) {
+			this.source.closeSource();
+			this.source = null;
+		}
+	}
+	
+	@Override
+	public void reset() {
+		super.reset();
+		this.source = null;
+	}
+	
+	@Override
+	public TupleBufferNode clone() {
+		TupleBufferNode clone = new TupleBufferNode(getID(), this.buffer);
+		this.copyTo(clone);
+		return clone;
+	}
+
+}
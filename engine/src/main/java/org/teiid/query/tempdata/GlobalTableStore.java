@@ -50,6 +50,8 @@ public interface GlobalTableStore {
 	Serializable getAddress();
 	
 	List<?> updateMatViewRow(String matTableName, List<?> tuple, boolean delete) throws TeiidComponentException;
+	
+	int updateMatViewRows(String matTableName, List<? extends List<?>> tuples, List<? extends List<?>> deletes) throws TeiidComponentException;
 
 	TempTable createMatTable(String tableName, GroupSymbol group)
 	throws TeiidComponentException, QueryMetadataException, TeiidProcessingException;
@@ -22,10 +22,12 @@
 
 package org.teiid.query.tempdata;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamConstants;
 import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -36,6 +38,10 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 import org.teiid.api.exception.query.QueryMetadataException;
 import org.teiid.api.exception.query.QueryResolverException;
@@ -78,6 +84,21 @@ import org.teiid.query.tempdata.TempTableStore.TransactionMode;
 public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<String> {
 	
 	private static final String TEIID_FBI = "teiid:fbi"; //$NON-NLS-1$
+	private static final int STATE_BUFFER_SIZE = 1 << 13;
+	/**
+	 * Written ahead of the compressed state.  Prior versions wrote an uncompressed 
+	 * object stream, which is detected by the stream magic, that included the index values.
+	 */
+	private static final int STATE_VERSION = 1;
+	
+	private static class StateInputStream extends ObjectInputStream {
+		private boolean indexValues;
+		
+		public StateInputStream(InputStream in, boolean indexValues) throws IOException {
+			super(in);
+			this.indexValues = indexValues;
+		}
+	}
 
 	public enum MatState {
 		NEEDS_LOADING,
@@ -392,6 +413,28 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 		return null;
 	}
 
+	@Override
+	public int updateMatViewRows(String matTableName, List<? extends List<?>> tuples,
+			List<? extends List<?>> deletes) throws TeiidComponentException {
+		TempTable tempTable = tableStore.getTempTable(matTableName);
+		if (tempTable != null) {
+			TempMetadataID id = tableStore.getMetadataStore().getTempGroupID(matTableName);
+			synchronized (id) {
+				//readers of the current table will not see a partial set of changes
+				boolean clone = tempTable.getActive().get() != 0;
+				if (clone) {
+					tempTable = tempTable.clone();
+				}
+				int result = tempTable.updateTuples(tuples, deletes);
+				if (clone) {
+					swapTempTable(matTableName, tempTable);
+				}
+				return result;
+			}
+		}
+		return 0;
+	}
+
 	@Override
 	public TempTableStore getTempTableStore() {
 		return this.tableStore;
@@ -452,7 +495,7 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 	@Override
 	public void getState(OutputStream ostream) {
 		try {
-			ObjectOutputStream oos = new ObjectOutputStream(ostream);
+			ObjectOutputStream oos = createStateOutputStream(ostream);
 			for (Map.Entry<String, TempTable> entry : tableStore.getTempTables().entrySet()) {
 				sendTable(entry.getKey(), oos, true);
 			}
@@ -468,7 +511,7 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 	@Override
 	public void setState(InputStream istream) {
 		try {
-			ObjectInputStream ois = new ObjectInputStream(istream);
+			StateInputStream ois = createStateInputStream(istream);
 			while (true) {
 				String tableName = (String)ois.readObject();
 				if (tableName == null) {
@@ -485,7 +528,7 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 	@Override
 	public void getState(String stateId, OutputStream ostream) {
 		try {
-			ObjectOutputStream oos = new ObjectOutputStream(ostream);
+			ObjectOutputStream oos = createStateOutputStream(ostream);
 			sendTable(stateId, oos, false);
 			oos.close();
 		} catch (IOException e) {
@@ -495,6 +538,46 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 		}
 	}
 
+	/**
+	 * State is compressed since it is typically sent over the network
+	 */
+	private static ObjectOutputStream createStateOutputStream(OutputStream ostream) throws IOException {
+		ostream.write(STATE_VERSION);
+		return new ObjectOutputStream(new DeflaterOutputStream(ostream, new Deflater(Deflater.BEST_SPEED), STATE_BUFFER_SIZE) {
+			@Override
+			public void close() throws IOException {
+				try {
+					super.close();
+				} finally {
+					def.end();
+				}
+			}
+		});
+	}
+	
+	private static StateInputStream createStateInputStream(InputStream istream) throws IOException {
+		BufferedInputStream bis = new BufferedInputStream(istream, STATE_BUFFER_SIZE);
+		bis.mark(1);
+		int version = bis.read();
+		if (version == ((ObjectStreamConstants.STREAM_MAGIC >>> 8) & 0xff)) {
+			bis.reset();
+			return new StateInputStream(bis, true);
+		}
+		if (version != STATE_VERSION) {
+			throw new IOException("Unknown state version " + version); //$NON-NLS-1$
+		}
+		return new StateInputStream(new InflaterInputStream(bis, new Inflater(), STATE_BUFFER_SIZE) {
+			@Override
+			public void close() throws IOException {
+				try {
+					super.close();
+				} finally {
+					inf.end();
+				}
+			}
+		}, false);
+	}
+
 	private void sendTable(String stateId, ObjectOutputStream oos, boolean writeName)
 			throws IOException, TeiidComponentException {
 		TempTable tempTable = this.tableStore.getTempTable(stateId);
@@ -517,7 +600,7 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 	@Override
 	public void setState(String stateId, InputStream istream) {
 		try {
-			ObjectInputStream ois = new ObjectInputStream(istream);
+			StateInputStream ois = createStateInputStream(istream);
 			loadTable(stateId, ois);
 			ois.close();
 		} catch (Exception e) {
@@ -527,7 +610,7 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 		}
 	}
 
-	private void loadTable(String stateId, ObjectInputStream ois)
+	private void loadTable(String stateId, StateInputStream ois)
 			throws TeiidComponentException, QueryMetadataException,
 			IOException,
 			ClassNotFoundException, TeiidProcessingException {
@@ -551,7 +634,7 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 			group.setMetadataID(getCodeTableMetadataId(viewName, returnElementName, keyElementName, stateId));
 		}
 		TempTable tempTable = this.createMatTable(stateId, group);
-		tempTable.readFrom(ois);
+		tempTable.readFrom(ois, ois.indexValues);
 		MatTableInfo info = this.getMatTableInfo(stateId);
 		synchronized (info) {
 			swapTempTable(stateId, tempTable);
@@ -406,15 +406,67 @@ public class TempTable implements Cloneable, SearchableTable {
 	}
 	
 	void addIndex(List<ElementSymbol> indexColumns, boolean unique) throws TeiidComponentException, TeiidProcessingException {
+		Map<List<ElementSymbol>, Boolean> indexes = new LinkedHashMap<List<ElementSymbol>, Boolean>();
+		indexes.put(indexColumns, unique);
+		addIndexes(indexes);
+	}
+	
+	/**
+	 * Build the given indexes with a single scan of the table.  The rows for each index
+	 * are projected into a buffer, sorted, and then bulk loaded into the index tree.
+	 * @param indexes map of index columns to whether the index is unique
+	 */
+	void addIndexes(Map<List<ElementSymbol>, Boolean> indexes) throws TeiidComponentException, TeiidProcessingException {
 		List<ElementSymbol> keyColumns = columns.subList(0, tree.getKeyLength());
-		if (keyColumns.equals(indexColumns) || (indexTables != null && indexTables.containsKey(indexColumns))) {
-			return;
+		List<TempTable> toBuild = new ArrayList<TempTable>(indexes.size());
+		List<TupleBuffer> buffers = new ArrayList<TupleBuffer>(indexes.size());
+		List<int[]> projections = new ArrayList<int[]>(indexes.size());
+		try {
+			for (Map.Entry<List<ElementSymbol>, Boolean> entry : indexes.entrySet()) {
+				List<ElementSymbol> indexColumns = entry.getKey();
+				if (keyColumns.equals(indexColumns) || (indexTables != null && indexTables.containsKey(indexColumns))) {
+					continue;
+				}
+				TempTable indexTable = createIndexTable(indexColumns, entry.getValue());
+				toBuild.add(indexTable);
+				buffers.add(bm.createTupleBuffer(indexTable.getColumns(), sessionID, TupleSourceType.PROCESSOR));
+				projections.add(RelationalNode.getProjectionIndexes(columnMap, indexTable.getColumns()));
+			}
+			if (toBuild.isEmpty()) {
+				return;
+			}
+			TupleSource ts = createTupleSource(getColumns(), null, null);
+			try {
+				List<?> tuple = null;
+				while ((tuple = ts.nextTuple()) != null) {
+					for (int i = 0; i < buffers.size(); i++) {
+						buffers.get(i).addTuple(RelationalNode.projectTuple(projections.get(i), tuple));
+					}
+				}
+			} finally {
+				ts.closeSource();
+			}
+			for (int i = 0; i < toBuild.size(); i++) {
+				TempTable indexTable = toBuild.get(i);
+				TupleBuffer tb = buffers.get(i);
+				tb.close();
+				int[] cols = new int[indexTable.getColumns().size()];
+				for (int j = 0; j < cols.length; j++) {
+					cols[j] = j;
+				}
+				SortUtility sort = new SortUtility(tb.createIndexedTupleSource(true), Mode.SORT, bm, sessionID, indexTable.getColumns(), Collections.nCopies(cols.length, OrderBy.ASC), null, cols);
+				TupleBuffer sorted = sort.sort();
+				try {
+					indexTable.getTree().bulkLoad(sorted.createIndexedTupleSource(true));
+				} finally {
+					sorted.remove();
+				}
+			}
+		} finally {
+			for (TupleBuffer tb : buffers) {
+				tb.remove();
+			}
 		}
-		TempTable indexTable = createIndexTable(indexColumns, unique);
-		//TODO: ordered insert optimization
-		TupleSource ts = createTupleSource(indexTable.getColumns(), null, null);
-		indexTable.insert(ts, indexTable.getColumns(), false, null);
-		indexTable.getTree().compact();
 	}
 
 	private TempTable createIndexTable(List<ElementSymbol> indexColumns,
@@ -433,8 +485,8 @@ public class TempTable implements Cloneable, SearchableTable {
 		}
 		if (indexTables == null) {
 			indexTables = new LinkedHashMap<List<ElementSymbol>, TempTable>();
-			indexTables.put(indexColumns, indexTable);
 		}
+		indexTables.put(indexColumns, indexTable);
 		indexTable.setUpdatable(this.updatable);
 		return indexTable;
 	}
@@ -783,7 +835,7 @@ public class TempTable implements Cloneable, SearchableTable {
 					for (ElementSymbol es : entry.getKey()) {
 						oos.writeInt(this.columnMap.get(es));
 					}
-					entry.getValue().writeTo(oos);
+					//the index contents are rebuilt by the reader
 				}
 			}
 		} finally {
@@ -791,9 +843,13 @@ public class TempTable implements Cloneable, SearchableTable {
 		}
 	}
 	
-	void readFrom(ObjectInputStream ois) throws TeiidComponentException, IOException, ClassNotFoundException {
+	/**
+	 * @param indexValues true if the index values follow each index definition, as written by prior versions
+	 */
+	void readFrom(ObjectInputStream ois, boolean indexValues) throws TeiidComponentException, TeiidProcessingException, IOException, ClassNotFoundException {
 		this.tree.readValuesFrom(ois);
 		int numIdx = ois.readInt();
+		Map<List<ElementSymbol>, Boolean> indexes = new LinkedHashMap<List<ElementSymbol>, Boolean>();
 		for (int i = 0; i < numIdx; i++) {
 			boolean unique = ois.readBoolean();
 			int numCols = ois.readInt();
@@ -802,35 +858,28 @@ public class TempTable implements Cloneable, SearchableTable {
 				int colIndex = ois.readInt();
 				indexColumns.add(this.columns.get(colIndex));
 			}
-			TempTable tt = this.createIndexTable(indexColumns, unique);
-			tt.readFrom(ois);
+			if (indexValues) {
+				TempTable tt = this.createIndexTable(indexColumns, unique);
+				tt.readFrom(ois, true);
+				continue;
+			}
+			indexes.put(indexColumns, unique);
 		}
+		addIndexes(indexes);
 	}
 	
 	List<?> updateTuple(List<?> tuple, boolean remove) throws TeiidComponentException {
 		try {
 			lock.writeLock().lock();
 			if (remove) {
-				List<?> result = tree.remove(tuple);
+				List<?> result = removeTuple(tuple);
 				if (result == null) {
 					return null;
 				}
-				if (indexTables != null) {
-					for (TempTable index : this.indexTables.values()) {
-						tuple = RelationalNode.projectTuple(RelationalNode.getProjectionIndexes(index.getColumnMap(), index.columns), result);
-						index.tree.remove(tuple);
-					}
-				}
 				tid.getTableData().dataModified(1);
 				return result;
 			} 
-			List<?> result = tree.insert(tuple, InsertMode.UPDATE, -1);
-			if (indexTables != null) {
-				for (TempTable index : this.indexTables.values()) {
-					tuple = RelationalNode.projectTuple(RelationalNode.getProjectionIndexes(index.getColumnMap(), index.columns), tuple);
-					index.tree.insert(tuple, InsertMode.UPDATE, -1);
-				}
-			}
+			List<?> result = upsertTuple(tuple);
 			tid.getTableData().dataModified(1);
 			return result;
 		} finally {
@@ -838,6 +887,61 @@ public class TempTable implements Cloneable, SearchableTable {
 		}
 	}
 	
+	/**
+	 * Apply the given row changes under a single write lock.
+	 * @param tuples full rows to insert or update
+	 * @param deletes keys of rows to remove
+	 * @return the number of existing rows that were updated or removed
+	 */
+	int updateTuples(List<? extends List<?>> tuples, List<? extends List<?>> deletes) throws TeiidComponentException {
+		try {
+			lock.writeLock().lock();
+			int updated = 0;
+			for (List<?> tuple : deletes) {
+				if (removeTuple(tuple) != null) {
+					updated++;
+				}
+			}
+			for (List<?> tuple : tuples) {
+				if (upsertTuple(tuple) != null) {
+					updated++;
+				}
+			}
+			tid.getTableData().dataModified(deletes.size() + tuples.size());
+			return updated;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+	
+	private List<?> removeTuple(List<?> tuple) throws TeiidComponentException {
+		List<?> result = tree.remove(tuple);
+		if (result != null && indexTables != null) {
+			for (TempTable index : this.indexTables.values()) {
+				index.tree.remove(projectIndexTuple(index, result));
+			}
+		}
+		return result;
+	}
+	
+	private List<?> upsertTuple(List<?> tuple) throws TeiidComponentException {
+		List<?> result = tree.insert(tuple, InsertMode.UPDATE, -1);
+		if (indexTables != null) {
+			for (TempTable index : this.indexTables.values()) {
+				if (result != null) {
+					//the index key may have changed
+					index.tree.remove(projectIndexTuple(index, result));
+				}
+				index.tree.insert(projectIndexTuple(index, tuple), InsertMode.UPDATE, -1);
+			}
+		}
+		return result;
+	}
+	
+	private List<?> projectIndexTuple(TempTable index, List<?> tuple) {
+		return RelationalNode.projectTuple(RelationalNode.getProjectionIndexes(this.columnMap, index.columns), tuple);
+	}
+	
 	private void updateTuple(List<?> tuple) throws TeiidComponentException {
 		if (tree.insert(tuple, InsertMode.UPDATE, -1) == null) {
 			throw new AssertionError("Update failed"); //$NON-NLS-1$
@@ -25,8 +25,17 @@ package org.teiid.query.tempdata;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.teiid.adminapi.impl.SessionMetadata;
 import org.teiid.adminapi.impl.VDBMetaData;
@@ -42,8 +51,11 @@ import org.teiid.common.buffer.TupleBuffer;
 import org.teiid.common.buffer.TupleSource;
 import org.teiid.core.CoreConstants;
 import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidException;
 import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.types.ArrayImpl;
 import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.types.TransformationException;
 import org.teiid.core.util.Assertion;
 import org.teiid.core.util.StringUtil;
 import org.teiid.dqp.internal.process.CachedResults;
@@ -64,13 +76,17 @@ import org.teiid.query.metadata.TempMetadataAdapter;
 import org.teiid.query.metadata.TempMetadataID;
 import org.teiid.query.optimizer.relational.RelationalPlanner;
 import org.teiid.query.parser.ParseInfo;
+import org.teiid.query.parser.QueryParser;
 import org.teiid.query.processor.BatchCollector;
 import org.teiid.query.processor.CollectionTupleSource;
 import org.teiid.query.processor.ProcessorDataManager;
 import org.teiid.query.processor.QueryProcessor;
 import org.teiid.query.processor.RegisterRequestParameter;
+import org.teiid.query.processor.relational.RelationalNode;
+import org.teiid.query.resolver.QueryResolver;
 import org.teiid.query.resolver.util.ResolverUtil;
 import org.teiid.query.sql.lang.*;
+import org.teiid.query.sql.lang.SetQuery.Operation;
 import org.teiid.query.sql.symbol.Constant;
 import org.teiid.query.sql.symbol.ElementSymbol;
 import org.teiid.query.sql.symbol.Expression;
@@ -78,6 +94,7 @@ import org.teiid.query.sql.symbol.GroupSymbol;
 import org.teiid.query.sql.symbol.Reference;
 import org.teiid.query.tempdata.GlobalTableStoreImpl.MatTableInfo;
 import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
 
 /**
  * This proxy ProcessorDataManager is used to handle temporary tables.
@@ -100,6 +117,8 @@ public class TempTableDataManager implements ProcessorDataManager {
     private BufferManager bufferManager;
 	private SessionAwareCache<CachedResults> cache;
     private RequestExecutor executor;
+    private Executor loadExecutor;
+    private int loadConcurrency = 2;
     
     private EventDistributor eventDistributor;
 	
@@ -114,6 +133,22 @@ public class TempTableDataManager implements ProcessorDataManager {
 		this.executor = executor;
 	}
     
+    /**
+     * Set the executor used to load materialized view partitions concurrently.
+     * See {@link Options#PARALLEL_MAT_VIEW_LOAD}
+     */
+    public void setLoadExecutor(Executor loadExecutor) {
+		this.loadExecutor = loadExecutor;
+	}
+    
+    /**
+     * Set the maximum number of partitions that may be submitted to the load executor at once.
+     * This should be well below the size of the executor pool.
+     */
+    public void setLoadConcurrency(int loadConcurrency) {
+		this.loadConcurrency = loadConcurrency;
+	}
+    
     public void setEventDistributor(EventDistributor eventDistributor) {
 		this.eventDistributor = eventDistributor;
 	}
@@ -314,9 +349,6 @@ public class TempTableDataManager implements ProcessorDataManager {
 				 throw new QueryProcessingException(QueryPlugin.Event.TEIID30230, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30230, matViewName));
 			}
 			List<?> ids = metadata.getElementIDsInKey(pk);
-			if (ids.size() > 1) {
-				 throw new QueryProcessingException(QueryPlugin.Event.TEIID30231, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30231, matViewName));
-			}
 			String matTableName = RelationalPlanner.MAT_PREFIX+matViewName.toUpperCase();
 			MatTableInfo info = globalStore.getMatTableInfo(matTableName);
 			if (!info.isValid()) {
@@ -328,28 +360,69 @@ public class TempTableDataManager implements ProcessorDataManager {
 			}
 			Constant key = (Constant)proc.getParameter(3).getExpression();
 			LogManager.logInfo(LogConstants.CTX_MATVIEWS, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30012, matViewName, key));
-			Object id = ids.iterator().next();
-			String targetTypeName = metadata.getElementType(id);
-			Object value = DataTypeManager.transformValue(key.getValue(), DataTypeManager.getDataTypeClass(targetTypeName));
-			String queryString = Reserved.SELECT + " * " + Reserved.FROM + ' ' + matViewName + ' ' + Reserved.WHERE + ' ' + //$NON-NLS-1$
-				metadata.getFullName(id) + " = ?" + ' ' + Reserved.OPTION + ' ' + Reserved.NOCACHE; //$NON-NLS-1$
-			QueryProcessor qp = context.getQueryProcessorFactory().createQueryProcessor(queryString, matViewName.toUpperCase(), context, value);
+			List<List<Object>> keys = getRefreshKeys(metadata, matViewName, ids, key.getValue());
+			//requery all of the keys at once and apply the changes as a single update
+			//the mat table has the key columns first
+			List<?> viewIds = metadata.getElementIDsInGroupID(groupID);
+			int[] tableOrder = new int[viewIds.size()];
+			List<Object> orderedIds = new ArrayList<Object>(ids);
+			for (Object id : viewIds) {
+				if (!ids.contains(id)) {
+					orderedIds.add(id);
+				}
+			}
+			for (int i = 0; i < tableOrder.length; i++) {
+				tableOrder[i] = viewIds.indexOf(orderedIds.get(i));
+			}
+			StringBuilder queryString = new StringBuilder();
+			queryString.append(Reserved.SELECT).append(" * ").append(Reserved.FROM).append(' ').append(matViewName).append(' ').append(Reserved.WHERE).append(' '); //$NON-NLS-1$
+			List<Object> params = new ArrayList<Object>(keys.size() * ids.size());
+			if (ids.size() == 1) {
+				//a single column key is a single set criteria
+				queryString.append(metadata.getFullName(ids.get(0))).append(' ').append(Reserved.IN).append(" ("); //$NON-NLS-1$
+				for (int i = 0; i < keys.size(); i++) {
+					if (i > 0) {
+						queryString.append(", "); //$NON-NLS-1$
+					}
+					queryString.append('?');
+					params.addAll(keys.get(i));
+				}
+				queryString.append(')');
+			} else {
+				for (int i = 0; i < keys.size(); i++) {
+					if (i > 0) {
+						queryString.append(' ').append(Reserved.OR).append(' ');
+					}
+					queryString.append('(');
+					for (int j = 0; j < ids.size(); j++) {
+						if (j > 0) {
+							queryString.append(' ').append(Reserved.AND).append(' ');
+						}
+						queryString.append(metadata.getFullName(ids.get(j))).append(" = ?"); //$NON-NLS-1$
+					}
+					queryString.append(')');
+					params.addAll(keys.get(i));
+				}
+			}
+			queryString.append(' ').append(Reserved.OPTION).append(' ').append(Reserved.NOCACHE);
+			QueryProcessor qp = context.getQueryProcessorFactory().createQueryProcessor(queryString.toString(), matViewName.toUpperCase(), context, params.toArray());
 			qp.setNonBlocking(true);
 			qp.getContext().setDataObjects(null);
 			TupleSource ts = new BatchCollector.BatchProducerTupleSource(qp);
-			List<?> tuple = ts.nextTuple();
-			boolean delete = false;
-			if (tuple == null) {
-				delete = true;
-				tuple = Arrays.asList(value);
-			} else {
-				tuple = new ArrayList<Object>(tuple); //ensure the list is serializable 
+			Set<List<Object>> deletes = new LinkedHashSet<List<Object>>(keys);
+			List<List<?>> tuples = new ArrayList<List<?>>();
+			List<?> tuple = null;
+			while ((tuple = ts.nextTuple()) != null) {
+				List<Object> row = new ArrayList<Object>(RelationalNode.projectTuple(tableOrder, tuple)); //ensure the list is serializable
+				deletes.remove(row.subList(0, ids.size()));
+				tuples.add(row);
 			}
-			List<?> result = globalStore.updateMatViewRow(matTableName, tuple, delete);
+			List<List<?>> deleted = new ArrayList<List<?>>(deletes);
+			int result = globalStore.updateMatViewRows(matTableName, tuples, deleted);
 			if (eventDistributor != null) {
-				this.eventDistributor.updateMatViewRow(context.getVdbName(), context.getVdbVersion(), metadata.getName(metadata.getModelID(groupID)), metadata.getName(groupID), tuple, delete);
+				this.eventDistributor.updateMatViewRows(context.getVdbName(), context.getVdbVersion(), metadata.getName(metadata.getModelID(groupID)), metadata.getName(groupID), tuples, deleted);
 			}
-			return CollectionTupleSource.createUpdateCountTupleSource(result != null ? 1 : 0);
+			return CollectionTupleSource.createUpdateCountTupleSource(result);
 		}
 		return null;
 	}
@@ -367,6 +440,53 @@ public class TempTableDataManager implements ProcessorDataManager {
 		}
 	}
 
+	/**
+	 * Get the keys to refresh from the key parameter value.  A single column key may be given
+	 * as a value or as an array of values.  A composite key is given as an array of the key values,
+	 * or multiple composite keys as an array of arrays.
+	 */
+	private List<List<Object>> getRefreshKeys(QueryMetadataInterface metadata, String matViewName, List<?> ids, Object value)
+			throws TeiidComponentException, QueryMetadataException, QueryProcessingException, TransformationException {
+		List<Object[]> rawKeys = new ArrayList<Object[]>();
+		Object[] values = getArrayValues(value);
+		if (values == null) {
+			rawKeys.add(new Object[] {value});
+		} else if (ids.size() > 1 && (values.length == 0 || getArrayValues(values[0]) == null)) {
+			rawKeys.add(values);
+		} else {
+			for (Object keyValue : values) {
+				Object[] keyValues = getArrayValues(keyValue);
+				if (keyValues == null) {
+					keyValues = new Object[] {keyValue};
+				}
+				rawKeys.add(keyValues);
+			}
+		}
+		List<List<Object>> keys = new ArrayList<List<Object>>(rawKeys.size());
+		for (Object[] rawKey : rawKeys) {
+			if (rawKey.length != ids.size()) {
+				 throw new QueryProcessingException(QueryPlugin.Event.TEIID30231, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30231, matViewName, Arrays.toString(rawKey), ids.size()));
+			}
+			List<Object> key = new ArrayList<Object>(rawKey.length);
+			for (int i = 0; i < rawKey.length; i++) {
+				String targetTypeName = metadata.getElementType(ids.get(i));
+				key.add(DataTypeManager.transformValue(rawKey[i], DataTypeManager.getDataTypeClass(targetTypeName)));
+			}
+			keys.add(key);
+		}
+		return keys;
+	}
+	
+	private static Object[] getArrayValues(Object value) {
+		if (value instanceof ArrayImpl) {
+			return ((ArrayImpl)value).getValues();
+		}
+		if (value instanceof Object[]) {
+			return (Object[])value;
+		}
+		return null;
+	}
+
 	private TupleSource registerQuery(final CommandContext context,
 			TempTableStore contextStore, Query query)
 			throws TeiidComponentException, QueryMetadataException,
@@ -443,6 +563,146 @@ public class TempTableDataManager implements ProcessorDataManager {
 		});
 	}
 
+	/**
+	 * Split a UNION ALL transformation into its branches so that each can be loaded concurrently.
+	 * @return the branches or null if the transformation cannot be split
+	 */
+	private List<QueryCommand> getLoadPartitions(String transformation, QueryMetadataInterface metadata) throws TeiidComponentException, TeiidProcessingException {
+		Command command = QueryParser.getQueryParser().parseCommand(transformation);
+		if (!(command instanceof SetQuery)) {
+			return null;
+		}
+		QueryResolver.resolveCommand(command, metadata);
+		List<QueryCommand> partitions = new ArrayList<QueryCommand>();
+		addLoadPartitions((SetQuery)command, partitions);
+		if (partitions.size() < 2) {
+			return null;
+		}
+		List<Expression> projected = command.getProjectedSymbols();
+		for (QueryCommand partition : partitions) {
+			List<Expression> partitionProjected = partition.getProjectedSymbols();
+			for (int i = 0; i < projected.size(); i++) {
+				if (projected.get(i).getType() != partitionProjected.get(i).getType()) {
+					return null;
+				}
+			}
+		}
+		return partitions;
+	}
+
+	private void addLoadPartitions(QueryCommand command, List<QueryCommand> partitions) {
+		if (command instanceof SetQuery) {
+			SetQuery setQuery = (SetQuery)command;
+			if (setQuery.getOperation() == Operation.UNION && setQuery.isAll() && setQuery.getOrderBy() == null 
+					&& setQuery.getLimit() == null && setQuery.getWith() == null) {
+				addLoadPartitions(setQuery.getLeftQuery(), partitions);
+				addLoadPartitions(setQuery.getRightQuery(), partitions);
+				return;
+			}
+		}
+		partitions.add(command);
+	}
+
+	/**
+	 * Run each partition with its own processor, then insert the results into the new table.
+	 * At most {@link #setLoadConcurrency(int)} partitions are submitted to the load executor 
+	 * at a time and a partition that has not been started by the time its results are needed 
+	 * is run by the loading thread, so that the load cannot be starved of threads.  
+	 * Readers continue to use the existing table until the new one is swapped in by 
+	 * {@link GlobalTableStore#loaded(String, TempTable)}.
+	 */
+	private void loadPartitions(CommandContext context, String fullName,
+			List<QueryCommand> partitions, TempTable table, List<ElementSymbol> allColumns)
+			throws TeiidComponentException, TeiidProcessingException {
+		final DQPWorkContext workContext = context.getDQPWorkContext();
+		final AtomicBoolean canceled = new AtomicBoolean();
+		List<FutureTask<TupleBuffer>> results = new ArrayList<FutureTask<TupleBuffer>>(partitions.size());
+		List<QueryProcessor> processors = new ArrayList<QueryProcessor>(partitions.size());
+		int inserted = 0;
+		try {
+			for (QueryCommand partition : partitions) {
+				final QueryProcessor qp = context.getQueryProcessorFactory().createQueryProcessor(partition.toString(), fullName, context);
+				qp.setNonBlocking(true);
+				//block on the source queries in the partition thread rather than polling for results
+				qp.getContext().setSerialSourceAccess(true);
+				qp.getContext().setDataObjects(null);
+				processors.add(qp);
+				results.add(new FutureTask<TupleBuffer>(new Callable<TupleBuffer>() {
+					@Override
+					public TupleBuffer call() throws Exception {
+						if (canceled.get()) {
+							return null;
+						}
+						return qp.createBatchCollector().collectTuples();
+					}
+				}));
+			}
+			int concurrency = Math.max(1, loadConcurrency);
+			for (int i = 0; i < concurrency && i < results.size(); i++) {
+				submitPartition(workContext, results.get(i));
+			}
+			for (; inserted < results.size(); inserted++) {
+				if (inserted + concurrency < results.size()) {
+					submitPartition(workContext, results.get(inserted + concurrency));
+				}
+				FutureTask<TupleBuffer> result = results.get(inserted);
+				//no-op if already started by the executor
+				result.run();
+				TupleBuffer tb = getPartitionResult(result);
+				try {
+					table.insert(tb.createIndexedTupleSource(true), allColumns, false, null);
+				} finally {
+					tb.remove();
+				}
+			}
+		} finally {
+			//cleanup after a failure
+			canceled.set(true);
+			for (int i = inserted; i < results.size(); i++) {
+				FutureTask<TupleBuffer> result = results.get(i);
+				processors.get(i).requestCanceled();
+				result.run();
+				try {
+					TupleBuffer tb = getPartitionResult(result);
+					if (tb != null) {
+						tb.remove();
+					}
+				} catch (TeiidException e) {
+					//already reporting the original failure
+				}
+			}
+		}
+	}
+
+	private void submitPartition(final DQPWorkContext workContext, final FutureTask<TupleBuffer> result) {
+		loadExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				if (workContext != null) {
+					workContext.runInContext(result);
+				} else {
+					result.run();
+				}
+			}
+		});
+	}
+
+	private TupleBuffer getPartitionResult(FutureTask<TupleBuffer> result) throws TeiidComponentException, TeiidProcessingException {
+		try {
+			return result.get();
+		} catch (InterruptedException e) {
+			throw new TeiidComponentException(QueryPlugin.Event.TEIID30235, e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof TeiidProcessingException) {
+				throw (TeiidProcessingException)e.getCause();
+			}
+			if (e.getCause() instanceof TeiidComponentException) {
+				throw (TeiidComponentException)e.getCause();
+			}
+			throw new TeiidComponentException(e.getCause());
+		}
+	}
+
 	private int loadGlobalTable(CommandContext context,
 			GroupSymbol group, final String tableName, GlobalTableStore globalStore)
 			throws TeiidComponentException, TeiidProcessingException {
@@ -455,23 +715,34 @@ public class TempTableDataManager implements ProcessorDataManager {
 		try {
 			String fullName = metadata.getFullName(group.getMetadataID());
 			String transformation = metadata.getVirtualPlan(group.getMetadataID()).getQuery();
-			QueryProcessor qp = context.getQueryProcessorFactory().createQueryProcessor(transformation, fullName, context);
-			qp.setNonBlocking(true);
-			qp.getContext().setDataObjects(null);
-			TupleSource ts = new BatchCollector.BatchProducerTupleSource(qp);
-			
-			table.insert(ts, allColumns, false, null);
+			List<QueryCommand> partitions = null;
+			if (loadExecutor != null && context.getOptions().isParallelMatViewLoad()) {
+				partitions = getLoadPartitions(transformation, metadata);
+			}
+			if (partitions != null) {
+				loadPartitions(context, fullName, partitions, table, allColumns);
+			} else {
+				QueryProcessor qp = context.getQueryProcessorFactory().createQueryProcessor(transformation, fullName, context);
+				qp.setNonBlocking(true);
+				qp.getContext().setDataObjects(null);
+				TupleSource ts = new BatchCollector.BatchProducerTupleSource(qp);
+				
+				table.insert(ts, allColumns, false, null);
+			}
 			table.getTree().compact();
 			rowCount = table.getRowCount();
 			//TODO: could pre-process indexes to remove overlap
+			//build all of the indexes from a single scan of the loaded rows
+			Map<List<ElementSymbol>, Boolean> indexes = new LinkedHashMap<List<ElementSymbol>, Boolean>();
 			for (Object index : metadata.getIndexesInGroup(group.getMetadataID())) {
 				List<ElementSymbol> columns = GlobalTableStoreImpl.resolveIndex(metadata, allColumns, index);
-				table.addIndex(columns, false);
+				indexes.put(columns, false);
 			}
 			for (Object key : metadata.getUniqueKeysInGroup(group.getMetadataID())) {
 				List<ElementSymbol> columns = GlobalTableStoreImpl.resolveIndex(metadata, allColumns, key);
-				table.addIndex(columns, true);
+				indexes.put(columns, true);
 			}
+			table.addIndexes(indexes);
 			CacheHint hint = table.getCacheHint();
 			if (hint != null && table.getPkLength() > 0) {
 				table.setUpdatable(hint.isUpdatable(false));
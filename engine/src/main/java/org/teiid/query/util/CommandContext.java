@@ -155,6 +155,8 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
     private TempTableStore tempTableStore;
     private LinkedList<String> recursionStack;
     private boolean nonBlocking;
+    private boolean serialSourceAccess;
+    private List<?> boundParameterValues;
     private HashSet<Object> planningObjects;
     private HashSet<Object> dataObjects = this.globalState.dataObjects;
     private TupleSourceCache tupleSourceCache;
@@ -231,6 +233,8 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
             clone.recursionStack = new LinkedList<String>(this.recursionStack);
         }
     	clone.setNonBlocking(this.nonBlocking);
+    	clone.setSerialSourceAccess(this.serialSourceAccess);
+    	clone.boundParameterValues = this.boundParameterValues;
     	clone.tupleSourceCache = this.tupleSourceCache;
     	return clone;
     }
@@ -493,6 +497,30 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
 		this.nonBlocking = nonBlocking;
 	}
     
+    /**
+     * @return true if source queries should be executed by the processing thread 
+     * rather than asynchronously with additional threads 
+     */
+    public boolean isSerialSourceAccess() {
+		return serialSourceAccess;
+	}
+    
+    public void setSerialSourceAccess(boolean serialSourceAccess) {
+		this.serialSourceAccess = serialSourceAccess;
+	}
+    
+    /**
+     * @return the values bound to positional references while planning a prepared statement
+     * or null if the values should not be considered by costing 
+     */
+    public List<?> getBoundParameterValues() {
+		return boundParameterValues;
+	}
+    
+    public void setBoundParameterValues(List<?> boundParameterValues) {
+		this.boundParameterValues = boundParameterValues;
+	}
+    
     public void setPreparedPlanCache(SessionAwareCache<PreparedPlan> cache) {
     	this.globalState.planCache = cache;
     }
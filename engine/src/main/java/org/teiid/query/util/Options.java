@@ -33,12 +33,18 @@ public class Options {
 	public static final String PUSHDOWN_DEFAULT_NULL_ORDER = "org.teiid.pushdownDefaultNullOrder"; //$NON-NLS-1$
 	public static final String IMPLICIT_MULTISOURCE_JOIN = "org.teiid.implicitMultiSourceJoin"; //$NON-NLS-1$
 	public static final String JOIN_PREFETCH_BATCHES = "org.teiid.joinPrefetchBatches"; //$NON-NLS-1$
+	public static final String PARALLEL_MAT_VIEW_LOAD = "org.teiid.parallelMatViewLoad"; //$NON-NLS-1$
+	public static final String TEXT_TABLE_PARALLEL_MIN_LINES = "org.teiid.textTableParallelMinLines"; //$NON-NLS-1$
+	public static final String TEXT_TABLE_PARALLEL_CHUNKS = "org.teiid.textTableParallelChunks"; //$NON-NLS-1$
 
 	private Properties properties;
 	private boolean subqueryUnnestDefault;
 	private boolean pushdownDefaultNullOrder;
 	private boolean implicitMultiSourceJoin = true;
 	private int joinPrefetchBatches = 10;
+	private boolean parallelMatViewLoad;
+	private int textTableParallelMinLines = 10000;
+	private int textTableParallelChunks = Math.min(4, Runtime.getRuntime().availableProcessors());
 	
 	public Properties getProperties() {
 		return properties;
@@ -100,4 +106,43 @@ public class Options {
 		return this;
 	}
 
+	public void setParallelMatViewLoad(boolean parallelMatViewLoad) {
+		this.parallelMatViewLoad = parallelMatViewLoad;
+	}
+	
+	public boolean isParallelMatViewLoad() {
+		return parallelMatViewLoad;
+	}
+	
+	public Options parallelMatViewLoad(boolean b) {
+		this.parallelMatViewLoad = b;
+		return this;
+	}
+	
+	public void setTextTableParallelMinLines(int textTableParallelMinLines) {
+		this.textTableParallelMinLines = textTableParallelMinLines;
+	}
+	
+	public int getTextTableParallelMinLines() {
+		return textTableParallelMinLines;
+	}
+	
+	public Options textTableParallelMinLines(int i) {
+		this.textTableParallelMinLines = i;
+		return this;
+	}
+	
+	public void setTextTableParallelChunks(int textTableParallelChunks) {
+		this.textTableParallelChunks = textTableParallelChunks;
+	}
+	
+	public int getTextTableParallelChunks() {
+		return textTableParallelChunks;
+	}
+	
+	public Options textTableParallelChunks(int i) {
+		this.textTableParallelChunks = i;
+		return this;
+	}
+
 }
@@ -24,6 +24,11 @@ package org.teiid.common.buffer;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -104,6 +109,69 @@ public class TestSTree {
 		}
 				
 	}
+
+	@Test public void testBulkLoad() throws TeiidComponentException, TeiidProcessingException {
+		BufferManagerImpl bm = BufferManagerFactory.createBufferManager();
+		bm.setProcessorBatchSize(4);
+
+		ElementSymbol e1 = new ElementSymbol("x");
+		e1.setType(Integer.class);
+		ElementSymbol e2 = new ElementSymbol("y");
+		e2.setType(String.class);
+		List<ElementSymbol> elements = Arrays.asList(e1, e2);
+		STree map = bm.createSTree(elements, "1", 1);
+
+		int size = (1<<12)+(1<<4)+1;
+		List<List<?>> values = new ArrayList<List<?>>(size);
+		for (int i = 0; i < size; i++) {
+			values.add(Arrays.asList(2*i, String.valueOf(i)));
+		}
+
+		assertEquals(size, map.bulkLoad(new CollectionTupleSource(values.iterator())));
+		assertEquals(size, map.getRowCount());
+		assertTrue(map.getHeight() > 1);
+
+		for (int i = 0; i < size; i++) {
+			assertEquals(values.get(i), map.find(Arrays.asList(2*i)));
+			assertNull(map.find(Arrays.asList(2*i + 1)));
+		}
+
+		//the tree should remain usable after the load
+		assertNull(map.insert(Arrays.asList(1, "a"), InsertMode.NEW, -1));
+		assertEquals(size + 1, map.getRowCount());
+
+		for (int i = 0; i < size; i++) {
+			assertNotNull(map.remove(Arrays.asList(2*i)));
+		}
+		assertEquals(1, map.getRowCount());
+	}
+	
+	@Test public void testWriteRead() throws Exception {
+		BufferManagerImpl bm = BufferManagerFactory.createBufferManager();
+		bm.setProcessorBatchSize(4);
+
+		ElementSymbol e1 = new ElementSymbol("x");
+		e1.setType(Integer.class);
+		List<ElementSymbol> elements = Arrays.asList(e1);
+		STree map = bm.createSTree(elements, "1", 1);
+
+		int size = 1000;
+		for (int i = 0; i < size; i++) {
+			assertNull(map.insert(Arrays.asList(i), InsertMode.NEW, -1));
+		}
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(baos);
+		map.writeValuesTo(oos);
+		oos.close();
+
+		STree copy = bm.createSTree(elements, "1", 1);
+		copy.readValuesFrom(new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray())));
+		assertEquals(size, copy.getRowCount());
+		for (int i = 0; i < size; i++) {
+			assertNotNull(copy.find(Arrays.asList(i)));
+		}
+	}
 	
 	@Test public void testStorageWrites() throws TeiidComponentException {
 		BufferManagerImpl bm = BufferManagerFactory.createBufferManager();
@@ -31,6 +31,7 @@ import javax.sql.rowset.serial.SerialClob;
 
 import org.junit.Test;
 import org.teiid.common.buffer.BufferManager.TupleSourceType;
+import org.teiid.common.buffer.impl.BufferManagerImpl;
 import org.teiid.core.types.ClobType;
 import org.teiid.core.types.DataTypeManager;
 import org.teiid.query.sql.symbol.ElementSymbol;
@@ -98,4 +99,22 @@ public class TestTupleBuffer {
 		assertNotNull(tb.getLobReference(c.getReferenceStreamId()));
 	}
 	
+	@Test public void testCompressedBatches() throws Exception {
+		BufferManagerImpl bm = BufferManagerFactory.getTestBufferManager(0, 64);
+		bm.setCompressBatches(true);
+		ElementSymbol x = new ElementSymbol("x"); //$NON-NLS-1$
+		x.setType(DataTypeManager.DefaultDataClasses.STRING);
+		List<ElementSymbol> schema = Arrays.asList(x);
+		TupleBuffer tb = bm.createTupleBuffer(schema, "x", TupleSourceType.PROCESSOR); //$NON-NLS-1$
+		for (int i = 0; i < 1024; i++) {
+			tb.addTuple(Arrays.asList("some repetitive value")); //$NON-NLS-1$
+		}
+		tb.close();
+		assertTrue(bm.getWriteCount() > 0);
+		assertTrue(bm.getBatchCompressionRatio() > 4);
+		for (int i = 1; i <= 1024; i++) {
+			assertEquals("some repetitive value", tb.getBatch(i).getTuple(i).get(0)); //$NON-NLS-1$
+		}
+	}
+	
 }
@@ -37,6 +37,15 @@ import org.teiid.core.TeiidComponentException;
 public class TestBufferFrontedFileStoreCache {
 	
 	private final static class SimpleSerializer implements Serializer<Integer> {
+		private boolean useSoftCache;
+		
+		public SimpleSerializer() {
+		}
+		
+		public SimpleSerializer(boolean useSoftCache) {
+			this.useSoftCache = useSoftCache;
+		}
+		
 		@Override
 		public Integer deserialize(ObjectInput ois)
 				throws IOException, ClassNotFoundException {
@@ -63,7 +72,7 @@ public class TestBufferFrontedFileStoreCache {
 
 		@Override
 		public boolean useSoftCache() {
-			return false;
+			return useSoftCache;
 		}
 	}
 
@@ -177,6 +186,100 @@ public class TestBufferFrontedFileStoreCache {
 		assertEquals(Integer.valueOf(5001), ce.getObject());
 	}
 
+	@Test public void testWriteBehind() throws Exception {
+		BufferFrontedFileStoreCache cache = createLayeredCache(1<<15, 1<<15);
+		cache.setWriteBehind(true);
+		
+		CacheEntry ce = new CacheEntry(2l);
+		Serializer<Integer> s = new SimpleSerializer();
+		cache.createCacheGroup(s.getId());
+		Integer cacheObject = Integer.valueOf(5000);
+		ce.setObject(cacheObject);
+		cache.addToCacheGroup(s.getId(), ce.getId());
+		cache.add(ce, s);
+		assertEquals(3, cache.getDirtyBlocks());
+		
+		assertEquals(1, cache.writeBehind(10));
+		assertEquals(0, cache.getDirtyBlocks());
+		assertEquals(1, cache.getStorageWrites());
+		assertEquals(1, cache.getWriteBehindWrites());
+		//nothing left to write
+		assertEquals(0, cache.writeBehind(10));
+		
+		//should still be read from memory
+		ce = get(cache, 2l, s);
+		assertEquals(cacheObject, ce.getObject());
+		assertEquals(0, cache.getStorageReads());
+		
+		cache.removeCacheGroup(1l);
+		
+		assertEquals(0, cache.getDirtyBlocks());
+		assertEquals(0, cache.getDataBlocksInUse());
+		assertEquals(0, cache.getInodesInUse());
+		
+		cache.shutdown();
+		assertFalse(cache.isWriteBehind());
+	}
+
+	@Test public void testPrefersMemory() throws Exception {
+		BufferFrontedFileStoreCache cache = createLayeredCache(1<<16, 1<<14);
+		cache.setRetainPreferred(true);
+		
+		Serializer<Integer> preferred = new SimpleSerializer(true);
+		Serializer<Integer> s = new SimpleSerializer();
+		cache.createCacheGroup(s.getId());
+		CacheEntry ce = new CacheEntry(1l);
+		Integer cacheObject = Integer.valueOf(1000);
+		ce.setObject(cacheObject);
+		cache.addToCacheGroup(s.getId(), ce.getId());
+		cache.add(ce, preferred);
+		assertEquals(1, cache.getPreferredBlocks());
+		
+		//force the eviction of other entries
+		for (long i = 2; i < 20; i++) {
+			ce = new CacheEntry(i);
+			ce.setObject(Integer.valueOf(1000));
+			cache.addToCacheGroup(s.getId(), ce.getId());
+			cache.add(ce, s);
+		}
+		assertTrue(cache.getStorageWrites() > 0);
+		
+		ce = get(cache, 1l, preferred);
+		assertEquals(cacheObject, ce.getObject());
+		assertEquals(0, cache.getStorageReads());
+		assertEquals(1, cache.getPreferredBlocks());
+		
+		cache.removeCacheGroup(1l);
+		assertEquals(0, cache.getPreferredBlocks());
+	}
+	
+	@Test public void testPrefersMemoryNotRetained() throws Exception {
+		BufferFrontedFileStoreCache cache = createLayeredCache(1<<16, 1<<14);
+		
+		Serializer<Integer> preferred = new SimpleSerializer(true);
+		Serializer<Integer> s = new SimpleSerializer();
+		cache.createCacheGroup(s.getId());
+		CacheEntry ce = new CacheEntry(1l);
+		Integer cacheObject = Integer.valueOf(1000);
+		ce.setObject(cacheObject);
+		cache.addToCacheGroup(s.getId(), ce.getId());
+		cache.add(ce, preferred);
+		//without retention the entry is treated like any other
+		assertEquals(0, cache.getPreferredBlocks());
+		
+		for (long i = 2; i < 20; i++) {
+			ce = new CacheEntry(i);
+			ce.setObject(Integer.valueOf(1000));
+			cache.addToCacheGroup(s.getId(), ce.getId());
+			cache.add(ce, s);
+		}
+		
+		ce = get(cache, 1l, preferred);
+		assertEquals(cacheObject, ce.getObject());
+		assertTrue(cache.getStorageReads() > 0);
+		assertEquals(0, cache.getPreferredBlocks());
+	}
+
 	private static BufferFrontedFileStoreCache createLayeredCache(int bufferSpace, int objectSize) throws TeiidComponentException {
 		BufferFrontedFileStoreCache fsc = new BufferFrontedFileStoreCache();
 		fsc.setMemoryBufferSpace(bufferSpace);
@@ -28,6 +28,7 @@ import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.Test;
 import org.teiid.common.buffer.BaseCacheEntry;
+import org.teiid.common.buffer.CacheKey;
 
 public class TestLrfuEvictionQueue {
 	
@@ -40,5 +41,29 @@ public class TestLrfuEvictionQueue {
 			value = valueNext;
 		}
 	}
+	
+	@Test public void testBufferedTouch() {
+		AtomicLong clock = new AtomicLong();
+		BufferedLrfuEvictionQueue<BaseCacheEntry> q = new BufferedLrfuEvictionQueue<BaseCacheEntry>(clock);
+		BaseCacheEntry first = new BaseCacheEntry(new CacheKey(1l, 0, 0));
+		BaseCacheEntry second = new BaseCacheEntry(new CacheKey(2l, 0, 1));
+		q.add(first);
+		q.add(second);
+		clock.set(LrfuEvictionQueue.MIN_INTERVAL + 1);
+		synchronized (first) {
+			q.touch(first);
+		}
+		clock.set(LrfuEvictionQueue.MIN_INTERVAL + 2);
+		synchronized (first) {
+			q.touch(first);
+		}
+		//the access is only recorded, and only once
+		assertEquals(1, q.getBufferedCount());
+		assertSame(first, q.evictionQueue.firstEntry().getValue());
+		//polling should apply the access first
+		assertSame(second, q.firstEntry(true));
+		assertSame(first, q.firstEntry(true));
+		assertNull(q.firstEntry(false));
+	}
 
 }
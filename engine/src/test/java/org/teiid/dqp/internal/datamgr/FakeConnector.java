@@ -28,6 +28,7 @@ import java.util.List;
 
 import org.teiid.language.Command;
 import org.teiid.metadata.RuntimeMetadata;
+import org.teiid.translator.BatchedResultSetExecution;
 import org.teiid.translator.DataNotAvailableException;
 import org.teiid.translator.Execution;
 import org.teiid.translator.ExecutionContext;
@@ -41,6 +42,8 @@ public class FakeConnector extends ExecutionFactory<Object, Object> {
     private int connectionCount;
     private int executionCount;
     private int closeCount;
+    private int batchedRows = -1;
+    private boolean batchedDataNotAvailable;
 
     public int getConnectionCount() {
 		return connectionCount;
@@ -53,6 +56,11 @@ public class FakeConnector extends ExecutionFactory<Object, Object> {
     @Override
     public Execution createExecution(Command command, ExecutionContext executionContext, RuntimeMetadata metadata, Object connection) throws TranslatorException {
     	executionCount++;
+    	if (batchedRows >= 0) {
+    		FakeBatchedExecution result = new FakeBatchedExecution(batchedRows);
+    		result.dataNotAvailable = batchedDataNotAvailable;
+    		return result;
+    	}
         return new FakeExecution(executionContext);
     }
     
@@ -71,6 +79,20 @@ public class FakeConnector extends ExecutionFactory<Object, Object> {
 		return closeCount;
 	}
     
+    /**
+     * Return {@link BatchedResultSetExecution}s with the given number of rows
+     */
+    public void setBatchedRows(int batchedRows) {
+		this.batchedRows = batchedRows;
+	}
+    
+    /**
+     * Have the {@link BatchedResultSetExecution}s throw a {@link DataNotAvailableException} after each partial batch 
+     */
+    public void setBatchedDataNotAvailable(boolean batchedDataNotAvailable) {
+		this.batchedDataNotAvailable = batchedDataNotAvailable;
+	}
+    
     public final class FakeExecution implements ResultSetExecution, UpdateExecution {
         private int rowCount;
         ExecutionContext ec;
@@ -105,5 +127,44 @@ public class FakeConnector extends ExecutionFactory<Object, Object> {
 		}
     }
 
+    
+    public final class FakeBatchedExecution implements BatchedResultSetExecution {
+    	private int rows;
+    	private int rowCount;
+    	private boolean dataNotAvailable;
+    	
+    	public FakeBatchedExecution(int rows) {
+    		this.rows = rows;
+		}
+    	
+    	@Override
+    	public void execute() throws TranslatorException {
+    	}
+    	
+    	@Override
+    	public List<?> next() throws TranslatorException, DataNotAvailableException {
+    		throw new AssertionError("the batch method should be used"); //$NON-NLS-1$
+    	}
+    	
+    	@Override
+    	public boolean nextBatch(List<List<?>> batch, int maxRows)
+    			throws TranslatorException, DataNotAvailableException {
+    		for (int i = 0; i < maxRows && rowCount < rows; i++) {
+    			batch.add(Arrays.asList(rowCount++));
+    		}
+    		if (dataNotAvailable && rowCount < rows) {
+    			throw new DataNotAvailableException();
+    		}
+    		return rowCount < rows;
+    	}
+    	
+    	@Override
+    	public void close() {
+    	}
+    	
+    	@Override
+    	public void cancel() throws TranslatorException {
+    	}
+    }
 	
 }
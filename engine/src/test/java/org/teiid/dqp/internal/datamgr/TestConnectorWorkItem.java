@@ -121,6 +121,47 @@ public class TestConnectorWorkItem {
 		return synchConnectorWorkItem.more();
 	}
 	
+	@Test public void testBatchedExecution() throws Throwable {
+		ConnectorManager cm = TestConnectorManager.getConnectorManager();
+		((FakeConnector)cm.getExecutionFactory()).setBatchedRows(12);
+		AtomicRequestMessage arm = createNewAtomicRequestMessage(1, 1);
+		ConnectorWorkItem synchConnectorWorkItem = new ConnectorWorkItem(arm, cm);
+		synchConnectorWorkItem.execute();
+		assertEquals(5, synchConnectorWorkItem.more().getResults().length);
+		assertEquals(5, synchConnectorWorkItem.more().getResults().length);
+		AtomicResultsMessage results = synchConnectorWorkItem.more();
+		assertEquals(2, results.getResults().length);
+		assertEquals(Integer.valueOf(11), results.getResults()[1].get(0));
+		assertEquals(12, results.getFinalRow());
+	}
+	
+	@Test public void testBatchedExecutionMaxRows() throws Throwable {
+		ConnectorManager cm = TestConnectorManager.getConnectorManager();
+		((FakeConnector)cm.getExecutionFactory()).setBatchedRows(12);
+		AtomicRequestMessage arm = createNewAtomicRequestMessage(1, 1);
+		arm.setMaxResultRows(7);
+		ConnectorWorkItem synchConnectorWorkItem = new ConnectorWorkItem(arm, cm);
+		synchConnectorWorkItem.execute();
+		assertEquals(5, synchConnectorWorkItem.more().getResults().length);
+		AtomicResultsMessage results = synchConnectorWorkItem.more();
+		assertEquals(2, results.getResults().length);
+		assertEquals(7, results.getFinalRow());
+	}
+	
+	@Test public void testBatchedExecutionMaxRowsDataNotAvailable() throws Throwable {
+		ConnectorManager cm = TestConnectorManager.getConnectorManager();
+		((FakeConnector)cm.getExecutionFactory()).setBatchedRows(12);
+		((FakeConnector)cm.getExecutionFactory()).setBatchedDataNotAvailable(true);
+		AtomicRequestMessage arm = createNewAtomicRequestMessage(1, 1);
+		arm.setMaxResultRows(2);
+		ConnectorWorkItem synchConnectorWorkItem = new ConnectorWorkItem(arm, cm);
+		synchConnectorWorkItem.execute();
+		//the max is still enforced for the rows returned with the exception
+		AtomicResultsMessage results = synchConnectorWorkItem.more();
+		assertEquals(2, results.getResults().length);
+		assertEquals(2, results.getFinalRow());
+	}
+	
 	@Test public void testExecutionWarning() throws Throwable {
 		AtomicResultsMessage results = helpExecuteUpdate();
 		assertEquals(1, results.getWarnings().size());
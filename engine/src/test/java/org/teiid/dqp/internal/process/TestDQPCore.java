@@ -616,7 +616,70 @@ public class TestDQPCore {
         
         assertEquals(1, this.core.getRsCache().getCacheHitCount());
     }
-    
+
+    @Test public void testRsCacheNormalizedKey() throws Exception {
+        String userName = "1"; //$NON-NLS-1$
+        int sessionid = 1; //$NON-NLS-1$
+        RequestMessage reqMsg = exampleRequestMessage("select * FROM vqt.SmallB"); //$NON-NLS-1$
+        reqMsg.setUseResultSetCache(true);
+        ResultsMessage rm = execute(userName, sessionid, reqMsg);
+        assertEquals(10, rm.getResultsList().size()); //$NON-NLS-1$
+        assertEquals(0, this.core.getRsCache().getCacheHitCount());
+
+        reqMsg = exampleRequestMessage("SELECT *\n  from /* comment */ vqt.SmallB "); //$NON-NLS-1$
+        reqMsg.setUseResultSetCache(true);
+        rm = execute(userName, sessionid, reqMsg);
+        assertEquals(10, rm.getResultsList().size()); //$NON-NLS-1$
+        assertEquals(1, this.core.getRsCache().getCacheHitCount());
+    }
+
+    @Test public void testRsCacheContainment() throws Exception {
+        String userName = "1"; //$NON-NLS-1$
+        int sessionid = 1; //$NON-NLS-1$
+        RequestMessage reqMsg = exampleRequestMessage("select * FROM vqt.SmallB"); //$NON-NLS-1$
+        reqMsg.setUseResultSetCache(true);
+        ResultsMessage rm = execute(userName, sessionid, reqMsg);
+        assertEquals(10, rm.getResultsList().size()); //$NON-NLS-1$
+        assertEquals(1, agds.getExecuteCount().get());
+
+        //answered from the cached results
+        reqMsg = exampleRequestMessage("select a12345 || 'x' FROM vqt.SmallB where a12345 like 'A%'"); //$NON-NLS-1$
+        reqMsg.setUseResultSetCache(true);
+        rm = execute(userName, sessionid, reqMsg);
+        assertEquals(10, rm.getResultsList().size()); //$NON-NLS-1$
+        assertEquals(1, agds.getExecuteCount().get());
+
+        reqMsg = exampleRequestMessage("select a12345 FROM vqt.SmallB where a12345 = 'x'"); //$NON-NLS-1$
+        reqMsg.setUseResultSetCache(true);
+        rm = execute(userName, sessionid, reqMsg);
+        assertEquals(0, rm.getResultsList().size()); //$NON-NLS-1$
+        assertEquals(1, agds.getExecuteCount().get());
+        //looking up the containing results is not counted as a hit
+        assertEquals(0, this.core.getRsCache().getCacheHitCount());
+
+        //not contained
+        reqMsg = exampleRequestMessage("select count(*) FROM vqt.SmallB"); //$NON-NLS-1$
+        reqMsg.setUseResultSetCache(true);
+        rm = execute(userName, sessionid, reqMsg);
+        assertEquals(1, rm.getResultsList().size()); //$NON-NLS-1$
+        assertEquals(2, agds.getExecuteCount().get());
+    }
+
+    @Test public void testPreparedPlanNormalizedKey() throws Exception {
+        String userName = "1"; //$NON-NLS-1$
+        int sessionid = 1; //$NON-NLS-1$
+        RequestMessage reqMsg = exampleRequestMessage("select * FROM vqt.SmallB"); //$NON-NLS-1$
+        reqMsg.setStatementType(StatementType.PREPARED);
+        ResultsMessage rm = execute(userName, sessionid, reqMsg);
+        assertEquals(10, rm.getResultsList().size()); //$NON-NLS-1$
+
+        reqMsg = exampleRequestMessage("SELECT * from vqt.SmallB"); //$NON-NLS-1$
+        reqMsg.setStatementType(StatementType.PREPARED);
+        rm = execute(userName, sessionid, reqMsg);
+        assertEquals(10, rm.getResultsList().size()); //$NON-NLS-1$
+        assertEquals(1, this.core.getPrepPlanCache().getCacheHitCount());
+    }
+
     @Test public void testLobConcurrency() throws Exception {
     	RequestMessage reqMsg = exampleRequestMessage("select to_bytes(stringkey, 'utf-8') FROM BQT1.SmallA"); 
         reqMsg.setTxnAutoWrapMode(RequestMessage.TXN_WRAP_OFF);
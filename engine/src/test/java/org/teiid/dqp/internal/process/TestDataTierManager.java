@@ -351,6 +351,32 @@ public class TestDataTierManager {
     	assertEquals(2, this.rm.getRsCache().getCachePutCount());
     	assertEquals(2, this.rm.getRsCache().getTotalCacheEntries());
     }
+
+    @Test public void testCachingSourceSpecific() throws Exception {
+    	QueryMetadataInterface metadata = RealMetadataFactory.exampleBQTCached();
+
+    	this.connectorManager.cacheDirective = new CacheDirective();
+    	helpSetupDataTierManager();
+    	Command command = helpSetupRequest("SELECT stringkey from bqt1.smalla", 1, metadata).getCommand();
+    	RegisterRequestParameter rrp = new RegisterRequestParameter();
+    	rrp.connectorBindingId = "x";
+    	TupleSource ts = dtm.registerRequest(context, command, "foo", rrp);
+    	assertTrue(ts instanceof CachingTupleSource);
+    	assertEquals(10, pullTuples(ts, -1));
+    	ts.closeSource();
+    	assertEquals(1, this.rm.getRsCache().getCachePutCount());
+
+    	//same command against a different source, should not use the cache entry
+    	command = helpSetupRequest("SELECT stringkey from bqt1.smalla", 1, metadata).getCommand();
+    	rrp = new RegisterRequestParameter();
+    	rrp.connectorBindingId = "y";
+    	ts = dtm.registerRequest(context, command, "foo", rrp);
+    	assertTrue(ts instanceof CachingTupleSource);
+    	assertEquals(10, pullTuples(ts, -1));
+    	assertEquals(2, connectorManager.getExecuteCount().get());
+    	ts.closeSource();
+    	assertEquals(2, this.rm.getRsCache().getTotalCacheEntries());
+    }
     
     @Test public void testTypeConversion() throws Exception {
     	BufferManager bm = BufferManagerFactory.getStandaloneBufferManager();
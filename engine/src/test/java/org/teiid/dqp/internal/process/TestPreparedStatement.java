@@ -42,7 +42,9 @@ import org.teiid.core.TeiidProcessingException;
 import org.teiid.dqp.internal.datamgr.ConnectorManagerRepository;
 import org.teiid.dqp.internal.datamgr.FakeTransactionService;
 import org.teiid.dqp.service.AutoGenDataService;
+import org.teiid.metadata.Column;
 import org.teiid.query.metadata.QueryMetadataInterface;
+import org.teiid.query.metadata.TransformationMetadata;
 import org.teiid.query.optimizer.TestOptimizer;
 import org.teiid.query.optimizer.capabilities.BasicSourceCapabilities;
 import org.teiid.query.optimizer.capabilities.CapabilitiesFinder;
@@ -53,6 +55,7 @@ import org.teiid.query.processor.FakeDataManager;
 import org.teiid.query.processor.HardcodedDataManager;
 import org.teiid.query.processor.ProcessorDataManager;
 import org.teiid.query.processor.TestProcessor;
+import org.teiid.query.processor.relational.RelationalPlan;
 import org.teiid.query.unittest.RealMetadataFactory;
 
 @SuppressWarnings({"nls", "unchecked"})
@@ -463,4 +466,30 @@ public class TestPreparedStatement {
 		helpTestProcessing(preparedSql, values, expected, dataManager, new DefaultCapabilitiesFinder(caps), metadata, null, false, false, false, RealMetadataFactory.example1VDB());
     }
     
+    @Test public void testSelectivityVariants() throws Exception {
+    	String preparedSql = "SELECT pm1.g1.e1 FROM pm1.g1 WHERE pm1.g1.e2 > ?"; //$NON-NLS-1$
+    	
+    	TransformationMetadata metadata = RealMetadataFactory.example1();
+    	RealMetadataFactory.setCardinality("pm1.g1", 1000, metadata); //$NON-NLS-1$
+    	Column e2 = metadata.getElementID("pm1.g1.e2"); //$NON-NLS-1$
+    	e2.setMinimumValue("0"); //$NON-NLS-1$
+    	e2.setMaximumValue("1000"); //$NON-NLS-1$
+    	
+    	SessionAwareCache<PreparedPlan> prepPlanCache = new SessionAwareCache<PreparedPlan>("preparedplan", DefaultCacheFactory.INSTANCE, SessionAwareCache.Type.PREPAREDPLAN, 0); //$NON-NLS-1$
+    	PreparedStatementRequest request = helpGetProcessorPlan(preparedSql, Arrays.asList(999), new DefaultCapabilitiesFinder(), metadata, prepPlanCache, SESSION_ID, false, false, RealMetadataFactory.example1VDB());
+    	assertEquals(1, Math.round(((RelationalPlan)request.processPlan).getRootNode().getEstimateNodeCardinality().floatValue()));
+    	
+    	//a much less selective binding should get its own plan
+    	request = helpGetProcessorPlan(preparedSql, Arrays.asList(0), new DefaultCapabilitiesFinder(), metadata, prepPlanCache, SESSION_ID, false, false, RealMetadataFactory.example1VDB());
+    	assertEquals(1000, Math.round(((RelationalPlan)request.processPlan).getRootNode().getEstimateNodeCardinality().floatValue()));
+    	assertEquals(1, prepPlanCache.getCacheHitCount());
+    	
+    	//a binding of the same class reuses that plan
+    	request = helpGetProcessorPlan(preparedSql, Arrays.asList(100), new DefaultCapabilitiesFinder(), metadata, prepPlanCache, SESSION_ID, false, false, RealMetadataFactory.example1VDB());
+    	assertEquals(1000, Math.round(((RelationalPlan)request.processPlan).getRootNode().getEstimateNodeCardinality().floatValue()));
+    	assertEquals(2, prepPlanCache.getCacheHitCount());
+    	
+    	assertNull(PreparedStatementRequest.getSelectivityClass(request.userCommand, Arrays.asList((Object)null), metadata));
+    }
+    
 }
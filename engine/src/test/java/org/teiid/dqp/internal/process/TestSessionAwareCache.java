@@ -21,20 +21,30 @@
  */
 package org.teiid.dqp.internal.process;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Mockito.times;
 
+import java.util.Arrays;
+
 import org.junit.Test;
 import org.mockito.Mockito;
 import org.teiid.adminapi.impl.SessionMetadata;
+import org.teiid.client.util.ResultsFuture;
 import org.teiid.cache.Cachable;
 import org.teiid.cache.DefaultCacheFactory;
 import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
+import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.TupleBuffer;
 import org.teiid.dqp.internal.process.SessionAwareCache.CacheID;
 import org.teiid.metadata.FunctionMethod.Determinism;
 import org.teiid.query.parser.ParseInfo;
+import org.teiid.query.sql.symbol.ElementSymbol;
 
 
 @SuppressWarnings("nls")
@@ -139,6 +149,72 @@ public class TestSessionAwareCache {
 	}
 
 	
+	@Test
+	public void testConcurrentLoad() {
+		
+		SessionAwareCache<Cachable> cache = new SessionAwareCache<Cachable>("resultset", DefaultCacheFactory.INSTANCE, SessionAwareCache.Type.RESULTSET, 0);
+		
+		CacheID id = new CacheID(buildWorkContext(), new ParseInfo(), "SELECT * FROM FOO");
+		assertNull(cache.get(id));
+		assertNull(cache.startLoad(id));
+		
+		CacheID other = new CacheID(buildWorkContext(), new ParseInfo(), "SELECT * FROM FOO");
+		ResultsFuture<Void> future = cache.startLoad(other);
+		assertNotNull(future);
+		assertFalse(future.isDone());
+		
+		cache.put(id, Determinism.SESSION_DETERMINISTIC, Mockito.mock(Cachable.class), null);
+		cache.endLoad(id);
+		
+		assertTrue(future.isDone());
+		assertNull(cache.startLoad(other));
+	}
+	
+	@Test
+	public void testSizeEviction() throws Exception {
+		
+		SessionAwareCache<CachedResults> cache = new SessionAwareCache<CachedResults>("resultset", DefaultCacheFactory.INSTANCE, SessionAwareCache.Type.RESULTSET, 0);
+		BufferManager bm = BufferManagerFactory.getStandaloneBufferManager();
+		
+		CachedResults small = helpCreateResults(bm, 10);
+		CachedResults medium = helpCreateResults(bm, 100);
+		CachedResults large = helpCreateResults(bm, 1000);
+		cache.setMaxSizeBytes(large.getSizeEstimate() + small.getSizeEstimate());
+		
+		CacheID smallId = new CacheID(buildWorkContext(), new ParseInfo(), "SELECT * FROM SMALL");
+		cache.put(smallId, Determinism.SESSION_DETERMINISTIC, small, null);
+		assertNotNull(cache.get(smallId));
+		assertNotNull(cache.get(smallId));
+		assertEquals(small.getSizeEstimate(), cache.getTotalSizeEstimate());
+		
+		CacheID mediumId = new CacheID(buildWorkContext(), new ParseInfo(), "SELECT * FROM MEDIUM");
+		cache.put(mediumId, Determinism.SESSION_DETERMINISTIC, medium, null);
+		
+		//the medium entry has no hits, so it should be evicted rather than the small one
+		//the new entry is never chosen
+		CacheID largeId = new CacheID(buildWorkContext(), new ParseInfo(), "SELECT * FROM LARGE");
+		cache.put(largeId, Determinism.SESSION_DETERMINISTIC, large, null);
+		assertEquals(small.getSizeEstimate() + large.getSizeEstimate(), cache.getTotalSizeEstimate());
+		assertNull(cache.get(mediumId));
+		assertNotNull(cache.get(largeId));
+		assertNotNull(cache.get(smallId));
+	}
+
+	private CachedResults helpCreateResults(BufferManager bm, int rows) throws Exception {
+		ElementSymbol x = new ElementSymbol("x");
+		x.setType(Integer.class);
+		TupleBuffer tb = bm.createTupleBuffer(Arrays.asList(x), "x", TupleSourceType.PROCESSOR);
+		for (int i = 0; i < rows; i++) {
+			tb.addTuple(Arrays.asList(i));
+		}
+		tb.close();
+		CachedResults cr = new CachedResults();
+		cr.setResults(tb, null);
+		cr.estimateSize(bm);
+		assertTrue(cr.getSizeEstimate() > 0);
+		return cr;
+	}
+	
 	public static DQPWorkContext buildWorkContext() {
 		DQPWorkContext workContext = new DQPWorkContext();
 		SessionMetadata session = new SessionMetadata();
@@ -6700,6 +6700,43 @@ public class TestOptimizer {
 		
 		getPlan(helpGetCommand("select * from x", metadata, null), metadata, getGenericFinder(), null, false, null);		
 	}
+	
+	@Test public void testPartitionedSourceQuery() throws Exception {
+		String ddl = "CREATE foreign table x (y integer options (MIN_VALUE '1', MAX_VALUE '100'), z string) options (\"teiid_rel:partition-column\" 'y', \"teiid_rel:partition-count\" '2')";
+
+		QueryMetadataInterface metadata = RealMetadataFactory.fromDDL(ddl, "x", "phy");
+		
+		FakeCapabilitiesFinder capFinder = new FakeCapabilitiesFinder();
+		capFinder.addCapabilities("phy", getTypicalCapabilities()); //$NON-NLS-1$
+		
+		ProcessorPlan plan = helpPlan("select y, z from x", metadata, null, capFinder,  //$NON-NLS-1$
+				new String[] {"SELECT g_0.y, g_0.z FROM phy.x AS g_0 WHERE g_0.y < 51", "SELECT g_0.y, g_0.z FROM phy.x AS g_0 WHERE g_0.y >= 51", "SELECT g_0.y, g_0.z FROM phy.x AS g_0 WHERE g_0.y IS NULL"}, ComparisonMode.EXACT_COMMAND_STRING); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		assertTrue(((RelationalPlan)plan).getRootNode() instanceof UnionAllNode);
+		
+		//ordered results are not partitioned
+		helpPlan("select y, z from x order by y", metadata, null, capFinder,  //$NON-NLS-1$
+				new String[] {"SELECT g_0.y AS c_0, g_0.z AS c_1 FROM phy.x AS g_0 ORDER BY c_0"}, ComparisonMode.EXACT_COMMAND_STRING); //$NON-NLS-1$
+		
+		//criteria on the partition column
+		helpPlan("select y, z from x where y = 1", metadata, null, capFinder,  //$NON-NLS-1$
+				new String[] {"SELECT g_0.y, g_0.z FROM phy.x AS g_0 WHERE g_0.y = 1"}, ComparisonMode.EXACT_COMMAND_STRING); //$NON-NLS-1$
+		
+		//restricted scan of an unknown size
+		helpPlan("select y, z from x where z = 'a'", metadata, null, capFinder,  //$NON-NLS-1$
+				new String[] {"SELECT g_0.y, g_0.z FROM phy.x AS g_0 WHERE g_0.z = 'a'"}, ComparisonMode.EXACT_COMMAND_STRING); //$NON-NLS-1$
+	}
+	
+	@Test public void testPartitionedSourceQuerySmallTable() throws Exception {
+		String ddl = "CREATE foreign table x (y integer options (MIN_VALUE '1', MAX_VALUE '100'), z string) options (CARDINALITY 100, \"teiid_rel:partition-column\" 'y', \"teiid_rel:partition-count\" '2')";
+
+		QueryMetadataInterface metadata = RealMetadataFactory.fromDDL(ddl, "x", "phy");
+		
+		FakeCapabilitiesFinder capFinder = new FakeCapabilitiesFinder();
+		capFinder.addCapabilities("phy", getTypicalCapabilities()); //$NON-NLS-1$
+		
+		helpPlan("select y, z from x", metadata, null, capFinder,  //$NON-NLS-1$
+				new String[] {"SELECT g_0.y, g_0.z FROM phy.x AS g_0"}, ComparisonMode.EXACT_COMMAND_STRING); //$NON-NLS-1$
+	}
     
 	public static final boolean DEBUG = false;
 
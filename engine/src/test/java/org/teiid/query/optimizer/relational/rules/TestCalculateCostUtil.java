@@ -86,7 +86,7 @@ public class TestCalculateCostUtil {
         Criteria crit = helpGetCriteria(critString, metadata);
         PlanNode select = RelationalPlanner.createSelectNode(crit, false);
         
-        float resultCost = NewCalculateCostUtil.recursiveEstimateCostOfCriteria(childCost, select, crit, metadata);
+        float resultCost = NewCalculateCostUtil.recursiveEstimateCostOfCriteria(childCost, select, crit, metadata, null);
         assertEquals((int)expectedResult, (int)resultCost);
     }
     
@@ -303,7 +303,7 @@ public class TestCalculateCostUtil {
         QueryMetadataInterface metadata = RealMetadataFactory.example4();
         PlanNode joinNode = helpGetJoinNode(NewCalculateCostUtil.UNKNOWN_VALUE, NewCalculateCostUtil.UNKNOWN_VALUE, JoinType.JOIN_CROSS);
         
-        float cost = NewCalculateCostUtil.computeCostForTree(joinNode, metadata);
+        float cost = NewCalculateCostUtil.computeCostForTree(joinNode, metadata, null);
         assertTrue(cost == NewCalculateCostUtil.UNKNOWN_VALUE);
     }
     
@@ -312,7 +312,7 @@ public class TestCalculateCostUtil {
         QueryMetadataInterface metadata = RealMetadataFactory.example4();
         PlanNode joinNode = helpGetJoinNode(NewCalculateCostUtil.UNKNOWN_VALUE, 500, JoinType.JOIN_INNER);
         joinNode.setProperty(NodeConstants.Info.JOIN_CRITERIA, Arrays.asList(helpGetCriteria("pm1.g1.e1 = pm1.g2.e1", metadata)));
-        float cost = NewCalculateCostUtil.computeCostForTree(joinNode, metadata);
+        float cost = NewCalculateCostUtil.computeCostForTree(joinNode, metadata, null);
         assertEquals(10000, cost, 0);
     }
     
@@ -27,8 +27,13 @@ import static org.junit.Assert.*;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.InflaterInputStream;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -36,6 +41,8 @@ import org.teiid.cache.DefaultCacheFactory;
 import org.teiid.common.buffer.BufferManager;
 import org.teiid.common.buffer.BufferManagerFactory;
 import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.util.ExecutorUtils;
+import org.teiid.core.util.ObjectConverterUtil;
 import org.teiid.dqp.internal.process.CachedResults;
 import org.teiid.dqp.internal.process.QueryProcessorFactoryImpl;
 import org.teiid.dqp.internal.process.SessionAwareCache;
@@ -51,6 +58,7 @@ import org.teiid.query.tempdata.GlobalTableStoreImpl.MatTableInfo;
 import org.teiid.query.tempdata.TempTableStore.TransactionMode;
 import org.teiid.query.unittest.RealMetadataFactory;
 import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
 
 @SuppressWarnings({"nls", "unchecked"})
 public class TestMaterialization {
@@ -61,6 +69,7 @@ public class TestMaterialization {
 	private GlobalTableStoreImpl globalStore;
 	private ProcessorPlan previousPlan;
 	private HardcodedDataManager hdm;
+	private Options options;
 	
 	@Before public void setUp() {
 		tempStore = new TempTableStore("1", TransactionMode.ISOLATE_WRITES); //$NON-NLS-1$
@@ -83,6 +92,9 @@ public class TestMaterialization {
 		cc.setTempTableStore(tempStore);
 		cc.setGlobalTableStore(globalStore);
 		cc.setMetadata(metadata);
+		if (options != null) {
+			cc.setOptions(options);
+		}
 		CapabilitiesFinder finder = new DefaultCapabilitiesFinder();
 		previousPlan = TestProcessor.helpGetPlan(TestProcessor.helpParse(sql), metadata, finder, cc);
 		cc.setQueryProcessorFactory(new QueryProcessorFactoryImpl(BufferManagerFactory.getStandaloneBufferManager(), dataManager, finder, null, metadata));
@@ -115,6 +127,22 @@ public class TestMaterialization {
 		this.globalStore.setState(codeTableName, new ByteArrayInputStream(baos.toByteArray()));
 	}
 	
+	@Test public void testReadPriorStateFormat() throws Exception {
+		execute("select lookup('mattable.info', 'e1', 'e2', 5)", Arrays.asList((String)null));
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		String codeTableName = "#CODE_MATTABLE.INFO.E2.E1";
+		this.globalStore.getState(codeTableName, baos);
+		byte[] bytes = baos.toByteArray();
+		assertEquals(1, bytes[0]);
+		//without secondary indexes the prior format is the uncompressed object stream
+		byte[] prior = ObjectConverterUtil.convertToByteArray(new InflaterInputStream(new ByteArrayInputStream(bytes, 1, bytes.length - 1)));
+		this.globalStore.failedLoad(codeTableName);
+		this.globalStore.setState(codeTableName, new ByteArrayInputStream(prior));
+		execute("select lookup('mattable.info', 'e1', 'e2', 1)", Arrays.asList("a"));
+		//should not have been reloaded
+		assertEquals(1, hdm.getCommandHistory().size());
+	}
+	
     @Test(expected=TeiidProcessingException.class) public void testCodeTableResponseException() throws Exception {
     	//duplicate key
     	execute("select lookup('mattable.info', 'e2', 'e1', 'a')");
@@ -170,4 +198,57 @@ public class TestMaterialization {
 		execute("SELECT * from vgroup7 where y is null", Arrays.asList("1", null, 1));
 	}
     
+	@Test public void testPartitionedLoad() throws Exception {
+		options = new Options().parallelMatViewLoad(true);
+		//the number of source queries when each partition task started
+		final List<Integer> started = new ArrayList<Integer>();
+		dataManager.setLoadExecutor(new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				started.add(hdm.getCommandHistory().size());
+				command.run();
+			}
+		});
+		execute("SELECT count(*) from vgroup8", Arrays.asList(12));
+		//each branch of the union is loaded by its own task with a single source query
+		assertEquals(Arrays.asList(0, 1, 2), started);
+		assertEquals(3, hdm.getCommandHistory().size());
+	}
+	
+	@Test(timeout=10000) public void testPartitionedLoadBoundedPool() throws Exception {
+		options = new Options().parallelMatViewLoad(true);
+		final ExecutorService pool = ExecutorUtils.newFixedThreadPool(1, "test"); //$NON-NLS-1$
+		final CountDownLatch latch = new CountDownLatch(1);
+		//occupy the only pool thread, the partitions must be run by the loading thread
+		pool.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					latch.await();
+				} catch (InterruptedException e) {
+				}
+			}
+		});
+		//the number of source queries when each partition was submitted
+		final List<Integer> submitted = new ArrayList<Integer>();
+		dataManager.setLoadExecutor(new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				submitted.add(hdm.getCommandHistory().size());
+				pool.execute(command);
+			}
+		});
+		dataManager.setLoadConcurrency(1);
+		try {
+			execute("SELECT count(*) from vgroup8", Arrays.asList(12));
+			assertEquals(3, hdm.getCommandHistory().size());
+			//only one partition is submitted ahead of the one being loaded, 
+			//so the last is not submitted until the first has run
+			assertEquals(Arrays.asList(0, 0, 1), submitted);
+		} finally {
+			latch.countDown();
+			pool.shutdownNow();
+		}
+	}
+    
 }
@@ -29,6 +29,10 @@ import static org.teiid.query.processor.TestProcessor.*;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.sql.rowset.serial.SerialClob;
 
@@ -48,6 +52,8 @@ import org.teiid.query.processor.relational.JoinNode;
 import org.teiid.query.processor.relational.NestedTableJoinStrategy;
 import org.teiid.query.processor.relational.RelationalPlan;
 import org.teiid.query.unittest.RealMetadataFactory;
+import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
 
 @SuppressWarnings({"unchecked", "nls"})
 public class TestTextTable {
@@ -330,6 +336,87 @@ public class TestTextTable {
         helpProcess(plan, createCommandContext(), dataManager, expected);
     } 
 	
+	@Test public void testParallelParsing() throws Exception {
+		String sql = "select y, x from texttable('a,1\nb,2\n\"c,d\",3\ne,4,z\nf,5' COLUMNS x string, y integer) x";
+    	
+        List[] expected = new List[] {
+        		Arrays.asList(1, "a"),
+        		Arrays.asList(2, "b"),
+        		Arrays.asList(3, "c,d"),
+        		Arrays.asList(4, "e"),
+        		Arrays.asList(5, "f"),
+        };    
+
+        FakeDataManager dataManager = new FakeDataManager();
+        sampleData1(dataManager);
+        CommandContext cc = createCommandContext();
+        cc.setProcessorBatchSize(2);
+        cc.setOptions(new Options().textTableParallelMinLines(0));
+        ExecutorService executor = Executors.newCachedThreadPool();
+        cc.setExecutor(executor);
+        try {
+        	ProcessorPlan plan = helpGetPlan(helpParse(sql), RealMetadataFactory.example1Cached(), new DefaultCapabilitiesFinder(), cc);
+        	helpProcess(plan, cc, dataManager, expected);
+        } finally {
+        	executor.shutdownNow();
+        }
+    }
+	
+	@Test public void testParallelParsingMinLines() throws Exception {
+		String sql = "select y, x from texttable('a,1\nb,2\nc,3' COLUMNS x string, y integer) x";
+    	
+        List[] expected = new List[] {
+        		Arrays.asList(1, "a"),
+        		Arrays.asList(2, "b"),
+        		Arrays.asList(3, "c"),
+        };    
+
+        FakeDataManager dataManager = new FakeDataManager();
+        sampleData1(dataManager);
+        CommandContext cc = createCommandContext();
+        cc.setProcessorBatchSize(2);
+        final AtomicInteger executed = new AtomicInteger();
+        cc.setExecutor(new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				executed.incrementAndGet();
+				command.run();
+			}
+		});
+    	ProcessorPlan plan = helpGetPlan(helpParse(sql), RealMetadataFactory.example1Cached(), new DefaultCapabilitiesFinder(), cc);
+    	helpProcess(plan, cc, dataManager, expected);
+    	//a small input is parsed serially
+    	assertEquals(0, executed.get());
+    }
+	
+	@Test public void testParallelParsingSingleChunk() throws Exception {
+		String sql = "select y, x from texttable('a,1\nb,2\nc,3' COLUMNS x string, y integer) x";
+    	
+        List[] expected = new List[] {
+        		Arrays.asList(1, "a"),
+        		Arrays.asList(2, "b"),
+        		Arrays.asList(3, "c"),
+        };    
+
+        FakeDataManager dataManager = new FakeDataManager();
+        sampleData1(dataManager);
+        CommandContext cc = createCommandContext();
+        cc.setProcessorBatchSize(2);
+        cc.setOptions(new Options().textTableParallelMinLines(0).textTableParallelChunks(1));
+        final AtomicInteger executed = new AtomicInteger();
+        cc.setExecutor(new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				executed.incrementAndGet();
+				command.run();
+			}
+		});
+    	ProcessorPlan plan = helpGetPlan(helpParse(sql), RealMetadataFactory.example1Cached(), new DefaultCapabilitiesFinder(), cc);
+    	helpProcess(plan, cc, dataManager, expected);
+    	//a single chunk is parsed serially
+    	assertEquals(0, executed.get());
+    }
+	
 	@Test public void testTextTableJoin1() throws Exception {
 		String sql = "select e1, e2 from texttable('a' COLUMNS col string) x, pm1.g1 where col = e1";
     	
@@ -480,6 +480,14 @@ public class RealMetadataFactory {
         
         createKey(KeyRecord.Type.Primary, "pk", vGroup7, vElements7.subList(1, 2));
         
+        //union for partitioned loading
+        QueryNode vTrans8 = new QueryNode("SELECT x FROM matsrc UNION ALL SELECT x FROM matsrc UNION ALL SELECT x FROM matsrc");         //$NON-NLS-1$
+        Table vGroup8 = createVirtualGroup("VGroup8", virtModel, vTrans8); //$NON-NLS-1$
+        vGroup8.setMaterialized(true);
+        createElements(vGroup8,
+                                      new String[] { "x" }, //$NON-NLS-1$
+                                      new String[] { DataTypeManager.DefaultDataTypes.STRING});
+        
         Schema sp = createVirtualModel("sp", metadataStore); //$NON-NLS-1$
         ColumnSet<Procedure> rs = createResultSet("sp1.vsprs1", new String[] { "StringKey" }, new String[] { DataTypeManager.DefaultDataTypes.STRING }); //$NON-NLS-1$ //$NON-NLS-2$
         ProcedureParameter param = createParameter("param1", ParameterInfo.IN, DataTypeManager.DefaultDataTypes.STRING); //$NON-NLS-1$
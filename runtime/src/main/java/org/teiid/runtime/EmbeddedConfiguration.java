@@ -89,6 +89,7 @@ public class EmbeddedConfiguration extends DQPConfiguration {
 	private String bufferDirectory;
 	private CacheFactory cacheFactory;
 	private int maxResultSetCacheStaleness = 60;
+	private long maxResultSetCacheSizeKB = -1;
 	private String infinispanConfigFile = "infinispan-config.xml"; //$NON-NLS-1$
 	private String jgroupsConfigFile;
 	
@@ -206,6 +207,17 @@ public class EmbeddedConfiguration extends DQPConfiguration {
 	public void setMaxResultSetCacheStaleness(int maxResultSetCacheStaleness) {
 		this.maxResultSetCacheStaleness = maxResultSetCacheStaleness;
 	}
+	public long getMaxResultSetCacheSizeKB() {
+		return maxResultSetCacheSizeKB;
+	}
+	/**
+	 * Set the max estimated size of the result set cache entries.  
+	 * Defaults to -1, which does not limit the entries by size.
+	 * @param maxResultSetCacheSizeKB
+	 */
+	public void setMaxResultSetCacheSizeKB(long maxResultSetCacheSizeKB) {
+		this.maxResultSetCacheSizeKB = maxResultSetCacheSizeKB;
+	}
 	public String getJgroupsConfigFile() {
 		return jgroupsConfigFile;
 	}
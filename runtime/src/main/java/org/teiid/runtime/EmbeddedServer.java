@@ -306,6 +306,9 @@ public class EmbeddedServer extends AbstractVDBDeployer implements EventDistribu
 		rs = new SessionAwareCache<CachedResults>("resultset", config.getCacheFactory(), SessionAwareCache.Type.RESULTSET, config.getMaxResultSetCacheStaleness()); //$NON-NLS-1$
 		ppc = new SessionAwareCache<PreparedPlan>("preparedplan", config.getCacheFactory(), SessionAwareCache.Type.PREPAREDPLAN, 0); //$NON-NLS-1$
 		rs.setTupleBufferCache(bs.getTupleBufferCache());
+		if (config.getMaxResultSetCacheSizeKB() >= 0) {
+			rs.setMaxSizeBytes(config.getMaxResultSetCacheSizeKB() << 10);
+		}
 		this.dqp.setResultsetCache(rs);
 
 		ppc.setTupleBufferCache(bs.getTupleBufferCache());
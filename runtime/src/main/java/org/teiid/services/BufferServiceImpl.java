@@ -63,9 +63,12 @@ public class BufferServiceImpl implements BufferService, Serializable {
     private int maxReserveKb = BufferManager.DEFAULT_RESERVE_BUFFER_KB;
     private long maxBufferSpace = FileStorageManager.DEFAULT_MAX_BUFFERSPACE>>20;
     private boolean inlineLobs = true;
+    private boolean compressBatches;
     private long memoryBufferSpace = -1;
     private int maxStorageObjectSize = BufferFrontedFileStoreCache.DEFAuLT_MAX_OBJECT_SIZE;
     private boolean memoryBufferOffHeap;
+    private boolean memoryBufferWriteBehind;
+    private boolean prefersMemoryOffHeap;
 	private FileStorageManager fsm;
 	private BufferFrontedFileStoreCache fsc;
 	private int workingMaxReserveKb;
@@ -87,6 +90,7 @@ public class BufferServiceImpl implements BufferService, Serializable {
             this.bufferMgr.setMaxReserveKB(this.maxReserveKb);
             this.bufferMgr.setMaxProcessingKB(this.maxProcessingKb);
             this.bufferMgr.setInlineLobs(inlineLobs);
+            this.bufferMgr.setCompressBatches(compressBatches);
             this.bufferMgr.initialize();
             
             // If necessary, add disk storage manager
@@ -108,6 +112,11 @@ public class BufferServiceImpl implements BufferService, Serializable {
                 fsc = new BufferFrontedFileStoreCache();
                 fsc.setMaxStorageObjectSize(maxStorageObjectSize);
                 fsc.setDirect(memoryBufferOffHeap);
+                fsc.setWriteBehind(memoryBufferWriteBehind);
+                //keep preferred memory batches in the off heap memory buffer rather than as soft references
+                boolean retainPreferred = prefersMemoryOffHeap && memoryBufferOffHeap;
+                fsc.setRetainPreferred(retainPreferred);
+                this.bufferMgr.setPrefersMemoryOffHeap(retainPreferred);
                 int batchOverheadKB = (int)(this.memoryBufferSpace<0?(this.bufferMgr.getMaxReserveKB()<<8):this.memoryBufferSpace)>>20;
         		this.bufferMgr.setMaxReserveKB(Math.max(0, this.bufferMgr.getMaxReserveKB() - batchOverheadKB));
                 if (memoryBufferSpace < 0) {
@@ -139,6 +148,9 @@ public class BufferServiceImpl implements BufferService, Serializable {
     public void stop() {
     	LogManager.logDetail(LogConstants.CTX_DQP, "Stopping BufferManager using", bufferDir); //$NON-NLS-1$
         bufferMgr.shutdown();
+        if (fsc != null) {
+        	fsc.shutdown();
+        }
 
         // Delete the buffer directory
         if (bufferDir != null) {
@@ -172,6 +184,14 @@ public class BufferServiceImpl implements BufferService, Serializable {
 		this.inlineLobs = inlineLobs;
 	}
 
+	public void setCompressBatches(boolean compressBatches) {
+		this.compressBatches = compressBatches;
+	}
+	
+	public boolean isCompressBatches() {
+		return compressBatches;
+	}
+
 	public File getBufferDirectory() {
 		return bufferDir;
 	}
@@ -228,6 +248,18 @@ public class BufferServiceImpl implements BufferService, Serializable {
 		this.memoryBufferOffHeap = memoryBufferOffHeap;
 	}
 
+    public void setPrefersMemoryOffHeap(boolean prefersMemoryOffHeap) {
+		this.prefersMemoryOffHeap = prefersMemoryOffHeap;
+	}
+    
+    public boolean isPrefersMemoryOffHeap() {
+		return prefersMemoryOffHeap;
+	}
+
+    public void setMemoryBufferWriteBehind(boolean memoryBufferWriteBehind) {
+		this.memoryBufferWriteBehind = memoryBufferWriteBehind;
+	}
+
     public void setMemoryBufferSpace(int memoryBufferSpace) {
 		this.memoryBufferSpace = memoryBufferSpace;
 	}
@@ -272,6 +304,10 @@ public class BufferServiceImpl implements BufferService, Serializable {
     	return 0;
     }
     
+    public double getBatchCompressionRatio() {
+    	return bufferMgr.getBatchCompressionRatio();
+    }
+    
     public long getCacheReadCount() {
     	return bufferMgr.getReadCount();
     }
@@ -294,5 +330,9 @@ public class BufferServiceImpl implements BufferService, Serializable {
 
     public boolean isMemoryBufferOffHeap() {
 		return memoryBufferOffHeap;
+	}
+    
+    public boolean isMemoryBufferWriteBehind() {
+		return memoryBufferWriteBehind;
 	}       
 }
@@ -25,6 +25,7 @@ package org.teiid.systemmodel;
 import static org.junit.Assert.*;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -245,7 +246,28 @@ public class TestMatViews {
 		assertTrue(rs.next());
 		assertEquals(0, rs.getInt(1)); //no rows updated
 	}
-	
+
+	@Test public void testSystemMatViewsWithMultipleRowRefresh() throws Exception {
+		Statement s = conn.createStatement();
+
+		s.execute("alter view test.randomview as /*+ cache(updatable) */ select rand() as x, rand() as y");
+		ResultSet rs = s.executeQuery("select * from (call refreshMatView('TEST.RANDOMVIEW', false)) p");
+		assertTrue(rs.next());
+		assertEquals(1, rs.getInt(1));
+		rs = s.executeQuery("select x from TEST.RANDOMVIEW");
+		assertTrue(rs.next());
+		double key = rs.getDouble(1);
+
+		PreparedStatement ps = conn.prepareStatement("select * from (call refreshMatViewRow('TEST.RANDOMVIEW', ?)) p");
+		ps.setObject(1, new Double[] {key, 2.0});
+		rs = ps.executeQuery();
+		assertTrue(rs.next());
+		assertEquals(1, rs.getInt(1)); //1 row updated (removed)
+
+		rs = s.executeQuery("select * from TEST.RANDOMVIEW");
+		assertFalse(rs.next());
+	}
+
 	@Test(expected=TeiidSQLException.class) public void testSystemMatViewsWithRowRefreshNoPk() throws Exception {
 		Statement s = conn.createStatement();
 		s.executeQuery("select * from (call refreshMatView('TEST.MATVIEW', false)) p");